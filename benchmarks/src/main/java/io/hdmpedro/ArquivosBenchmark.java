@@ -0,0 +1,120 @@
+package io.hdmpedro;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Arquivos usados pelos benchmarks: a tabela IBPT que vem no repositório e dois CSVs sintéticos
+ * gerados com semente fixa, um largo (muitas colunas) e um longo (muitos registros), para que as
+ * medições sejam comparáveis entre execuções.
+ */
+final class ArquivosBenchmark {
+
+    static final String IBPT = "ibpt";
+    static final String LARGO = "largo";
+    static final String LONGO = "longo";
+    static final char SEPARADOR = ';';
+
+    private static final String CAMINHO_IBPT = "src/main/java/io/hdmpedro/TabelaIBPTaxAC25.1.F.csv";
+    private static final int COLUNAS_LARGO = 200;
+    private static final int REGISTROS_LARGO = 20_000;
+    private static final int REGISTROS_LONGO = 500_000;
+
+    private ArquivosBenchmark() {
+    }
+
+    static Path arquivo(String nome) {
+        switch (nome) {
+            case IBPT:
+                return ibpt();
+            case LARGO:
+                return gerar(LARGO, COLUNAS_LARGO, REGISTROS_LARGO);
+            case LONGO:
+                return gerar(LONGO, 12, REGISTROS_LONGO);
+            default:
+                throw new IllegalArgumentException("Arquivo de benchmark desconhecido: " + nome);
+        }
+    }
+
+    /** A tabela IBPT é ISO-8859-1; os sintéticos são gerados em UTF-8. */
+    static Charset charset(String nome) {
+        return IBPT.equals(nome) ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+    }
+
+    // roda tanto da raiz do projeto quanto de dentro de benchmarks/
+    private static Path ibpt() {
+        String configurado = System.getProperty("csv.ibpt");
+        if (configurado != null) return Paths.get(configurado);
+
+        for (Path candidato : new Path[]{Paths.get(CAMINHO_IBPT), Paths.get("..", CAMINHO_IBPT)}) {
+            if (Files.exists(candidato)) return candidato;
+        }
+        throw new IllegalStateException("Tabela IBPT não encontrada; informe o caminho com -Dcsv.ibpt=");
+    }
+
+    private static Path gerar(String nome, int colunas, int registros) {
+        Path destino = Paths.get(System.getProperty("java.io.tmpdir"), "csvimporter-bench-" + nome + "-" + colunas + "x" + registros + ".csv");
+        if (Files.exists(destino)) return destino;
+
+        try {
+            Path temporario = Files.createTempFile(destino.getParent(), "csvimporter-bench-", ".tmp");
+            try (BufferedWriter saida = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+                escrever(saida, colunas, registros);
+            }
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            return destino;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // as colunas giram entre inteiro, decimal, data BR, data/hora ISO, booleano e texto com aspas
+    private static void escrever(BufferedWriter saida, int colunas, int registros) throws IOException {
+        Random aleatorio = new Random(42);
+
+        for (int c = 0; c < colunas; c++) {
+            if (c > 0) saida.write(';');
+            saida.write("col" + c);
+        }
+        saida.write('\n');
+
+        StringBuilder linha = new StringBuilder(colunas * 12);
+        for (int r = 0; r < registros; r++) {
+            linha.setLength(0);
+            for (int c = 0; c < colunas; c++) {
+                if (c > 0) linha.append(';');
+                switch (c % 6) {
+                    case 0:
+                        linha.append(aleatorio.nextInt(1_000_000));
+                        break;
+                    case 1:
+                        linha.append(aleatorio.nextInt(10_000)).append('.').append(10 + aleatorio.nextInt(90));
+                        break;
+                    case 2:
+                        linha.append(String.format("%02d/%02d/%04d", 1 + aleatorio.nextInt(28), 1 + aleatorio.nextInt(12), 2000 + aleatorio.nextInt(25)));
+                        break;
+                    case 3:
+                        linha.append(String.format("%04d-%02d-%02d %02d:%02d:%02d", 2000 + aleatorio.nextInt(25), 1 + aleatorio.nextInt(12),
+                                1 + aleatorio.nextInt(28), aleatorio.nextInt(24), aleatorio.nextInt(60), aleatorio.nextInt(60)));
+                        break;
+                    case 4:
+                        linha.append(aleatorio.nextBoolean() ? "true" : "false");
+                        break;
+                    default:
+                        linha.append("\"Descrição ").append(r).append("; item \"\"").append(c).append("\"\"\"");
+                        break;
+                }
+            }
+            linha.append('\n');
+            saida.write(linha.toString());
+        }
+    }
+}
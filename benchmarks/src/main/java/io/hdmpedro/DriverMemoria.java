@@ -0,0 +1,268 @@
+package io.hdmpedro;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Driver JDBC em memória para os benchmarks ponta a ponta ({@code jdbc:memoria:}). Guarda só o
+ * esquema das tabelas criadas, para responder ao {@code DatabaseMetaData}, e descarta os valores:
+ * o que se mede é o custo do importador, não o de um banco. O {@code LOAD DATA LOCAL INFILE} lê o
+ * fluxo inteiro como o Connector/J faria.
+ */
+final class DriverMemoria implements Driver {
+
+    static final String URL = "jdbc:memoria:bench";
+
+    private static final Pattern CREATE = Pattern.compile("CREATE TABLE(?: IF NOT EXISTS)? `([^`]+)` \\((.*)\\)", Pattern.DOTALL);
+    private static final Pattern COLUNA = Pattern.compile("`([^`]+)` ([A-Z]+)");
+    private static final Pattern DROP = Pattern.compile("DROP TABLE IF EXISTS `([^`]+)`");
+
+    private static final Map<String, Map<String, String>> TABELAS = new ConcurrentHashMap<>();
+    private static final AtomicLong LINHAS = new AtomicLong();
+    private static volatile boolean registrado;
+
+    static synchronized void registrar() throws SQLException {
+        if (!registrado) {
+            DriverManager.registerDriver(new DriverMemoria());
+            registrado = true;
+        }
+    }
+
+    /** Linhas recebidas desde a última chamada. */
+    static long linhasInseridas() {
+        return LINHAS.getAndSet(0);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        return acceptsURL(url) ? conexao() : null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url.startsWith("jdbc:memoria:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getGlobal();
+    }
+
+    private static Connection conexao() {
+        boolean[] fechada = {false};
+        return proxy(Connection.class, (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "createStatement":
+                    return statement(null);
+                case "prepareStatement":
+                    return statement((String) args[0]);
+                case "getMetaData":
+                    return metadados();
+                case "isClosed":
+                    return fechada[0];
+                case "close":
+                    fechada[0] = true;
+                    return null;
+                case "getAutoCommit":
+                    return true;
+                default:
+                    return padrao(metodo);
+            }
+        });
+    }
+
+    private static Statement statement(String sqlPreparado) {
+        int linhasPorExecucao = sqlPreparado == null ? 1 : contar(sqlPreparado, "),(") + 1;
+        int[] pendentes = {0};
+        InputStream[] infile = {null};
+
+        InvocationHandler tratador = (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    return proxy;
+                case "setLocalInfileInputStream":
+                    infile[0] = (InputStream) args[0];
+                    return null;
+                case "addBatch":
+                    pendentes[0]++;
+                    return null;
+                case "executeBatch":
+                    LINHAS.addAndGet((long) pendentes[0] * linhasPorExecucao);
+                    int[] resultado = new int[pendentes[0]];
+                    pendentes[0] = 0;
+                    return resultado;
+                case "executeQuery":
+                    return consulta(args != null ? (String) args[0] : sqlPreparado);
+                case "execute":
+                case "executeUpdate":
+                    String sql = args != null ? (String) args[0] : sqlPreparado;
+                    long afetadas = executar(sql, infile[0], linhasPorExecucao);
+                    return metodo.getReturnType() == boolean.class ? (Object) false : (Object) (int) afetadas;
+                default:
+                    return padrao(metodo);
+            }
+        };
+
+        if (sqlPreparado != null) return proxy(PreparedStatement.class, tratador);
+        return proxy(JdbcStatement.class, tratador);
+    }
+
+    private static long executar(String sql, InputStream infile, int linhasPorExecucao) {
+        if (sql.startsWith("LOAD DATA")) {
+            long linhas = consumir(infile);
+            LINHAS.addAndGet(linhas);
+            return linhas;
+        }
+        if (sql.startsWith("INSERT")) {
+            LINHAS.addAndGet(linhasPorExecucao);
+            return linhasPorExecucao;
+        }
+
+        Matcher drop = DROP.matcher(sql);
+        if (drop.find()) TABELAS.remove(drop.group(1));
+
+        Matcher create = CREATE.matcher(sql);
+        if (create.find()) {
+            Map<String, String> colunas = new LinkedHashMap<>();
+            Matcher coluna = COLUNA.matcher(create.group(2));
+            while (coluna.find()) {
+                colunas.put(coluna.group(1), coluna.group(2).equals("BOOLEAN") ? "BIT" : coluna.group(2));
+            }
+            TABELAS.put(create.group(1), colunas);
+        }
+        return 0;
+    }
+
+    // conta as linhas do TSV sem guardar nada
+    private static long consumir(InputStream infile) {
+        byte[] buffer = new byte[64 * 1024];
+        long linhas = 0;
+        try (InputStream entrada = infile) {
+            int lidos;
+            while ((lidos = entrada.read(buffer)) > 0) {
+                for (int i = 0; i < lidos; i++) {
+                    if (buffer[i] == '\n') linhas++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return linhas;
+    }
+
+    private static ResultSet consulta(String sql) {
+        if (sql.contains("max_allowed_packet")) {
+            return resultado(Collections.singletonList("valor"), Collections.singletonList(new Object[]{"67108864"}));
+        }
+        return resultado(Collections.singletonList("valor"), Collections.emptyList());
+    }
+
+    private static DatabaseMetaData metadados() {
+        return proxy(DatabaseMetaData.class, (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "getTables": {
+                    String tabela = (String) args[2];
+                    List<Object[]> linhas = TABELAS.containsKey(tabela)
+                            ? Collections.singletonList(new Object[]{tabela})
+                            : Collections.emptyList();
+                    return resultado(Collections.singletonList("TABLE_NAME"), linhas);
+                }
+                case "getColumns": {
+                    List<Object[]> linhas = new ArrayList<>();
+                    Map<String, String> colunas = TABELAS.get((String) args[2]);
+                    if (colunas != null) colunas.forEach((nome, tipo) -> linhas.add(new Object[]{nome, tipo}));
+                    return resultado(List.of("COLUMN_NAME", "TYPE_NAME"), linhas);
+                }
+                default:
+                    return padrao(metodo);
+            }
+        });
+    }
+
+    private static ResultSet resultado(List<String> nomes, List<Object[]> linhas) {
+        int[] posicao = {-1};
+        return proxy(ResultSet.class, (proxy, metodo, args) -> {
+            switch (metodo.getName()) {
+                case "next":
+                    return ++posicao[0] < linhas.size();
+                case "getString":
+                case "getObject": {
+                    int coluna = args[0] instanceof String ? nomes.indexOf(args[0]) : (Integer) args[0] - 1;
+                    Object valor = linhas.get(posicao[0])[coluna];
+                    return valor == null ? null : valor.toString();
+                }
+                default:
+                    return padrao(metodo);
+            }
+        });
+    }
+
+    private static Object padrao(Method metodo) {
+        Class<?> retorno = metodo.getReturnType();
+        if (retorno == boolean.class) return false;
+        if (retorno == int.class) return 0;
+        if (retorno == long.class) return 0L;
+        return null;
+    }
+
+    private static int contar(String texto, String trecho) {
+        int quantidade = 0;
+        for (int i = texto.indexOf(trecho); i >= 0; i = texto.indexOf(trecho, i + trecho.length())) {
+            quantidade++;
+        }
+        return quantidade;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, InvocationHandler tratador) {
+        return (T) Proxy.newProxyInstance(DriverMemoria.class.getClassLoader(), new Class<?>[]{tipo}, tratador);
+    }
+}
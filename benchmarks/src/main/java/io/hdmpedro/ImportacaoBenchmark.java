@@ -0,0 +1,80 @@
+package io.hdmpedro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importação ponta a ponta (leitura, inferência, CREATE TABLE e inserção) contra o
+ * {@link DriverMemoria}. Cada invocação importa o arquivo inteiro; a saída do console é descartada
+ * para que as mensagens por lote não entrem na medição.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ImportacaoBenchmark {
+
+    @Param({ArquivosBenchmark.IBPT, ArquivosBenchmark.LONGO})
+    public String arquivo;
+
+    @Param({"LOTE", "MULTI_LINHAS", "LOAD_DATA"})
+    public ModoInsercao modo;
+
+    @Param({"1", "4"})
+    public int paralelismo;
+
+    @Param({"false", "true"})
+    public boolean mapeada;
+
+    private String caminho;
+    private CSVImporter importer;
+    private PrintStream saidaOriginal;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        DriverMemoria.registrar();
+        caminho = ArquivosBenchmark.arquivo(arquivo).toString();
+
+        importer = new CSVImporter(DriverMemoria.URL, "bench", "");
+        importer.definirModoInsercao(modo);
+        importer.definirParalelismo(paralelismo, paralelismo, 4);
+        importer.definirLeituraMapeada(mapeada, false);
+
+        saidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        System.setOut(saidaOriginal);
+        importer.close();
+    }
+
+    @Benchmark
+    public long importar() throws Exception {
+        importer.importarCSV(caminho, "bench_" + arquivo, Collections.emptySet());
+        long linhas = DriverMemoria.linhasInseridas();
+        if (linhas == 0) {
+            throw new IllegalStateException("Nenhuma linha chegou ao driver");
+        }
+        return linhas;
+    }
+}
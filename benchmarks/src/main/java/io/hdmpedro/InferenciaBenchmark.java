@@ -0,0 +1,73 @@
+package io.hdmpedro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Inferência de tipos nos três modos, com o arquivo em memória. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InferenciaBenchmark {
+
+    @Param({ArquivosBenchmark.IBPT, ArquivosBenchmark.LARGO})
+    public String arquivo;
+
+    @Param({"AMOSTRA", "RESERVATORIO", "COMPLETO"})
+    public ModoInferencia modo;
+
+    @Param({"1000"})
+    public int amostra;
+
+    private byte[] dados;
+    private Charset charset;
+    private InferenciaTipos inferencia;
+
+    @Setup
+    public void carregar() throws IOException {
+        dados = Files.readAllBytes(ArquivosBenchmark.arquivo(arquivo));
+        charset = ArquivosBenchmark.charset(arquivo);
+
+        TokenizadorCSV tokenizador = abrir();
+        tokenizador.proximo();
+        String[] cabecalhos = new String[tokenizador.quantidadeCampos()];
+        for (int i = 0; i < cabecalhos.length; i++) {
+            cabecalhos[i] = tokenizador.texto(i);
+        }
+        List<String> colunas = Arrays.asList(cabecalhos);
+        inferencia = new InferenciaTipos(cabecalhos, colunas, charset);
+    }
+
+    @Benchmark
+    public Map<String, String> inferir() throws IOException {
+        TokenizadorCSV tokenizador = abrir();
+        tokenizador.proximo();
+        return inferencia.inferir(tokenizador, modo, amostra, Runtime.getRuntime().availableProcessors());
+    }
+
+    private TokenizadorCSV abrir() {
+        TokenizadorCSV tokenizador = new TokenizadorCSV(new ByteArrayInputStream(dados), charset);
+        tokenizador.definirSeparador(ArquivosBenchmark.SEPARADOR);
+        return tokenizador;
+    }
+}
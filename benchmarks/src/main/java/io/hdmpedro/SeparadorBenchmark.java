@@ -0,0 +1,45 @@
+package io.hdmpedro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/** Detecção do separador sobre a primeira linha de cada arquivo. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeparadorBenchmark {
+
+    @Param({ArquivosBenchmark.IBPT, ArquivosBenchmark.LARGO})
+    public String arquivo;
+
+    private String primeiraLinha;
+
+    @Setup
+    public void carregar() throws IOException {
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(
+                Files.newInputStream(ArquivosBenchmark.arquivo(arquivo)), ArquivosBenchmark.charset(arquivo))) {
+            primeiraLinha = tokenizador.espiarLinha();
+        }
+    }
+
+    @Benchmark
+    public char detectar() {
+        return CSVImporter.detectarSeparador(primeiraLinha);
+    }
+}
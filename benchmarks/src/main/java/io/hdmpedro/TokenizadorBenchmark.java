@@ -0,0 +1,93 @@
+package io.hdmpedro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse do arquivo já carregado em memória, para medir só o tokenizador: só os limites dos campos,
+ * os limites mais um {@code String} por campo (o custo do antigo {@code parseCSVLinha}) e o corte
+ * em blocos usado pelo pipeline paralelo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizadorBenchmark {
+
+    @Param({ArquivosBenchmark.IBPT, ArquivosBenchmark.LARGO})
+    public String arquivo;
+
+    private byte[] dados;
+    private Charset charset;
+
+    @Setup
+    public void carregar() throws IOException {
+        dados = Files.readAllBytes(ArquivosBenchmark.arquivo(arquivo));
+        charset = ArquivosBenchmark.charset(arquivo);
+    }
+
+    @Benchmark
+    public long campos(Blackhole bh) throws IOException {
+        TokenizadorCSV tokenizador = abrir();
+        long registros = 0;
+        while (tokenizador.proximo()) {
+            for (int c = 0; c < tokenizador.quantidadeCampos(); c++) {
+                bh.consume(tokenizador.fim(c));
+            }
+            registros++;
+        }
+        return registros;
+    }
+
+    @Benchmark
+    public long camposComTexto(Blackhole bh) throws IOException {
+        TokenizadorCSV tokenizador = abrir();
+        long registros = 0;
+        while (tokenizador.proximo()) {
+            for (int c = 0; c < tokenizador.quantidadeCampos(); c++) {
+                bh.consume(tokenizador.texto(c));
+            }
+            registros++;
+        }
+        return registros;
+    }
+
+    @Benchmark
+    public long blocos(Blackhole bh) throws IOException {
+        TokenizadorCSV leitor = abrir();
+        long registros = 0;
+        TokenizadorCSV.Bloco bloco;
+        while ((bloco = leitor.proximoBloco(4096)) != null) {
+            TokenizadorCSV tokenizador = new TokenizadorCSV(bloco, charset, ArquivosBenchmark.SEPARADOR);
+            while (tokenizador.proximo()) {
+                bh.consume(tokenizador.fim(tokenizador.quantidadeCampos() - 1));
+                registros++;
+            }
+        }
+        return registros;
+    }
+
+    private TokenizadorCSV abrir() {
+        TokenizadorCSV tokenizador = new TokenizadorCSV(new ByteArrayInputStream(dados), charset);
+        tokenizador.definirSeparador(ArquivosBenchmark.SEPARADOR);
+        return tokenizador;
+    }
+}
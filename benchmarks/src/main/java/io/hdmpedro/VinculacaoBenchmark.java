@@ -0,0 +1,87 @@
+package io.hdmpedro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão e vinculação dos campos já tokenizados pelo {@link PlanoImportacao}, com os tipos que a
+ * inferência completa escolhe. O PreparedStatement é um proxy que só repassa os valores ao
+ * Blackhole; o custo do proxy é fixo e entra igual em todas as medições.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VinculacaoBenchmark {
+
+    @Param({ArquivosBenchmark.IBPT, ArquivosBenchmark.LARGO})
+    public String arquivo;
+
+    private LoteRegistros registros;
+    private PlanoImportacao plano;
+    private PreparedStatement pstmt;
+    private Blackhole destino;
+
+    @Setup
+    public void carregar() throws IOException {
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(
+                Files.newInputStream(ArquivosBenchmark.arquivo(arquivo)), ArquivosBenchmark.charset(arquivo))) {
+            tokenizador.definirSeparador(ArquivosBenchmark.SEPARADOR);
+            tokenizador.proximo();
+            String[] cabecalhos = new String[tokenizador.quantidadeCampos()];
+            for (int i = 0; i < cabecalhos.length; i++) {
+                cabecalhos[i] = tokenizador.texto(i);
+            }
+            List<String> colunas = Arrays.asList(cabecalhos);
+
+            tokenizador.marcar();
+            Map<String, String> tipos = new InferenciaTipos(cabecalhos, colunas, tokenizador.charset())
+                    .inferir(tokenizador, ModoInferencia.COMPLETO, 0, Runtime.getRuntime().availableProcessors());
+            tokenizador.voltarMarca();
+            plano = PlanoImportacao.compilar(cabecalhos, colunas, tipos);
+
+            registros = new LoteRegistros(tokenizador.charset());
+            while (tokenizador.proximo()) {
+                registros.adicionar(tokenizador);
+            }
+        }
+
+        pstmt = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, metodo, args) -> {
+                    destino.consume(args);
+                    return null;
+                });
+    }
+
+    @Benchmark
+    public int vincular(Blackhole bh) throws SQLException {
+        destino = bh;
+        for (int i = 0; i < registros.tamanho(); i++) {
+            registros.posicionar(i);
+            plano.vincular(pstmt, 0, registros);
+        }
+        return registros.tamanho();
+    }
+}
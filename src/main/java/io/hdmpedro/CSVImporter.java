@@ -2,43 +2,290 @@ package io.hdmpedro;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class CSVImporter implements AutoCloseable {
-    private static final Pattern INTEGER_PATTERN = Pattern.compile("^-?\\d+$");
-    private static final Pattern DECIMAL_PATTERN = Pattern.compile("^-?\\d*\\.\\d+$");
-    private static final Pattern DATE_PATTERN_BR = Pattern.compile("^\\d{2}/\\d{2}/\\d{4}$");
-    private static final Pattern DATE_PATTERN_ISO = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}(\\s\\d{2}:\\d{2}:\\d{2})?$");
-    private static final Pattern BOOLEAN_PATTERN = Pattern.compile("^(true|false|0|1|yes|no|y|n)$", Pattern.CASE_INSENSITIVE);
     private static final int BATCH_SIZE = 1000;
     private static final int SAMPLE_SIZE = 1000;
+    private static final String TIPO_COLUNA_ORIGEM = "VARCHAR(255)";
+    static final String SUFIXO_REJEITADOS = ".rejeitados.csv";
+    private static final String INDICE_CHAVE = "uk_csvimporter_chave";
+    private static final String SUFIXO_SOMBRA = "_novo";
+    private static final String SUFIXO_ANTIGA = "_antiga";
+    private static final int TAMANHO_MAXIMO_NOME = 64;
     private Map<String, String> tiposPersonalizados = new HashMap<>();
+    private int analisadores = 1;
+    private int escritores = 1;
+    private int profundidadeFila = 4;
+    private ModoInsercao modoInsercao = ModoInsercao.LOTE;
+    private ModoInferencia modoInferencia = ModoInferencia.AMOSTRA;
+    private int tamanhoAmostra = SAMPLE_SIZE;
+    private boolean gravarDiario;
+    private int tamanhoLote = BATCH_SIZE;
+    private boolean loteAdaptativo = true;
+    private int commitLinhas;
+    private long commitMs;
+    private boolean retomar;
+    private int intervaloProgresso;
+    private boolean leituraMapeada;
+    private boolean leituraOrdenada;
+    private String colunaOrigem;
+    private CacheInferencia cacheInferencia;
+    private CacheMetadados metadados = CacheMetadados.desligado();
+    private long registrosImportados;
+    private List<String> chaves;
+    private boolean hashConteudo;
+    private boolean cargaSombra;
+    private boolean manterAntiga;
+    private boolean validarContagem;
+    private int percentualMinimo;
+    private final List<IndiceDeclarado> indices = new ArrayList<>();
+    private boolean indicesNoFim = true;
+    private boolean sessaoCarga;
+    private boolean cacheValores = true;
+    private PoliticaFalha politicaFalhas = PoliticaFalha.TEXTO;
+    private long limiteFalhas;
+    private final Map<String, PoliticaFalha> politicasColunas = new LinkedHashMap<>();
+    private final Map<String, Long> limitesColunas = new HashMap<>();
+    private String arquivoRejeitados;
 
     private final String jdbcUrl;
     private final String usuario;
     private final String senha;
+    private final PoolConexoes pool;
     private Connection connection;
 
     public CSVImporter(String jdbcUrl, String usuario, String senha) throws SQLException {
         this.jdbcUrl = jdbcUrl;
         this.usuario = usuario;
         this.senha = senha;
+        this.pool = null;
         this.tiposPersonalizados = tiposPersonalizados != null ? new HashMap<>(tiposPersonalizados) : new HashMap<>();
         this.connection = DriverManager.getConnection(jdbcUrl, usuario, senha);
     }
 
+    private CSVImporter() {
+        this.jdbcUrl = null;
+        this.usuario = null;
+        this.senha = null;
+        this.pool = null;
+    }
+
+    /** Sem conexão nenhuma; só serve para {@link #validarCSV(String, Set)}. */
+    public static CSVImporter paraValidacao() {
+        return new CSVImporter();
+    }
+
+    // a conexão principal e as dos escritores vêm do pool e voltam para ele no close()
+    CSVImporter(PoolConexoes pool) throws SQLException {
+        this.jdbcUrl = pool.jdbcUrl();
+        this.usuario = pool.usuario();
+        this.senha = pool.senha();
+        this.pool = pool;
+        this.connection = pool.obter();
+    }
+
     public void definirTipoPersonalizado(String nomeColuna, String tipoSQL) {
         tiposPersonalizados.put(nomeColuna.trim(), tipoSQL.toUpperCase());
     }
 
+    public void definirParalelismo(int analisadores, int escritores, int profundidadeFila) {
+        if (analisadores < 1 || escritores < 1 || profundidadeFila < 1) {
+            throw new IllegalArgumentException("Paralelismo e profundidade da fila devem ser maiores que zero");
+        }
+        this.analisadores = analisadores;
+        this.escritores = escritores;
+        this.profundidadeFila = profundidadeFila;
+    }
+
+    public void definirModoInsercao(ModoInsercao modoInsercao) {
+        this.modoInsercao = Objects.requireNonNull(modoInsercao);
+    }
+
+    public void definirInferencia(ModoInferencia modoInferencia, int tamanhoAmostra) {
+        if (tamanhoAmostra < 1) {
+            throw new IllegalArgumentException("Tamanho da amostra deve ser maior que zero");
+        }
+        this.modoInferencia = Objects.requireNonNull(modoInferencia);
+        this.tamanhoAmostra = tamanhoAmostra;
+    }
+
+    /**
+     * Com {@code gravarDiario} o progresso de cada lote confirmado vai para a tabela
+     * {@value DiarioImportacao#TABELA}; com {@code retomar} uma importação interrompida do mesmo
+     * arquivo continua do primeiro registro não confirmado em vez de recriar a tabela.
+     */
+    public void definirDiario(boolean gravarDiario, boolean retomar) {
+        this.gravarDiario = gravarDiario || retomar;
+        this.retomar = retomar;
+    }
+
+    /**
+     * Mescla em vez de recriar: as {@code chaves} ganham um índice único e os registros são gravados
+     * com {@code INSERT ... ON DUPLICATE KEY UPDATE}, atualizando as linhas que já existem. Com
+     * {@code hashConteudo} cada linha guarda um hash do seu conteúdo e os registros que não mudaram
+     * desde a última carga nem são enviados. Com {@code chaves} nula ou vazia volta ao modo normal.
+     */
+    public void definirMesclagem(List<String> chaves, boolean hashConteudo) {
+        this.chaves = chaves == null || chaves.isEmpty() ? null : new ArrayList<>(chaves);
+        this.hashConteudo = this.chaves != null && hashConteudo;
+    }
+
+    /**
+     * Com {@code ativa} a tabela nova é carregada ao lado da atual, em {@code <tabela>_novo}, e só
+     * entra no lugar dela no fim, com um único {@code RENAME TABLE}; quem consulta a tabela durante
+     * a recarga continua vendo a versão anterior completa. Com {@code manterAntiga} a versão
+     * anterior fica em {@code <tabela>_antiga} em vez de ser apagada.
+     */
+    public void definirCargaSombra(boolean ativa, boolean manterAntiga) {
+        this.cargaSombra = ativa;
+        this.manterAntiga = ativa && manterAntiga;
+    }
+
+    /**
+     * Antes da troca da carga sombra, confere se a tabela nova tem tantas linhas quantos registros
+     * foram inseridos e, com {@code percentualMinimo > 0}, se tem pelo menos esse percentual das
+     * linhas da tabela atual; senão a troca não acontece e a tabela atual fica como estava.
+     */
+    public void definirValidacaoContagem(boolean validar, int percentualMinimo) {
+        if (percentualMinimo < 0) {
+            throw new IllegalArgumentException("Percentual mínimo não pode ser negativo");
+        }
+        this.validarContagem = validar;
+        this.percentualMinimo = percentualMinimo;
+    }
+
+    /**
+     * Índice secundário, ou único com {@code unico}, criado só depois da carga, numa única passada
+     * pela tabela, em vez de atualizado a cada linha inserida. Uma coluna pode ter prefixo, como em
+     * {@code descricao(100)}. Índices que já existem na tabela com o mesmo nome são mantidos.
+     */
+    public void definirIndice(List<String> colunas, boolean unico) {
+        indices.add(IndiceDeclarado.de(colunas, unico));
+    }
+
+    /**
+     * Durante a carga desliga {@code foreign_key_checks} e, fora da mesclagem, {@code unique_checks}
+     * nas conexões que gravam, devolvendo os valores anteriores no fim.
+     */
+    public void definirSessaoCarga(boolean ativa) {
+        this.sessaoCarga = ativa;
+    }
+
+    /**
+     * Cache do valor convertido por coluna (datas, decimais, textos curtos), ligado por padrão. Cada
+     * coluna só o usa se os primeiros valores mostrarem que ela repete poucos valores distintos.
+     */
+    public void definirCacheValores(boolean ativo) {
+        this.cacheValores = ativo;
+    }
+
+    /**
+     * O que fazer com os valores que não convertem para o tipo da coluna; {@code coluna} nula vale para
+     * todas as que não têm política própria. {@code limite} só conta em {@link PoliticaFalha#ABORTAR}:
+     * a importação para quando a coluna passa desse número de falhas.
+     */
+    public void definirPoliticaFalhas(String coluna, PoliticaFalha politica, long limite) {
+        if (coluna == null) {
+            this.politicaFalhas = politica;
+            this.limiteFalhas = limite;
+        } else {
+            politicasColunas.put(coluna, politica);
+            limitesColunas.put(coluna, limite);
+        }
+    }
+
+    /**
+     * Arquivo, ou diretório, para os registros rejeitados. Sem ele o arquivo fica ao lado do CSV, como
+     * {@code <nome>.rejeitados.csv}.
+     */
+    public void definirArquivoRejeitados(String caminho) {
+        this.arquivoRejeitados = caminho;
+    }
+
+    String arquivoRejeitados() {
+        return arquivoRejeitados;
+    }
+
+    // na importação múltipla para uma tabela só, os índices são criados uma vez depois de todos os arquivos
+    void definirIndicesNoFim(boolean indicesNoFim) {
+        this.indicesNoFim = indicesNoFim;
+    }
+
+    boolean gravaDiario() {
+        return gravarDiario;
+    }
+
+    /**
+     * Tamanho do lote do {@code executeBatch}. Com {@code adaptativo} é só o tamanho inicial e passa a
+     * ser ajustado pela latência e pelos bytes de cada lote; sem, fica fixo.
+     */
+    public void definirLote(int tamanhoLote, boolean adaptativo) {
+        if (tamanhoLote < ControleLote.MINIMO || tamanhoLote > ControleLote.MAXIMO) {
+            throw new IllegalArgumentException("Tamanho do lote deve ficar entre " + ControleLote.MINIMO + " e " + ControleLote.MAXIMO);
+        }
+        this.tamanhoLote = tamanhoLote;
+        this.loteAdaptativo = adaptativo;
+    }
+
+    /** Commit a cada {@code linhas} registros ou {@code millis} milissegundos; com os dois em zero, a cada lote. */
+    public void definirIntervaloCommit(int linhas, long millis) {
+        if (linhas < 0 || millis < 0) {
+            throw new IllegalArgumentException("Intervalo de commit não pode ser negativo");
+        }
+        this.commitLinhas = linhas;
+        this.commitMs = millis;
+    }
+
+    /**
+     * Imprime uma linha {@code PROGRESSO {...}} em JSON a cada {@code segundos} durante a inserção;
+     * com zero, só o resumo no fim. As mesmas métricas ficam no JMX enquanto a importação roda.
+     */
+    public void definirProgresso(int segundos) {
+        if (segundos < 0) {
+            throw new IllegalArgumentException("Intervalo de progresso não pode ser negativo");
+        }
+        this.intervaloProgresso = segundos;
+    }
+
+    /**
+     * Com {@code mapeada} o arquivo é mapeado em memória e dividido em faixas alinhadas a registros,
+     * separadas em campos em paralelo por {@code analisadores} threads (todos os núcleos se for 1).
+     * Com {@code ordenada} os lotes chegam aos escritores na ordem do arquivo; com um único escritor
+     * é também a ordem de inserção.
+     */
+    public void definirLeituraMapeada(boolean mapeada, boolean ordenada) {
+        this.leituraMapeada = mapeada;
+        this.leituraOrdenada = ordenada;
+    }
+
+    /**
+     * Acrescenta à tabela uma coluna {@code VARCHAR} com o nome do arquivo de onde veio cada registro;
+     * com {@code null}, nenhuma. O CSV não pode ter uma coluna com o mesmo nome.
+     */
+    public void definirColunaOrigem(String coluna) {
+        this.colunaOrigem = coluna == null || coluna.trim().isEmpty() ? null : coluna.trim();
+    }
+
+    void usarCacheInferencia(CacheInferencia cacheInferencia) {
+        this.cacheInferencia = cacheInferencia;
+    }
+
+    void usarCacheMetadados(CacheMetadados metadados) {
+        this.metadados = Objects.requireNonNull(metadados);
+    }
+
+    /** Registros inseridos pela última importação, contando só os desta execução quando ela é retomada. */
+    public long registrosImportados() {
+        return registrosImportados;
+    }
+
     public void definirTiposPersonalizados(Map<String, String> tipos) {
         tipos.forEach((coluna, tipo) -> definirTipoPersonalizado(coluna, tipo));
     }
@@ -65,13 +312,174 @@ public class CSVImporter implements AutoCloseable {
         if (tiposPersonalizados != null) {
             tiposPersonalizados.forEach((coluna, tipo) -> definirTipoPersonalizado(coluna, tipo));
         }
+        registrosImportados = 0;
+        if (chaves != null && verificarTabelaExiste(nomeTabela)) {
+            if (cargaSombra) System.out.println("⚠️  A mesclagem altera a tabela no lugar, sem tabela sombra");
+            System.out.println("Tabela '" + nomeTabela + "' já existe, mesclando pelas chaves " + chaves);
+            if (!this.tiposPersonalizados.isEmpty()) {
+                System.out.println("⚠️  AVISO: Tipos personalizados ignorados, a tabela '" + nomeTabela
+                        + "' já existe e mantém os tipos atuais: " + this.tiposPersonalizados.keySet());
+            }
+            adicionarDadosTabela(caminhoCsv, nomeTabela, colunasExcluidas);
+            return;
+        }
+
+        try (TokenizadorCSV tokenizador = abrirArquivoCsv(caminhoCsv)) {
+            String[] cabecalhos = lerCabecalhosComSeparador(tokenizador);
+            List<String> cabecalhosFiltrados = filtrarCabecalhos(cabecalhos, colunasExcluidas);
+
+            if (cargaSombra) {
+                importarPorSombra(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados, nomeTabela);
+                return;
+            }
+
+            long offsetDados = tokenizador.offsetAtual();
+            long linhaDados = tokenizador.linhaAtual();
+            DiarioImportacao diario = abrirDiario(caminhoCsv, nomeTabela);
+            if (retomarImportacao(diario, caminhoCsv, tokenizador.charset(), cabecalhos, cabecalhosFiltrados, nomeTabela, tokenizador.separador())) {
+                if (indicesNoFim) criarIndicesDeclarados(nomeTabela);
+                return;
+            }
+
+            criarTabelaDetectada(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados, nomeTabela);
+            if (diario != null) diario.iniciar(offsetDados, linhaDados);
+            inserirDados(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados, nomeTabela, tokenizador.separador(), diario);
+            if (indicesNoFim) criarIndicesDeclarados(nomeTabela);
+        }
+    }
+
+    // se algo falhar antes da troca, a sombra é descartada e a tabela atual nem foi tocada
+    private void importarPorSombra(String caminhoCsv, TokenizadorCSV tokenizador, String[] cabecalhos,
+                                   List<String> cabecalhosFiltrados, String nomeTabela) throws SQLException, IOException {
+        String sombra = nomeAuxiliar(nomeTabela, SUFIXO_SOMBRA);
+        if (gravarDiario) {
+            System.out.println("⚠️  Com a tabela sombra o diário de importação não é usado");
+        }
+
+        criarTabelaDetectada(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados, sombra);
+        try {
+            inserirDados(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados, sombra, tokenizador.separador(), null);
+            // os índices ficam prontos antes da troca, e quem consulta já encontra a tabela nova indexada
+            criarIndicesDeclarados(sombra);
+            if (validarContagem) validarSombra(sombra, nomeTabela);
+        } catch (SQLException | IOException | RuntimeException e) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS `" + sombra + "`");
+            } catch (SQLException descarte) {
+                e.addSuppressed(descarte);
+            } finally {
+                metadados.invalidar(sombra);
+            }
+            throw e;
+        }
+        trocarTabelas(nomeTabela, sombra);
+    }
+
+    private void validarSombra(String sombra, String nomeTabela) throws SQLException {
+        long linhas = contarLinhas(sombra);
+        if (linhas != registrosImportados) {
+            throw new IllegalStateException("Tabela " + sombra + " tem " + linhas + " linhas, mas " + registrosImportados
+                    + " registros foram inseridos; a troca foi cancelada");
+        }
+        if (percentualMinimo > 0 && verificarTabelaExiste(nomeTabela)) {
+            long atuais = contarLinhas(nomeTabela);
+            if (linhas * 100 < atuais * percentualMinimo) {
+                throw new IllegalStateException("Tabela " + sombra + " tem " + linhas + " linhas, menos de " + percentualMinimo
+                        + "% das " + atuais + " de " + nomeTabela + "; a troca foi cancelada");
+            }
+        }
+        System.out.println("Contagem conferida: " + linhas + " linhas em " + sombra);
+    }
+
+    private long contarLinhas(String nomeTabela) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM `" + nomeTabela + "`")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // as duas renomeações do RENAME TABLE são atômicas: quem consulta vê a tabela antiga ou a nova, nunca nenhuma
+    private void trocarTabelas(String nomeTabela, String sombra) throws SQLException {
+        String antiga = nomeAuxiliar(nomeTabela, SUFIXO_ANTIGA);
+        try (Statement stmt = connection.createStatement()) {
+            if (!verificarTabelaExiste(nomeTabela)) {
+                stmt.execute("RENAME TABLE `" + sombra + "` TO `" + nomeTabela + "`");
+                System.out.println(" Tabela '" + sombra + "' renomeada para '" + nomeTabela + "'");
+                return;
+            }
+
+            stmt.execute("DROP TABLE IF EXISTS `" + antiga + "`");
+            stmt.execute("RENAME TABLE `" + nomeTabela + "` TO `" + antiga + "`, `" + sombra + "` TO `" + nomeTabela + "`");
+            System.out.println(" Tabela '" + sombra + "' trocada com '" + nomeTabela + "'");
+            if (manterAntiga) {
+                System.out.println(" Versão anterior mantida em '" + antiga + "'");
+            } else {
+                stmt.execute("DROP TABLE `" + antiga + "`");
+            }
+        } finally {
+            metadados.invalidar(nomeTabela, sombra, antiga);
+        }
+    }
+
+    private static String nomeAuxiliar(String nomeTabela, String sufixo) {
+        int maximo = TAMANHO_MAXIMO_NOME - sufixo.length();
+        return (nomeTabela.length() > maximo ? nomeTabela.substring(0, maximo) : nomeTabela) + sufixo;
+    }
+
+    /**
+     * Só infere os tipos e cria a tabela, sem inserir nada; os arquivos de uma importação múltipla
+     * depois anexam nela com {@link #adicionarDadosTabela}. As colunas vêm do primeiro arquivo. Na
+     * inferência completa os tipos são exatos, então todos os arquivos são lidos e os limites de cada
+     * coluna são combinados; nos outros modos basta a amostra do primeiro, que já tem folga.
+     */
+    void prepararTabela(List<String> caminhos, String nomeTabela, Set<String> colunasExcluidas) throws SQLException, IOException {
+        String primeiro = caminhos.get(0);
+        try (TokenizadorCSV tokenizador = abrirArquivoCsv(primeiro)) {
+            String[] cabecalhos = lerCabecalhosComSeparador(tokenizador);
+            List<String> cabecalhosFiltrados = filtrarCabecalhos(cabecalhos, colunasExcluidas);
+            if (modoInferencia == ModoInferencia.COMPLETO && caminhos.size() > 1) {
+                criarTabelaDetectada(cabecalhosFiltrados, nomeTabela, () -> inferirArquivos(caminhos, cabecalhosFiltrados));
+            } else {
+                criarTabelaDetectada(primeiro, tokenizador, cabecalhos, cabecalhosFiltrados, nomeTabela);
+            }
+        }
+    }
 
-        List<String> linhas = lerArquivoCsv(caminhoCsv);
-        if (linhas.isEmpty()) throw new IllegalArgumentException("CSV estar vazio");
+    // uma coluna que falta num arquivo só recebe os valores dos outros; um arquivo ilegível falha depois, na sua importação
+    private Map<String, String> inferirArquivos(List<String> caminhos, List<String> colunas) throws IOException {
+        InferenciaTipos primeira = null;
+        InferenciaColuna[] estados = null;
+        for (String caminho : caminhos) {
+            try (TokenizadorCSV passada = abrirArquivoCsv(caminho)) {
+                InferenciaTipos inferencia = new InferenciaTipos(lerCabecalhosComSeparador(passada), colunas, passada.charset());
+                InferenciaColuna[] parciais = inferencia.estados(passada, ModoInferencia.COMPLETO, tamanhoAmostra,
+                        Runtime.getRuntime().availableProcessors());
+                if (estados == null) {
+                    primeira = inferencia;
+                    estados = parciais;
+                } else {
+                    for (int i = 0; i < estados.length; i++) {
+                        estados[i].combinar(parciais[i]);
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("⚠️  " + FonteEntrada.de(caminho).nome() + " fica de fora da inferência de tipos: " + e.getMessage());
+            }
+        }
+        if (estados == null) throw new IOException("Nenhum arquivo pôde ser lido para inferir os tipos");
+        System.out.println("Tipos inferidos de todos os " + caminhos.size() + " arquivos");
+        return primeira.tipos(estados, true);
+    }
 
-        char separador = detectarSeparador(linhas.get(0));
-        String[] cabecalhos = parseCSVLinha(linhas.get(0), separador);
+    private String[] lerCabecalhosComSeparador(TokenizadorCSV tokenizador) throws IOException {
+        tokenizador.definirSeparador(detectarSeparador(tokenizador.espiarLinha()));
+        String[] cabecalhos = lerCabecalhos(tokenizador);
+        if (cabecalhos == null) throw new IllegalArgumentException("CSV estar vazio");
+        return cabecalhos;
+    }
 
+    private static List<String> filtrarCabecalhos(String[] cabecalhos, Set<String> colunasExcluidas) {
         List<String> cabecalhosFiltrados = Arrays.stream(cabecalhos)
                 .map(String::trim)
                 .filter(h -> !h.isEmpty() && !colunasExcluidas.contains(h))
@@ -80,18 +488,53 @@ public class CSVImporter implements AutoCloseable {
         if (cabecalhosFiltrados.isEmpty()) {
             throw new IllegalArgumentException("Nenhuma coluna válida encontrada no CSV");
         }
+        return cabecalhosFiltrados;
+    }
+
+    private void criarTabelaDetectada(String caminhoCsv, TokenizadorCSV tokenizador, String[] cabecalhos,
+                                      List<String> cabecalhosFiltrados, String nomeTabela) throws SQLException, IOException {
+        criarTabelaDetectada(cabecalhosFiltrados, nomeTabela,
+                () -> detectarTiposColunas(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados));
+    }
 
-        Map<String, String> columnTypes = detectarTiposColunas(linhas, cabecalhos, colunasExcluidas, separador);
+    private void criarTabelaDetectada(List<String> cabecalhosFiltrados, String nomeTabela,
+                                      CacheInferencia.Inferencia inferencia) throws SQLException, IOException {
+        List<String> colunasTabela = colunasComOrigem(cabecalhosFiltrados);
+        if (chaves != null) validarChaves(colunasTabela);
+        for (IndiceDeclarado indice : indices) {
+            for (String coluna : indice.colunas()) {
+                if (!colunasTabela.contains(coluna)) {
+                    throw new IllegalArgumentException("Coluna '" + coluna + "' do índice " + indice.nome() + " não está entre as colunas importadas");
+                }
+            }
+        }
+        Map<String, String> columnTypes = new HashMap<>(inferencia.inferir());
         columnTypes = aplicarTiposPersonalizados(columnTypes);
+        if (colunaOrigem != null) columnTypes.put(colunaOrigem, TIPO_COLUNA_ORIGEM);
+        if (hashConteudo) {
+            colunasTabela = new ArrayList<>(colunasTabela);
+            colunasTabela.add(DeltaConteudo.COLUNA_HASH);
+            columnTypes.put(DeltaConteudo.COLUNA_HASH, DeltaConteudo.TIPO_COLUNA_HASH);
+        }
 
         System.out.println("Colunas dedectadas: " + cabecalhosFiltrados.size());
         Map<String, String> finalColumnTypes = columnTypes;
-        cabecalhosFiltrados.forEach(col ->
+        colunasTabela.forEach(col ->
                 System.out.println("   - " + col + " : " + finalColumnTypes.get(col))
         );
 
-        criarTabela(nomeTabela, cabecalhosFiltrados, columnTypes);
-        inserirDados(linhas.subList(1, linhas.size()), cabecalhos, cabecalhosFiltrados, nomeTabela, separador);
+        criarTabela(nomeTabela, colunasTabela, columnTypes);
+    }
+
+    // a coluna de origem não vem do CSV: entra no fim da lista com o nome do arquivo como valor fixo
+    private List<String> colunasComOrigem(List<String> colunas) {
+        if (colunaOrigem == null) return colunas;
+        if (colunas.contains(colunaOrigem)) {
+            throw new IllegalArgumentException("O CSV já tem uma coluna '" + colunaOrigem + "'; escolha outro nome para a coluna de origem");
+        }
+        List<String> comOrigem = new ArrayList<>(colunas);
+        comOrigem.add(colunaOrigem);
+        return comOrigem;
     }
 
     private static Map<String, String> parseArgumentosTipos(String[] argumentos, int inicioTipos) {
@@ -118,68 +561,208 @@ public class CSVImporter implements AutoCloseable {
         importarCSV(caminhoCsv, nomeTabela, colunasExcluidas, null);
     }
 
+    /**
+     * Confere o CSV inteiro sem tocar no banco: os tipos são inferidos como para uma tabela nova, todos
+     * os valores de todas as colunas são conferidos em paralelo e as políticas de falha são aplicadas,
+     * com os rejeitados gravados como numa importação. Devolve quantos registros seriam importados.
+     */
+    public long validarCSV(String caminhoCsv, Set<String> colunasExcluidas) throws Exception {
+        try (TokenizadorCSV tokenizador = abrirArquivoCsv(caminhoCsv)) {
+            String[] cabecalhos = lerCabecalhosComSeparador(tokenizador);
+            List<String> cabecalhosFiltrados = filtrarCabecalhos(cabecalhos, colunasExcluidas);
+            Map<String, String> tipos = aplicarTiposPersonalizados(
+                    detectarTiposColunas(caminhoCsv, tokenizador, cabecalhos, cabecalhosFiltrados));
+            cabecalhosFiltrados.forEach(col -> System.out.println("   - " + col + " : " + tipos.get(col)));
+
+            PlanoImportacao plano = PlanoImportacao.compilar(cabecalhos, cabecalhosFiltrados, tipos);
+            aplicarPoliticasFalhas(plano);
+            plano.definirValidacaoCompleta();
+
+            FonteEntrada fonte = FonteEntrada.de(caminhoCsv);
+            int paralelismo = analisadores > 1 ? analisadores : Runtime.getRuntime().availableProcessors();
+            try (RegistroFalhas falhas = new RegistroFalhas(plano, cabecalhos, tokenizador.separador(), tokenizador.charset(),
+                    caminhoRejeitados(caminhoCsv));
+                 MetricasImportacao metricas = new MetricasImportacao(fonte.nome(), plano)) {
+                plano.definirRegistroFalhas(falhas);
+                metricas.iniciar(intervaloProgresso, null);
+                tokenizador.medir(metricas);
+
+                ControleLote controle = new ControleLote(tamanhoLote, false, 0, 0, metricas);
+                PipelineImportacao pipeline = new PipelineImportacao(paralelismo, paralelismo, profundidadeFila, controle, metricas);
+                PipelineImportacao.FabricaEscritor fabrica = () -> validadorLote(plano);
+                long validos;
+                if (fonte.arquivoLocal() != null) {
+                    LeituraMapeada leitura = new LeituraMapeada(fonte.arquivoLocal(), tokenizador.charset(), tokenizador.separador(),
+                            paralelismo, false, profundidadeFila, metricas);
+                    validos = pipeline.executar(leitura, tokenizador.offsetAtual(), tokenizador.linhaAtual(), fabrica);
+                } else {
+                    validos = pipeline.executar(tokenizador, tokenizador.separador(), fabrica);
+                }
+
+                long totalFalhas = 0;
+                for (int i = 0; i < plano.quantidadeColunas(); i++) {
+                    totalFalhas += plano.falhasConversao(i);
+                }
+                System.out.println("VALIDAÇÃO de " + fonte.nome() + ": " + validos + " registros seriam importados, "
+                        + falhas.rejeitados() + " rejeitados, " + totalFalhas + " valores que não convertem; nada foi gravado no banco");
+                return validos;
+            }
+        }
+    }
+
+    // na validação o escritor do pipeline só confere os registros, sem conexão
+    private static PipelineImportacao.EscritorLote validadorLote(PlanoImportacao plano) {
+        return new PipelineImportacao.EscritorLote() {
+            @Override
+            public int escrever(LoteRegistros lote) {
+                int validos = 0;
+                for (int r = 0; r < lote.tamanho(); r++) {
+                    lote.posicionar(r);
+                    if (plano.aceita(lote)) validos++;
+                }
+                return validos;
+            }
+
+            @Override
+            public void concluir() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
     public void adicionarDadosTabela(String caminhoCsv, String nomeTabela) throws Exception {
+        adicionarDadosTabela(caminhoCsv, nomeTabela, Collections.emptySet());
+    }
+
+    /** Anexa sem gravar as {@code colunasExcluidas}, mesmo quando a tabela tem colunas com esses nomes. */
+    public void adicionarDadosTabela(String caminhoCsv, String nomeTabela, Set<String> colunasExcluidas) throws Exception {
         if (!verificarTabelaExiste(nomeTabela)) {
             throw new IllegalArgumentException("Tabela " + nomeTabela + " não existe");
         }
+        registrosImportados = 0;
+
+        try (TokenizadorCSV tokenizador = abrirArquivoCsv(caminhoCsv)) {
+            char separador = detectarSeparador(tokenizador.espiarLinha());
+            tokenizador.definirSeparador(separador);
+            String[] cabecalhos = lerCabecalhos(tokenizador);
+            if (cabecalhos == null) throw new IllegalArgumentException("CSV file is empty");
+            List<String> cabecalhosFiltrados = Arrays.asList(cabecalhos).stream()
+                    .map(String::trim)
+                    .filter(h -> !h.isEmpty() && !colunasExcluidas.contains(h))
+
+                    .collect(Collectors.toList());
+
+            List<String> colunasTabela = obterColunasTabela(nomeTabela);
+            if (colunaOrigem != null && !colunasTabela.contains(colunaOrigem)) {
+                throw new IllegalArgumentException("Tabela " + nomeTabela + " não tem a coluna de origem '" + colunaOrigem + "'");
+            }
 
-        List<String> linhas = lerArquivoCsv(caminhoCsv);
-        if (linhas.isEmpty()) throw new IllegalArgumentException("CSV file is empty");
+            List<String> cabecalhosValidos = cabecalhosFiltrados.stream()
+                    .filter(colunasTabela::contains)
+                    .collect(Collectors.toList());
 
-        char separador = detectarSeparador(linhas.get(0));
-        String[] cabecalhos = parseCSVLinha(linhas.get(0), separador);
-        List<String> cabecalhosFiltrados = Arrays.asList(cabecalhos).stream()
-                .map(String::trim)
-                .filter(h -> !h.isEmpty())
+            if (cabecalhosValidos.isEmpty()) {
+                throw new IllegalArgumentException("Nenhuma coluna do CSV corresponde às colunas da tabela");
+            }
 
-                .collect(Collectors.toList());
+            DiarioImportacao diario = abrirDiario(caminhoCsv, nomeTabela);
+            if (retomarImportacao(diario, caminhoCsv, tokenizador.charset(), cabecalhos, cabecalhosValidos, nomeTabela, separador)) {
+                if (indicesNoFim) criarIndicesDeclarados(nomeTabela);
+                return;
+            }
+            if (diario != null) diario.iniciar(tokenizador.offsetAtual(), tokenizador.linhaAtual());
+            inserirDados(caminhoCsv, tokenizador, cabecalhos, cabecalhosValidos, nomeTabela, separador, diario);
+            if (indicesNoFim) criarIndicesDeclarados(nomeTabela);
+        }
+    }
 
-        List<String> colunasTabela = obterColunasTabela(nomeTabela);
+    private DiarioImportacao abrirDiario(String caminhoCsv, String nomeTabela) throws SQLException, IOException {
+        if (!gravarDiario) return null;
+        Path arquivo = FonteEntrada.de(caminhoCsv).arquivoDiario();
+        if (arquivo == null) {
+            System.out.println("⚠️  A entrada padrão não pode ser retomada, importando sem diário");
+            return null;
+        }
+        return DiarioImportacao.abrir(connection, nomeTabela, arquivo);
+    }
 
-        List<String> cabecalhosValidos = cabecalhosFiltrados.stream()
-                .filter(colunasTabela::contains)
-                .collect(Collectors.toList());
+    // true quando não há mais nada a fazer: a importação foi retomada até o fim ou já estava concluída
+    private boolean retomarImportacao(DiarioImportacao diario, String caminhoCsv, Charset charset, String[] cabecalhos,
+                                      List<String> colunas, String nomeTabela, char separador) throws SQLException, IOException {
+        if (!retomar || diario == null || !diario.existente()) return false;
 
-        if (cabecalhosValidos.isEmpty()) {
-            throw new IllegalArgumentException("Nenhuma coluna do CSV corresponde às colunas da tabela");
+        if (!diario.mesmoArquivo()) {
+            throw new IllegalStateException("O arquivo mudou desde a importação interrompida de '" + nomeTabela
+                    + "'; rode sem --resume para importar do zero");
+        }
+        if (diario.concluida()) {
+            System.out.println("Importação de '" + nomeTabela + "' já concluída (" + diario.registros() + " registros), nada a retomar");
+            return true;
+        }
+        if (!verificarTabelaExiste(nomeTabela)) {
+            throw new IllegalStateException("Tabela " + nomeTabela + " do diário não existe mais; rode sem --resume");
         }
 
-        inserirDados(linhas.subList(1, linhas.size()), cabecalhos, cabecalhosValidos, nomeTabela, separador);
+        System.out.println("Retomando '" + nomeTabela + "' após " + diario.registros() + " registros confirmados (linha "
+                + diario.linha() + ", byte " + diario.offset() + ")");
+        diario.retomar();
+        try (TokenizadorCSV restante = abrirArquivoCsv(caminhoCsv, charset, diario.offset(), diario.linha())) {
+            restante.definirSeparador(separador);
+            inserirDados(caminhoCsv, restante, cabecalhos, colunas, nomeTabela, separador, diario);
+        }
+        return true;
     }
 
     private boolean verificarTabelaExiste(String nomeTabela) throws SQLException {
-        try (ResultSet rs = connection.getMetaData().getTables(null, null, nomeTabela, null)) {
-            return rs.next();
-        }
+        return metadados.existe(nomeTabela, () -> {
+            try (ResultSet rs = connection.getMetaData().getTables(null, null, nomeTabela, null)) {
+                return rs.next();
+            }
+        });
     }
 
     private List<String> obterColunasTabela(String nomeTabela) throws SQLException {
-        List<String> colunas = new ArrayList<>();
-        try (ResultSet rs = connection.getMetaData().getColumns(null, null, nomeTabela, null)) {
-            while (rs.next()) {
-                String columnName = rs.getString("COLUMN_NAME");
-                if (!"id".equalsIgnoreCase(columnName)) {
-                    colunas.add(columnName);
+        return colunasTabela(nomeTabela).keySet().stream()
+                .filter(coluna -> !"id".equalsIgnoreCase(coluna))
+                .collect(Collectors.toList());
+    }
+
+    // uma consulta só serve para os nomes e os tipos das colunas
+    private Map<String, String> colunasTabela(String nomeTabela) throws SQLException {
+        return metadados.colunas(nomeTabela, () -> {
+            Map<String, String> tipos = new LinkedHashMap<>();
+            try (ResultSet rs = connection.getMetaData().getColumns(null, null, nomeTabela, null)) {
+                while (rs.next()) {
+                    tipos.put(rs.getString("COLUMN_NAME"), rs.getString("TYPE_NAME"));
                 }
             }
-        }
-        return colunas;
+            return tipos;
+        });
+    }
+
+    // o charset é decidido só pelo início da fonte, que segue lida sob demanda sem uma segunda passada
+    private TokenizadorCSV abrirArquivoCsv(String caminhoCsv) throws IOException {
+        FonteEntrada.Amostrada amostrada = FonteEntrada.de(caminhoCsv).abrirDetectando();
+        return new TokenizadorCSV(amostrada.dados, amostrada.charset, amostrada.bom, 1);
     }
 
-    private List<String> lerArquivoCsv(String caminhoCsv) throws IOException {
-        Charset[] charsets = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, Charset.forName("Windows-1252")};
+    private TokenizadorCSV abrirArquivoCsv(String caminhoCsv, Charset charset, long offset, long linha) throws IOException {
+        return new TokenizadorCSV(FonteEntrada.de(caminhoCsv).abrirEm(offset), charset, offset, linha);
+    }
 
-        for (Charset charset : charsets) {
-            try {
-                return Files.readAllLines(Paths.get(caminhoCsv), charset);
-            } catch (Exception e) {
-                continue;
-            }
+    private String[] lerCabecalhos(TokenizadorCSV tokenizador) throws IOException {
+        if (!tokenizador.proximo()) return null;
+        String[] cabecalhos = new String[tokenizador.quantidadeCampos()];
+        for (int i = 0; i < cabecalhos.length; i++) {
+            cabecalhos[i] = tokenizador.texto(i);
         }
-        throw new IOException("falha na leitura do CSV, charset nn suportado");
+        return cabecalhos;
     }
 
-    private char detectarSeparador(String primeiraLinha) {
+    static char detectarSeparador(String primeiraLinha) {
         Character[] separadores = {';', ',', '\t', '|'};
         return Arrays.stream(separadores)
                 .max(Comparator.comparingLong(sep ->
@@ -188,79 +771,40 @@ public class CSVImporter implements AutoCloseable {
                 .orElse(',');
     }
 
-    private String[] parseCSVLinha(String linha, char separador) {
-        List<String> result = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (int i = 0; i < linha.length(); i++) {
-            char c = linha.charAt(i);
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == separador && !inQuotes) {
-                result.add(current.toString().trim());
-                current.setLength(0);
-            } else {
-                current.append(c);
-            }
+    // arquivos com o mesmo cabeçalho e a mesma configuração de inferência compartilham o resultado; na
+    // inferência completa os tipos são exatos para o arquivo que os gerou e não servem para outro
+    private Map<String, String> detectarTiposColunas(String caminhoCsv, TokenizadorCSV tokenizador, String[] cabecalhos,
+                                                     List<String> colunas) throws IOException {
+        if (cacheInferencia == null || modoInferencia == ModoInferencia.COMPLETO) {
+            return inferirTiposColunas(caminhoCsv, tokenizador, cabecalhos, colunas);
         }
-        result.add(current.toString().trim());
-        return result.toArray(new String[0]);
-    }
-
-    private String[] parseCSVLinha(String line) {
-        return parseCSVLinha(line, ',');
-    }
-
-    private Map<String, String> detectarTiposColunas(List<String> linhas, String[] cabecalhos, Set<String> colunasExcluidas, char separador) {
-        Map<String, Set<String>> samples = Arrays.stream(cabecalhos)
-                .map(String::trim)
-                .filter(h -> !h.isEmpty() && !colunasExcluidas.contains(h))
-                .collect(Collectors.toMap(h -> h, h -> new HashSet<>()));
-
-        linhas.stream()
-                .skip(1)
-                .limit(SAMPLE_SIZE)
-                .forEach(line -> {
-                    String[] values = parseCSVLinha(line, separador);
-                    for (int i = 0; i < Math.min(values.length, cabecalhos.length); i++) {
-                        String header = cabecalhos[i].trim();
-                        if (samples.containsKey(header) && i < values.length && !values[i].trim().isEmpty()) {
-                            samples.get(header).add(values[i].trim());
-                        }
-                    }
-                });
-
-        return samples.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> determinarTiposDeDados(entry.getValue())
-                ));
+        String chave = String.join("\u0000", cabecalhos) + '\u0001' + String.join("\u0000", colunas)
+                + '\u0001' + modoInferencia + ':' + tamanhoAmostra;
+        return cacheInferencia.obter(chave, () -> inferirTiposColunas(caminhoCsv, tokenizador, cabecalhos, colunas));
     }
 
-    private String determinarTiposDeDados(Set<String> valores) {
-        if (valores.isEmpty()) return "TEXT";
+    private Map<String, String> inferirTiposColunas(String caminhoCsv, TokenizadorCSV tokenizador, String[] cabecalhos,
+                                                    List<String> colunas) throws IOException {
+        InferenciaTipos inferencia = new InferenciaTipos(cabecalhos, colunas, tokenizador.charset());
 
-        if (valores.stream().allMatch(v -> INTEGER_PATTERN.matcher(v).matches())) {
-            long maxValue = valores.stream().mapToLong(Long::parseLong).max().orElse(0);
-            return maxValue <= Integer.MAX_VALUE ? "INT" : "BIGINT";
+        boolean reabrivel = FonteEntrada.de(caminhoCsv).reabrivel();
+        if (modoInferencia != ModoInferencia.AMOSTRA && !reabrivel) {
+            System.out.println("⚠️  A entrada padrão não pode ser lida duas vezes, os tipos são inferidos pela amostra");
         }
-
-        if (valores.stream().allMatch(v -> DECIMAL_PATTERN.matcher(v).matches() || INTEGER_PATTERN.matcher(v).matches())) {
-            return "DECIMAL(15,4)";
-        }
-
-        if (valores.stream().allMatch(v -> DATE_PATTERN_BR.matcher(v).matches() || DATE_PATTERN_ISO.matcher(v).matches())) {
-            boolean hasTime = valores.stream().anyMatch(v -> v.contains(":"));
-            return hasTime ? "DATETIME" : "DATE";
+        if (modoInferencia == ModoInferencia.AMOSTRA || !reabrivel) {
+            // a amostra fica no buffer do tokenizador e é lida de novo na inserção
+            tokenizador.marcar();
+            Map<String, String> tipos = inferencia.inferir(tokenizador, ModoInferencia.AMOSTRA, tamanhoAmostra, 1);
+            tokenizador.voltarMarca();
+            return tipos;
         }
 
-        if (valores.stream().allMatch(v -> BOOLEAN_PATTERN.matcher(v).matches())) {
-            return "BOOLEAN";
+        // reservatório e completo leem o arquivo inteiro numa passada separada
+        try (TokenizadorCSV passada = abrirArquivoCsv(caminhoCsv, tokenizador.charset(), 0, 1)) {
+            passada.definirSeparador(tokenizador.separador());
+            lerCabecalhos(passada);
+            return inferencia.inferir(passada, modoInferencia, tamanhoAmostra, Runtime.getRuntime().availableProcessors());
         }
-
-        int maxLength = valores.stream().mapToInt(String::length).max().orElse(255);
-        return maxLength <= 255 ? "VARCHAR(255)" : "TEXT";
     }
 
     private void criarTabela(String nomeTabela, List<String> cabecalhos, Map<String, String> colunaTipos) throws SQLException {
@@ -279,6 +823,9 @@ public class CSVImporter implements AutoCloseable {
                     .map(h -> "`" + h + "` " + colunaTipos.get(h))
                     .collect(Collectors.joining(", ")));
         }
+        if (chaves != null) {
+            sql.append(", UNIQUE KEY `").append(INDICE_CHAVE).append("` (").append(listaColunas(chaves)).append(")");
+        }
         sql.append(")");
 
         System.out.println(" SQL gerado: " + sql.toString());
@@ -291,167 +838,618 @@ public class CSVImporter implements AutoCloseable {
             System.err.println("Erro ao criar tabela: " + e.getMessage());
             System.err.println("SQL: " + sql.toString());
             throw e;
+        } finally {
+            metadados.invalidar(nomeTabela);
         }
     }
 
-    private void inserirDados(List<String> dadosLinhas, String[] cabecalhosOriginais, List<String> cabecalhosFiltrados, String nomeTabela, char separador) throws SQLException {
+    // a sessão de carga fica no try só pelo close(), que restaura as variáveis sem esconder uma falha anterior
+    @SuppressWarnings("try")
+    private void inserirDados(String caminhoCsv, TokenizadorCSV registros, String[] cabecalhosOriginais, List<String> cabecalhosFiltrados, String nomeTabela, char separador,
+                              DiarioImportacao diario) throws SQLException, IOException {
         if (cabecalhosFiltrados.isEmpty()) {
             System.out.println("nenhuma coluna para inserir dados");
             return;
         }
-        Map<String, Integer> headerIndexMap = IntStream.range(0, cabecalhosOriginais.length)
-                .boxed()
-                .collect(Collectors.toMap(i -> cabecalhosOriginais[i].trim(), i -> i));
+        List<String> colunas = colunasComOrigem(cabecalhosFiltrados);
+        if (chaves != null) colunas = prepararMesclagem(nomeTabela, colunas);
+        Map<String, String> tiposColunas = obterTiposColunas(nomeTabela, colunas);
+        PlanoImportacao plano = PlanoImportacao.compilar(cabecalhosOriginais, colunas, tiposColunas);
+        String arquivo = FonteEntrada.de(caminhoCsv).nome();
+        if (colunaOrigem != null) plano.definirConstante(colunaOrigem, arquivo);
+        if (cacheValores) plano.definirCacheValores();
+
+        DeltaConteudo delta = null;
+        if (chaves != null) {
+            for (String chave : chaves) {
+                if (tipoTexto(tiposColunas.get(chave))) plano.definirVazioComoTexto(chave);
+            }
+            if (hashConteudo) {
+                delta = DeltaConteudo.carregar(connection, nomeTabela, plano);
+                plano.definirCalculada(DeltaConteudo.COLUNA_HASH, delta::hash);
+                plano.definirFiltro(delta::alterado);
+            }
+        }
+
+        aplicarPoliticasFalhas(plano);
+
+        try (RegistroFalhas falhas = new RegistroFalhas(plano, cabecalhosOriginais, separador, registros.charset(), caminhoRejeitados(caminhoCsv));
+             MetricasImportacao metricas = new MetricasImportacao(nomeTabela, plano);
+             SessaoCarga sessao = abrirSessaoCarga(connection)) {
+            plano.definirRegistroFalhas(falhas);
+            metricas.iniciar(intervaloProgresso, colunaOrigem != null ? arquivo : null);
+            registros.medir(metricas);
+            inserirDados(caminhoCsv, registros, colunas, nomeTabela, separador, diario, plano, metricas);
+            registrosImportados += metricas.getRegistros();
+            if (delta != null) {
+                System.out.println(delta.inalterados() + " registros sem alteração desde a última carga não foram enviados");
+            }
+        }
+    }
+
+    private void aplicarPoliticasFalhas(PlanoImportacao plano) {
+        Set<String> colunas = new HashSet<>();
+        for (int i = 0; i < plano.quantidadeColunas(); i++) {
+            String coluna = plano.coluna(i);
+            colunas.add(coluna);
+            PoliticaFalha politica = politicasColunas.getOrDefault(coluna, politicaFalhas);
+            if (plano.indice(i) >= 0 && politica != PoliticaFalha.TEXTO) {
+                plano.definirPolitica(coluna, politica, limitesColunas.getOrDefault(coluna, limiteFalhas));
+            }
+        }
+        for (String coluna : politicasColunas.keySet()) {
+            if (!colunas.contains(coluna)) {
+                throw new IllegalArgumentException("Coluna '" + coluna + "' da política de falhas não está entre as colunas importadas");
+            }
+        }
+    }
+
+    // "dados/vendas.csv.gz" vira "dados/vendas.rejeitados.csv"; da entrada padrão, "stdin.rejeitados.csv" no diretório atual
+    private Path caminhoRejeitados(String caminhoCsv) {
+        if (arquivoRejeitados != null && !Files.isDirectory(Paths.get(arquivoRejeitados))) {
+            return Paths.get(arquivoRejeitados);
+        }
+        String nome = FonteEntrada.de(caminhoCsv).nome()
+                .replaceFirst("(?i)\\.(gz|zip)$", "")
+                .replaceFirst("(?i)\\.csv$", "") + SUFIXO_REJEITADOS;
+        Path diretorio = arquivoRejeitados != null ? Paths.get(arquivoRejeitados)
+                : FonteEntrada.ENTRADA_PADRAO.equals(caminhoCsv) ? Paths.get("") : Paths.get(caminhoCsv).toAbsolutePath().getParent();
+        return diretorio.resolve(nome);
+    }
+
+    // um ALTER só para todos: o InnoDB monta cada índice ordenando as chaves uma vez, em vez de inserir linha a linha
+    void criarIndicesDeclarados(String nomeTabela) throws SQLException {
+        if (indices.isEmpty()) return;
+        Set<String> existentes = new HashSet<>();
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, nomeTabela, false, false)) {
+            while (rs.next()) {
+                existentes.add(rs.getString("INDEX_NAME"));
+            }
+        }
+        List<IndiceDeclarado> novos = indices.stream()
+                .filter(indice -> !existentes.contains(indice.nome()))
+                .collect(Collectors.toList());
+        if (novos.isEmpty()) return;
+
+        String sql = "ALTER TABLE `" + nomeTabela + "` " + novos.stream().map(IndiceDeclarado::clausula).collect(Collectors.joining(", "));
+        long inicio = System.currentTimeMillis();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            System.err.println("Erro ao criar índices: " + e.getMessage());
+            System.err.println("SQL: " + sql);
+            throw e;
+        }
+        System.out.println(" Índices criados em '" + nomeTabela + "' em " + (System.currentTimeMillis() - inicio) + "ms: " + novos);
+    }
+
+    private SessaoCarga abrirSessaoCarga(Connection conexao) throws SQLException {
+        return sessaoCarga ? SessaoCarga.preparar(conexao, chaves != null) : null;
+    }
 
-        Map<String, String> tiposColunas = obterTiposColunas(nomeTabela, cabecalhosFiltrados);
+    private void validarChaves(List<String> colunas) {
+        for (String chave : chaves) {
+            if (!colunas.contains(chave)) {
+                throw new IllegalArgumentException("Coluna de chave '" + chave + "' não está entre as colunas importadas");
+            }
+        }
+    }
+
+    // garante o índice único das chaves e, com hash, a coluna onde ele fica; a lista devolvida já inclui o hash
+    private List<String> prepararMesclagem(String nomeTabela, List<String> colunas) throws SQLException {
+        validarChaves(colunas);
+        Map<String, String> tiposChaves = obterTiposColunas(nomeTabela, chaves);
+        try (Statement stmt = connection.createStatement()) {
+            if (!possuiIndiceUnico(nomeTabela, chaves)) {
+                // NULL não colide no índice único, então as chaves de texto passam a usar '' como vazio
+                for (String chave : chaves) {
+                    if (tipoTexto(tiposChaves.get(chave))) {
+                        stmt.executeUpdate("UPDATE `" + nomeTabela + "` SET `" + chave + "` = '' WHERE `" + chave + "` IS NULL");
+                    }
+                }
+                stmt.execute("ALTER TABLE `" + nomeTabela + "` ADD UNIQUE KEY `" + INDICE_CHAVE + "` (" + listaColunas(chaves) + ")");
+                System.out.println(" Índice único criado em '" + nomeTabela + "' (" + String.join(", ", chaves) + ")");
+            }
+            if (hashConteudo && !obterColunasTabela(nomeTabela).contains(DeltaConteudo.COLUNA_HASH)) {
+                stmt.execute("ALTER TABLE `" + nomeTabela + "` ADD COLUMN `" + DeltaConteudo.COLUNA_HASH + "` "
+                        + DeltaConteudo.TIPO_COLUNA_HASH);
+                metadados.invalidar(nomeTabela);
+            }
+        }
+
+        if (!hashConteudo) return colunas;
+        List<String> comHash = new ArrayList<>(colunas);
+        comHash.add(DeltaConteudo.COLUNA_HASH);
+        return comHash;
+    }
 
+    private boolean possuiIndiceUnico(String nomeTabela, List<String> colunas) throws SQLException {
+        Map<String, Set<String>> indices = new HashMap<>();
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, nomeTabela, true, false)) {
+            while (rs.next()) {
+                String coluna = rs.getString("COLUMN_NAME");
+                if (coluna != null) indices.computeIfAbsent(rs.getString("INDEX_NAME"), i -> new HashSet<>()).add(coluna);
+            }
+        }
+        return indices.containsValue(new HashSet<>(colunas));
+    }
+
+    private static boolean tipoTexto(String tipoSql) {
+        String tipo = PlanoImportacao.tipoBase(tipoSql);
+        return tipo.contains("CHAR") || tipo.contains("TEXT");
+    }
+
+    private static String listaColunas(List<String> colunas) {
+        return colunas.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+    }
+
+    // as chaves ficam como estão; todo o resto recebe o valor novo
+    private String sufixoMesclagem(List<String> colunas) {
+        if (chaves == null) return "";
+        String atualizacoes = colunas.stream()
+                .filter(c -> !chaves.contains(c))
+                .map(c -> "`" + c + "` = VALUES(`" + c + "`)")
+                .collect(Collectors.joining(", "));
+        if (atualizacoes.isEmpty()) {
+            atualizacoes = "`" + chaves.get(0) + "` = `" + chaves.get(0) + "`";
+        }
+        return " ON DUPLICATE KEY UPDATE " + atualizacoes;
+    }
+
+    @SuppressWarnings("try")
+    private void inserirDados(String caminhoCsv, TokenizadorCSV registros, List<String> cabecalhosFiltrados, String nomeTabela, char separador,
+                              DiarioImportacao diario, PlanoImportacao plano, MetricasImportacao metricas) throws SQLException, IOException {
         String placeholders = String.join(", ", Collections.nCopies(cabecalhosFiltrados.size(), "?"));
         String columnNames = cabecalhosFiltrados.stream()
                 .map(h -> "`" + h + "`")
                 .collect(Collectors.joining(", "));
 
-        String sql = "INSERT INTO `" + nomeTabela + "` (" + columnNames + ") VALUES (" + placeholders + ")";
+        String sql = "INSERT INTO `" + nomeTabela + "` (" + columnNames + ") VALUES (" + placeholders + ")"
+                + sufixoMesclagem(cabecalhosFiltrados);
+        ControleLote controle = new ControleLote(tamanhoLote, loteAdaptativo, commitLinhas, commitMs, metricas);
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            int batchCount = 0;
-            int totalInseridos = 0;
+        Path arquivoMapeavel = FonteEntrada.de(caminhoCsv).arquivoLocal();
+        boolean mapeada = leituraMapeada && arquivoMapeavel != null;
+        if (leituraMapeada && arquivoMapeavel == null) {
+            System.out.println("⚠️  Só arquivos comuns, sem compressão, podem ser mapeados em memória; a leitura é em sequência");
+        }
 
-            for (String line : dadosLinhas) {
-                String[] values = parseCSVLinha(line, separador);
+        // o diário só acompanha os commits de um único escritor, na ordem do arquivo
+        boolean serial = diario != null || (escritores == 1 && analisadores == 1 && !mapeada);
+        if (diario != null && modoInsercao == ModoInsercao.LOAD_DATA) {
+            System.out.println("⚠️  LOAD DATA não confirma por lote, com o diário de importação a inserção é em lotes");
+        } else if (diario != null && !(escritores == 1 && analisadores == 1)) {
+            System.out.println("⚠️  Com o diário de importação a inserção é feita por um único escritor");
+        }
+        if (diario != null && mapeada) {
+            System.out.println("⚠️  Com o diário de importação o arquivo é lido em sequência, sem mapear em memória");
+        } else if (mapeada && modoInsercao == ModoInsercao.LOAD_DATA) {
+            System.out.println("⚠️  LOAD DATA envia o arquivo em sequência, a leitura mapeada só vale se ele for recusado");
+        }
 
-                for (int i = 0; i < cabecalhosFiltrados.size(); i++) {
-                    String header = cabecalhosFiltrados.get(i);
-                    Integer index = headerIndexMap.get(header);
-                    String value = (index != null && index < values.length) ? values[index].trim() : "";
+        if (modoInsercao == ModoInsercao.LOAD_DATA && chaves != null) {
+            System.out.println("⚠️  LOAD DATA não atualiza linhas existentes, a mesclagem é feita em lotes");
+        } else if (modoInsercao == ModoInsercao.LOAD_DATA && plano.trataFalhasNoCliente()) {
+            System.out.println("⚠️  LOAD DATA deixa a conversão com o servidor, com políticas de falha a inserção é em lotes");
+        }
 
-                    if (value.isEmpty()) {
-                        pstmt.setNull(i + 1, Types.NULL);
-                    } else {
-                        setParameterByType(pstmt, i + 1, value, tiposColunas.get(header));
-                    }
-                }
+        if (modoInsercao == ModoInsercao.LOAD_DATA && diario == null && chaves == null && !plano.trataFalhasNoCliente()) {
+            CarregadorLoadData carregador = new CarregadorLoadData(registros, plano);
+
+            try (Connection conexaoCarga = abrirConexaoLoadData();
+                 SessaoCarga sessao = abrirSessaoCarga(conexaoCarga)) {
+                long offsetInicial = registros.offsetAtual();
+                long inicio = System.nanoTime();
+                long totalInseridos = carregador.carregar(conexaoCarga, nomeTabela, cabecalhosFiltrados);
+                // leitura, parse e envio acontecem dentro da mesma instrução
+                metricas.fase(MetricasImportacao.Fase.EXECUCAO, System.nanoTime() - inicio, (int) Math.min(totalInseridos, Integer.MAX_VALUE));
+                metricas.gravados(totalInseridos, registros.offsetAtual() - offsetInicial);
+                System.out.println("Total de " + totalInseridos + " registros inseridos (LOAD DATA)");
+                return;
+            } catch (SQLException e) {
+                if (carregador.leituraIniciada()) throw e;
+                System.out.println("⚠️  LOAD DATA LOCAL INFILE recusado (" + e.getMessage() + "), usando inserção em lotes");
+            }
+        }
+
+        if (modoInsercao == ModoInsercao.MULTI_LINHAS && serial) {
+            inserirMultiLinhas(registros, cabecalhosFiltrados, nomeTabela, plano, controle, diario, metricas);
+            return;
+        }
+
+        if (!serial) {
+            PipelineImportacao pipeline = new PipelineImportacao(analisadores, escritores, profundidadeFila, controle, metricas);
+            PipelineImportacao.FabricaEscritor fabrica = () -> criarEscritorLote(sql, nomeTabela, cabecalhosFiltrados, plano, controle, metricas);
+            long totalInseridos;
+            if (mapeada) {
+                int paralelismo = analisadores > 1 ? analisadores : Runtime.getRuntime().availableProcessors();
+                LeituraMapeada leitura = new LeituraMapeada(arquivoMapeavel, registros.charset(), separador,
+                        paralelismo, leituraOrdenada, profundidadeFila, metricas);
+                // o tokenizador já passou do cabeçalho (e voltou da amostra): os dados começam no offset atual
+                totalInseridos = pipeline.executar(leitura, registros.offsetAtual(), registros.linhaAtual(), fabrica);
+            } else {
+                totalInseridos = pipeline.executar(registros, separador, fabrica);
+            }
+            System.out.println("Total de " + totalInseridos + " registros inseridos");
+            return;
+        }
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            ControleLote.Transacao transacao = controle.transacao(connection);
+            int batchCount = 0;
+            long totalInseridos = 0;
+            long offsetLote = registros.offsetAtual();
+            // parse e vinculação são acumulados por registro e registrados uma vez por lote
+            long parse = 0;
+            long vinculacao = 0;
+            long marcaTempo = System.nanoTime();
+
+            while (registros.proximo()) {
+                if (!plano.aceita(registros)) continue;
+                long analisado = System.nanoTime();
+                plano.vincular(pstmt, 0, registros);
 
                 pstmt.addBatch();
-                if (++batchCount % BATCH_SIZE == 0) {
+                long vinculado = System.nanoTime();
+                parse += analisado - marcaTempo;
+                vinculacao += vinculado - analisado;
+                marcaTempo = vinculado;
+
+                if (++batchCount >= controle.tamanho()) {
+                    metricas.fase(MetricasImportacao.Fase.PARSE, parse, batchCount);
+                    metricas.fase(MetricasImportacao.Fase.VINCULACAO, vinculacao, batchCount);
+                    parse = 0;
+                    vinculacao = 0;
+
+                    long bytesLote = registros.offsetAtual() - offsetLote;
+                    long inicio = System.nanoTime();
                     pstmt.executeBatch();
-                    connection.commit();
+                    long duracao = System.nanoTime() - inicio;
+                    metricas.fase(MetricasImportacao.Fase.EXECUCAO, duracao, batchCount);
+                    controle.registrar(batchCount, bytesLote, duracao);
+                    offsetLote = registros.offsetAtual();
                     totalInseridos += batchCount;
-                    System.out.println("Inserindos " + totalInseridos + " registross...");
+                    if (transacao.gravou(batchCount)) {
+                        if (diario != null) diario.registrar(registros.offsetAtual(), registros.linhaAtual(), totalInseridos);
+                        transacao.confirmar();
+                    }
+                    metricas.gravados(batchCount, bytesLote);
+                    metricas.avisarProgresso(totalInseridos);
                     batchCount = 0;
+                    marcaTempo = System.nanoTime();
                 }
             }
 
             if (batchCount > 0) {
+                metricas.fase(MetricasImportacao.Fase.PARSE, parse, batchCount);
+                metricas.fase(MetricasImportacao.Fase.VINCULACAO, vinculacao, batchCount);
+                long inicio = System.nanoTime();
                 pstmt.executeBatch();
-                connection.commit();
+                metricas.fase(MetricasImportacao.Fase.EXECUCAO, System.nanoTime() - inicio, batchCount);
+                metricas.gravados(batchCount, registros.offsetAtual() - offsetLote);
                 totalInseridos += batchCount;
             }
+            if (diario != null) diario.concluir(registros.offsetAtual(), registros.linhaAtual(), totalInseridos);
+            transacao.confirmar();
 
             connection.setAutoCommit(true);
             System.out.println("Total de " + totalInseridos + " registros inseridos");
         }
     }
 
-    private Map<String, String> obterTiposColunas(String nomeTabela, List<String> colunas) throws SQLException {
-        Map<String, String> tipos = new HashMap<>();
-        try (ResultSet rs = connection.getMetaData().getColumns(null, null, nomeTabela, null)) {
-            while (rs.next()) {
-                String columnName = rs.getString("COLUMN_NAME");
-                String dataType = rs.getString("TYPE_NAME");
-                if (colunas.contains(columnName)) {
-                    tipos.put(columnName, dataType);
+    private Connection abrirConexao() throws SQLException {
+        return pool != null ? pool.obter() : DriverManager.getConnection(jdbcUrl, usuario, senha);
+    }
+
+    // o Connector/J só aceita LOCAL INFILE com allowLoadLocalInfile, então a carga usa uma conexão própria
+    private Connection abrirConexaoLoadData() throws SQLException {
+        Properties propriedades = new Properties();
+        propriedades.setProperty("user", usuario);
+        propriedades.setProperty("password", senha);
+        propriedades.setProperty("allowLoadLocalInfile", "true");
+        return DriverManager.getConnection(jdbcUrl, propriedades);
+    }
+
+    private void inserirMultiLinhas(TokenizadorCSV registros, List<String> cabecalhosFiltrados, String nomeTabela,
+                                    PlanoImportacao plano, ControleLote controle, DiarioImportacao diario,
+                                    MetricasImportacao metricas) throws SQLException, IOException {
+        connection.setAutoCommit(false);
+        ControleLote.Transacao transacao = controle.transacao(connection);
+        long totalInseridos = 0;
+        long offsetContado = registros.offsetAtual();
+        long parse = 0;
+        int analisados = 0;
+
+        try (InsercaoMultiLinhas insercao = new InsercaoMultiLinhas(connection, nomeTabela, cabecalhosFiltrados,
+                sufixoMesclagem(cabecalhosFiltrados), Integer.MAX_VALUE, plano::vincular)) {
+            insercao.medir(metricas);
+            long marcaTempo = System.nanoTime();
+            while (registros.proximo()) {
+                if (!plano.aceita(registros)) continue;
+                parse += System.nanoTime() - marcaTempo;
+                analisados++;
+                int gravadas = insercao.adicionar(registros);
+                if (gravadas > 0) {
+                    metricas.fase(MetricasImportacao.Fase.PARSE, parse, analisados);
+                    parse = 0;
+                    analisados = 0;
+                    // o registro atual pode ter ficado pendente para o próximo INSERT
+                    boolean pendente = insercao.pendentes() > 0;
+                    long offsetGravado = pendente ? registros.offsetRegistro() : registros.offsetAtual();
+                    metricas.gravados(gravadas, offsetGravado - offsetContado);
+                    offsetContado = offsetGravado;
+                    totalInseridos += gravadas;
+                    if (transacao.gravou(gravadas)) {
+                        if (diario != null) {
+                            diario.registrar(offsetGravado, pendente ? registros.linha() : registros.linhaAtual(), totalInseridos);
+                        }
+                        transacao.confirmar();
+                    }
+                    metricas.avisarProgresso(totalInseridos);
                 }
+                marcaTempo = System.nanoTime();
             }
-        }
-        return tipos;
-    }
 
-    private void setParameterByType(PreparedStatement pstmt, int paramIndex, String value, String sqlType) throws SQLException {
-        if (value == null || value.isEmpty()) {
-            pstmt.setNull(paramIndex, Types.NULL);
-            return;
+            if (analisados > 0) metricas.fase(MetricasImportacao.Fase.PARSE, parse, analisados);
+            int restantes = insercao.descarregar();
+            metricas.gravados(restantes, registros.offsetAtual() - offsetContado);
+            totalInseridos += restantes;
+            if (diario != null) diario.concluir(registros.offsetAtual(), registros.linhaAtual(), totalInseridos);
+            transacao.confirmar();
+            System.out.println("Total de " + totalInseridos + " registros inseridos ("
+                    + insercao.linhasPorInstrucao() + " linhas por INSERT)");
+        } finally {
+            connection.setAutoCommit(true);
         }
+    }
 
+    // cada escritor do pipeline tem a sua própria conexão, a conexão principal fica só com o DDL
+    private PipelineImportacao.EscritorLote criarEscritorLote(String sql, String nomeTabela, List<String> cabecalhosFiltrados,
+                                                              PlanoImportacao plano, ControleLote controle,
+                                                              MetricasImportacao metricas) throws SQLException {
+        Connection conexao = abrirConexao();
         try {
-            switch (sqlType.toUpperCase()) {
-                case "DATE":
-                    if (DATE_PATTERN_BR.matcher(value).matches()) {
-                        String[] parts = value.split("/");
-                        String isoDate = parts[2] + "-" + parts[1] + "-" + parts[0];
-                        pstmt.setDate(paramIndex, Date.valueOf(isoDate));
-                    } else if (DATE_PATTERN_ISO.matcher(value).matches()) {
-                        pstmt.setDate(paramIndex, Date.valueOf(value.substring(0, 10)));
-                    } else {
-                        pstmt.setString(paramIndex, value);
-                    }
-                    break;
-                case "DATETIME":
-                case "TIMESTAMP":
-                    if (DATE_PATTERN_BR.matcher(value).matches()) {
-                        String[] parts = value.split("/");
-                        String isoDateTime = parts[2] + "-" + parts[1] + "-" + parts[0] + " 00:00:00";
-                        pstmt.setTimestamp(paramIndex, Timestamp.valueOf(isoDateTime));
-                    } else if (DATE_PATTERN_ISO.matcher(value).matches()) {
-                        if (value.contains(" ")) {
-                            pstmt.setTimestamp(paramIndex, Timestamp.valueOf(value));
-                        } else {
-                            pstmt.setTimestamp(paramIndex, Timestamp.valueOf(value + " 00:00:00"));
+            SessaoCarga sessao = abrirSessaoCarga(conexao);
+            conexao.setAutoCommit(false);
+            ControleLote.Transacao transacao = controle.transacao(conexao);
+            if (modoInsercao == ModoInsercao.MULTI_LINHAS) {
+                InsercaoMultiLinhas insercao = new InsercaoMultiLinhas(conexao, nomeTabela, cabecalhosFiltrados,
+                        sufixoMesclagem(cabecalhosFiltrados), Integer.MAX_VALUE, plano::vincular);
+                insercao.medir(metricas);
+                return new PipelineImportacao.EscritorLote() {
+                    @Override
+                    public int escrever(LoteRegistros lote) throws SQLException {
+                        int enviados = 0;
+                        for (int r = 0; r < lote.tamanho(); r++) {
+                            lote.posicionar(r);
+                            if (!plano.aceita(lote)) continue;
+                            insercao.adicionar(lote);
+                            enviados++;
                         }
-                    } else {
-                        pstmt.setString(paramIndex, value);
+                        insercao.descarregar();
+                        if (transacao.gravou(enviados)) transacao.confirmar();
+                        return enviados;
                     }
-                    break;
-                case "INT":
-                case "INTEGER":
-                    pstmt.setInt(paramIndex, Integer.parseInt(value));
-                    break;
-                case "BIGINT":
-                    pstmt.setLong(paramIndex, Long.parseLong(value));
-                    break;
-                case "DECIMAL":
-                case "NUMERIC":
-                case "DOUBLE":
-                case "FLOAT":
-                    pstmt.setBigDecimal(paramIndex, new java.math.BigDecimal(value));
-                    break;
-                case "BOOLEAN":
-                case "BOOL":
-                case "TINYINT":
-                    if (value.equalsIgnoreCase("true") || value.equals("1") ||
-                            value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("y")) {
-                        pstmt.setBoolean(paramIndex, true);
-                    } else if (value.equalsIgnoreCase("false") || value.equals("0") ||
-                            value.equalsIgnoreCase("no") || value.equalsIgnoreCase("n")) {
-                        pstmt.setBoolean(paramIndex, false);
-                    } else {
-                        pstmt.setString(paramIndex, value);
+
+                    @Override
+                    public void concluir() throws SQLException {
+                        transacao.confirmar();
+                    }
+
+                    @Override
+                    @SuppressWarnings("try")
+                    public void close() throws SQLException {
+                        // fecha o statement, restaura a sessão e fecha a conexão; um erro no caminho não esconde o anterior
+                        try (Connection fechar = conexao; SessaoCarga restaurar = sessao) {
+                            insercao.close();
+                        }
                     }
-                    break;
-                default:
-                    pstmt.setString(paramIndex, value);
-                    break;
+                };
             }
-        } catch (Exception e) {
-            System.err.println("⚠️ Erro ao converter valor '" + value + "' para tipo " + sqlType + ": " + e.getMessage());
-            pstmt.setString(paramIndex, value);
+
+            PreparedStatement pstmt = conexao.prepareStatement(sql);
+            return new PipelineImportacao.EscritorLote() {
+                @Override
+                public int escrever(LoteRegistros lote) throws SQLException {
+                    long inicioVinculacao = System.nanoTime();
+                    int enviados = 0;
+                    for (int r = 0; r < lote.tamanho(); r++) {
+                        lote.posicionar(r);
+                        if (!plano.aceita(lote)) continue;
+                        plano.vincular(pstmt, 0, lote);
+                        pstmt.addBatch();
+                        enviados++;
+                    }
+                    // o lote inteiro pode ter sido filtrado ou rejeitado; o controle só mede o que chegou ao servidor
+                    if (enviados == 0) return 0;
+                    long inicio = System.nanoTime();
+                    pstmt.executeBatch();
+                    long duracao = System.nanoTime() - inicio;
+                    metricas.fase(MetricasImportacao.Fase.VINCULACAO, inicio - inicioVinculacao, enviados);
+                    metricas.fase(MetricasImportacao.Fase.EXECUCAO, duracao, enviados);
+                    controle.registrar(enviados, lote.bytesCampos(), duracao);
+                    if (transacao.gravou(enviados)) transacao.confirmar();
+                    return enviados;
+                }
+
+                @Override
+                public void concluir() throws SQLException {
+                    transacao.confirmar();
+                }
+
+                @Override
+                @SuppressWarnings("try")
+                public void close() throws SQLException {
+                    try (Connection fechar = conexao; SessaoCarga restaurar = sessao) {
+                        pstmt.close();
+                    }
+                }
+            };
+        } catch (SQLException e) {
+            conexao.close();
+            throw e;
         }
     }
 
+    private Map<String, String> obterTiposColunas(String nomeTabela, List<String> colunas) throws SQLException {
+        Map<String, String> tipos = new HashMap<>();
+        colunasTabela(nomeTabela).forEach((coluna, tipo) -> {
+            if (colunas.contains(coluna)) {
+                tipos.put(coluna, tipo);
+            }
+        });
+        return tipos;
+    }
+
     @Override
     public void close() {
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
-                System.out.println("Conexão fechada com sucesso!");
+                if (pool == null) System.out.println("Conexão fechada com sucesso!");
             }
         } catch (SQLException e) {
             System.err.println("❌Falha ao fechar conexão: " + e.getMessage());
         }
     }
 
+    static String[] extrairOpcoes(String[] argumentos, Map<String, String> opcoes) {
+        List<String> restantes = new ArrayList<>();
+        for (String arg : argumentos) {
+            if (arg.startsWith("--")) {
+                String[] partes = arg.substring(2).split("=", 2);
+                opcoes.put(partes[0], partes.length == 2 ? partes[1] : "true");
+            } else {
+                restantes.add(arg);
+            }
+        }
+        return restantes.toArray(new String[0]);
+    }
+
+    static void aplicarOpcoes(CSVImporter importer, Map<String, String> opcoes) {
+        if (opcoes.containsKey("analisadores") || opcoes.containsKey("escritores") || opcoes.containsKey("fila")) {
+            importer.definirParalelismo(
+                    Integer.parseInt(opcoes.getOrDefault("analisadores", "1")),
+                    Integer.parseInt(opcoes.getOrDefault("escritores", "1")),
+                    Integer.parseInt(opcoes.getOrDefault("fila", "4")));
+        }
+        if (opcoes.containsKey("modo")) {
+            importer.definirModoInsercao(ModoInsercao.deOpcao(opcoes.get("modo")));
+        }
+        if (opcoes.containsKey("lote")) {
+            String lote = opcoes.get("lote");
+            boolean adaptativo = lote.startsWith("auto");
+            // --lote=auto, --lote=auto:5000 (tamanho inicial) ou --lote=5000 (fixo)
+            String tamanho = adaptativo ? (lote.contains(":") ? lote.substring(lote.indexOf(':') + 1) : String.valueOf(BATCH_SIZE)) : lote;
+            importer.definirLote(Integer.parseInt(tamanho), adaptativo);
+        }
+        if (opcoes.containsKey("commit-linhas") || opcoes.containsKey("commit-ms")) {
+            importer.definirIntervaloCommit(
+                    Integer.parseInt(opcoes.getOrDefault("commit-linhas", "0")),
+                    Long.parseLong(opcoes.getOrDefault("commit-ms", "0")));
+        }
+        if (opcoes.containsKey("diario") || opcoes.containsKey("resume")) {
+            importer.definirDiario(true, opcoes.containsKey("resume"));
+        }
+        if (opcoes.containsKey("mmap")) {
+            // --mmap ou --mmap=ordenada
+            importer.definirLeituraMapeada(true, "ordenada".equals(opcoes.get("mmap")));
+        }
+        if (opcoes.containsKey("chaves")) {
+            importer.definirMesclagem(Arrays.asList(opcoes.get("chaves").split("\\s*,\\s*")), opcoes.containsKey("hash-conteudo"));
+        }
+        if (opcoes.containsKey("sombra")) {
+            // --sombra ou --sombra=manter
+            importer.definirCargaSombra(true, "manter".equals(opcoes.get("sombra")));
+        }
+        if (opcoes.containsKey("validar-contagem")) {
+            String percentual = opcoes.get("validar-contagem");
+            importer.definirValidacaoContagem(true, "true".equals(percentual) ? 0 : Integer.parseInt(percentual));
+        }
+        if (opcoes.containsKey("indices")) {
+            for (String indice : opcoes.get("indices").split(";")) {
+                importer.definirIndice(Arrays.asList(indice.split(",")), false);
+            }
+        }
+        if (opcoes.containsKey("unicos")) {
+            for (String indice : opcoes.get("unicos").split(";")) {
+                importer.definirIndice(Arrays.asList(indice.split(",")), true);
+            }
+        }
+        if (opcoes.containsKey("sessao-carga")) {
+            importer.definirSessaoCarga(true);
+        }
+        if (opcoes.containsKey("falhas")) {
+            definirPoliticaFalhas(importer, null, opcoes.get("falhas"));
+        }
+        if (opcoes.containsKey("falhas-coluna")) {
+            // --falhas-coluna=estadual:nulo,vigenciainicio:abortar:10
+            for (String item : opcoes.get("falhas-coluna").split(",")) {
+                String[] partes = item.split(":", 2);
+                if (partes.length < 2) throw new IllegalArgumentException("Use coluna:politica em --falhas-coluna: " + item);
+                definirPoliticaFalhas(importer, partes[0].trim(), partes[1]);
+            }
+        }
+        if (opcoes.containsKey("rejeitados")) {
+            importer.definirArquivoRejeitados(opcoes.get("rejeitados"));
+        }
+        if (opcoes.containsKey("sem-cache-valores")) {
+            importer.definirCacheValores(false);
+        }
+        if (opcoes.containsKey("progresso")) {
+            importer.definirProgresso(Integer.parseInt(opcoes.get("progresso")));
+        }
+        if (opcoes.containsKey("inferencia") || opcoes.containsKey("amostra")) {
+            importer.definirInferencia(
+                    ModoInferencia.deOpcao(opcoes.getOrDefault("inferencia", "amostra")),
+                    Integer.parseInt(opcoes.getOrDefault("amostra", String.valueOf(SAMPLE_SIZE))));
+        }
+    }
+
+    // texto, nulo, rejeitar, abortar ou abortar:N
+    private static void definirPoliticaFalhas(CSVImporter importer, String coluna, String opcao) {
+        String[] partes = opcao.split(":", 2);
+        PoliticaFalha politica = PoliticaFalha.deOpcao(partes[0]);
+        importer.definirPoliticaFalhas(coluna, politica, partes.length == 2 ? Long.parseLong(partes[1].trim()) : 0);
+    }
+
     public static void main(String[] argumentos) throws Exception {
-        if (argumentos.length < 4) {
+        Map<String, String> opcoes = new HashMap<>();
+        argumentos = extrairOpcoes(argumentos, opcoes);
+
+        if (argumentos.length >= 5 && "-exportar".equals(argumentos[0])) {
+            exportar(argumentos, opcoes);
+            return;
+        }
+        if (argumentos.length >= 4 && "-vigiar".equals(argumentos[0])) {
+            vigiar(argumentos, opcoes);
+            return;
+        }
+
+        boolean validacao = opcoes.containsKey("dry-run");
+        int minimo = (argumentos.length > 0 && "-add".equals(argumentos[0]) ? 1 : 0) + (validacao ? 1 : 4);
+        if (argumentos.length < minimo) {
             System.out.println("ARGUMENTOS INSUFICIENTES OU INVÁLIDOS. USO:");
             System.out.println();
 
@@ -465,6 +1463,77 @@ public class CSVImporter implements AutoCloseable {
 
 
 
+            System.out.println("Para exportar uma tabela ou consulta (- como arquivo escreve na saída padrão, .gz compacta): ");
+            System.out.println("java -jar CSVImporter-1.0.jar -exportar <tabela|\"SELECT ...\"> <arquivo_csv.csv[.gz]> <jdbc_url> <usuario> [senha]");
+            System.out.println("  --separador=C     ; (padrão), vírgula, | ou tab");
+            System.out.println("  --datas=br|iso    formato das colunas DATE (padrão br, dd/MM/yyyy)");
+            System.out.println("  --partes=N        divide a tabela em N faixas da chave primária, exportadas em paralelo em N arquivos");
+            System.out.println();
+
+            System.out.println("Para ficar no ar importando os arquivos que chegam num diretório (concluídos e erros vão para subpastas): ");
+            System.out.println("java -jar CSVImporter-1.0.jar -vigiar [-add] <diretorio> <nome_tabela> <jdbc_url> <usuario> [senha]");
+            System.out.println("java -jar CSVImporter-1.0.jar -vigiar <mapeamentos.txt> <jdbc_url> <usuario> [senha]");
+            System.out.println("  cada linha de mapeamentos.txt: [-add] <diretorio> <nome_tabela> [colunas_p_ignorar...] [tipos...] [--opcoes...]");
+            System.out.println("  --espera-ms=T     tempo sem mudar de tamanho para um arquivo ser considerado completo (padrão 2000)");
+            System.out.println("  --concluidos=DIR  e --erros=DIR trocam as subpastas " + ImportacaoContinua.PASTA_CONCLUIDOS
+                    + " e " + ImportacaoContinua.PASTA_ERROS);
+            System.out.println();
+
+            System.out.println("OPÇÕES (em qualquer posição):");
+            System.out.println("  --analisadores=N  threads de parse (padrão 1)");
+            System.out.println("  --escritores=N    conexões gravando em paralelo (padrão 1)");
+            System.out.println("  --fila=N          lotes em espera entre as etapas (padrão 4)");
+            System.out.println("  --modo=lote|multi-linhas|load-data");
+            System.out.println("                    multi-linhas agrupa linhas em INSERT ... VALUES (...),(...) até o max_allowed_packet");
+            System.out.println("                    load-data usa LOAD DATA LOCAL INFILE (cai para lote se recusado)");
+            System.out.println("  --inferencia=amostra|reservatorio|completo");
+            System.out.println("                    amostra olha só os primeiros registros; reservatorio sorteia a amostra no arquivo todo;");
+            System.out.println("                    completo lê tudo em paralelo e gera os tipos mais estreitos (TINYINT, DECIMAL(p,s), VARCHAR(n))");
+            System.out.println("  --amostra=N       registros usados por amostra e reservatorio (padrão 1000)");
+            System.out.println("  --lote=auto[:N]|N tamanho do lote: auto ajusta pela latência do executeBatch a partir de N (padrão auto:1000);");
+            System.out.println("                    um número fixa o tamanho");
+            System.out.println("  --commit-linhas=N commit a cada N registros em vez de a cada lote");
+            System.out.println("  --commit-ms=T     commit a cada T milissegundos (o que vier primeiro com --commit-linhas)");
+            System.out.println("  --diario          grava o progresso de cada lote confirmado na tabela " + DiarioImportacao.TABELA);
+            System.out.println("  --resume          continua uma importação interrompida do mesmo arquivo a partir do último lote confirmado");
+            System.out.println("  --mmap[=ordenada] mapeia o arquivo em memória e faz o parse em paralelo por faixas (--analisadores threads,");
+            System.out.println("                    todos os núcleos por padrão); ordenada entrega os lotes na ordem do arquivo");
+            System.out.println("  --progresso=S     imprime a cada S segundos uma linha PROGRESSO {json} com registros, bytes, taxas e falhas de conversão");
+            System.out.println("  --chaves=C1,C2    mescla pelas colunas de chave (índice único + INSERT ... ON DUPLICATE KEY UPDATE)");
+            System.out.println("                    em vez de recriar a tabela; com -add, atualiza as linhas que já existem");
+            System.out.println("  --hash-conteudo   com --chaves, guarda um hash de cada linha e não envia as que não mudaram");
+            System.out.println("  --sombra[=manter] carrega em <tabela>_novo e troca com a atual num único RENAME TABLE no fim;");
+            System.out.println("                    manter guarda a versão anterior em <tabela>_antiga");
+            System.out.println("  --validar-contagem[=P]");
+            System.out.println("                    com --sombra, só troca se a contagem bater com os registros inseridos e,");
+            System.out.println("                    com P, se a tabela nova tiver pelo menos P% das linhas da atual");
+            System.out.println("  --indices=\"A;B,C\" índices criados depois da carga, separados por ; com colunas separadas por vírgula;");
+            System.out.println("                    uma coluna pode ter prefixo, como descricao(100)");
+            System.out.println("  --unicos=\"A,B\"    o mesmo, para chaves únicas");
+            System.out.println("  --sessao-carga    desliga unique_checks e foreign_key_checks durante a carga e restaura no fim");
+            System.out.println("  --falhas=texto|nulo|rejeitar|abortar[:N]");
+            System.out.println("                    valor que não converte: grava o texto (padrão), grava NULL, descarta o registro ou");
+            System.out.println("                    descarta e interrompe quando a coluna passa de N falhas (padrão 0)");
+            System.out.println("  --falhas-coluna=C:P,...");
+            System.out.println("                    a mesma política por coluna, como estadual:nulo,vigenciainicio:abortar:10");
+            System.out.println("  --rejeitados=ARQ  arquivo (ou diretório) dos registros rejeitados, com linha e motivo; padrão <csv>"
+                    + SUFIXO_REJEITADOS);
+            System.out.println("  --dry-run         só valida o CSV inteiro em paralelo, sem conectar no banco; basta o caminho do CSV,");
+            System.out.println("                    seguido ou não de tabela e conexão, e depois as colunas a ignorar e os tipos");
+            System.out.println("  --sem-cache-valores");
+            System.out.println("                    não reaproveita datas, decimais e textos já convertidos nas colunas que repetem poucos valores");
+            System.out.println("  --arquivos-paralelos=N");
+            System.out.println("                    com um diretório ou glob no lugar do CSV, quantos arquivos importar ao mesmo tempo (padrão 2)");
+            System.out.println("  --coluna-origem=NOME");
+            System.out.println("                    coluna com o nome do arquivo quando vários vão para a mesma tabela (padrão "
+                    + ImportacaoMultipla.COLUNA_ORIGEM_PADRAO + ", vazio para não criar)");
+            System.out.println();
+
+            System.out.println("VÁRIOS ARQUIVOS: passe um diretório ou um glob entre aspas no lugar do CSV; com "
+                    + ImportacaoMultipla.MARCADOR_ARQUIVO + " no nome da tabela cada arquivo vai para a sua");
+            System.out.println("java -jar CSVImporter-1.0.jar \"dados/vendas_*.csv\" vendas_{arquivo} <jdbc_url> <usuario> [senha]");
+            System.out.println();
+
             System.out.println("PARA IGNROAR A DETECÇÃO AUTOMATICA DE TIPOS E ATRIBUIR TIPOS PERSONALIZADOS use > coluna:TIPO");
             System.out.println();
             System.out.println("EXEMPLO COMPLETO:");
@@ -484,13 +1553,24 @@ public class CSVImporter implements AutoCloseable {
         boolean modoAdicionar = "-add".equals(argumentos[0]);
         int offset = modoAdicionar ? 1 : 0;
 
+        if (validacao) {
+            validarSemBanco(argumentos, offset, opcoes);
+            return;
+        }
+
         String arquivoCsv = argumentos[offset];
         String nomeTabela = argumentos[offset + 1];
         String jdbcUrl = argumentos[offset + 2];
         String usuario = argumentos[offset + 3];
         String senha = argumentos.length > offset + 4 ? argumentos[offset + 4] : "";
 
+        if (ImportacaoMultipla.ehMultipla(arquivoCsv)) {
+            importarVarios(argumentos, offset, opcoes, modoAdicionar, arquivoCsv, nomeTabela, jdbcUrl, usuario, senha);
+            return;
+        }
+
         try (CSVImporter importer = new CSVImporter(jdbcUrl, usuario, senha)) {
+            aplicarOpcoes(importer, opcoes);
             long start = System.currentTimeMillis();
 
             if (modoAdicionar) {
@@ -500,23 +1580,7 @@ public class CSVImporter implements AutoCloseable {
                 Set<String> colunasIgnorar = new HashSet<>();
                 Map<String, String> tiposPersonalizados = new HashMap<>();
 
-                if (argumentos.length > offset + 5) {
-                    for (int i = offset + 5; i < argumentos.length; i++) {
-                        String arg = argumentos[i];
-                        if (arg.contains(":")) {
-                            String[] partes = arg.split(":", 2);
-                            if (partes.length == 2) {
-                                String coluna = partes[0].trim();
-                                String tipo = partes[1].trim().toUpperCase();
-                                tiposPersonalizados.put(coluna, tipo);
-                                System.out.println("Tipo personalizado definido: " + coluna + " -> " + tipo);
-                            }
-                        } else {
-                            colunasIgnorar.add(arg);
-                            System.out.println("Coluna ignorada: " + arg);
-                        }
-                    }
-                }
+                separarColunasETipos(argumentos, offset + 5, colunasIgnorar, tiposPersonalizados);
 
                 importer.importarCSV(arquivoCsv, nomeTabela, colunasIgnorar, tiposPersonalizados);
                 System.out.println("A IMPORTAÇÃO FOI CONCLUÍDA!");
@@ -527,4 +1591,130 @@ public class CSVImporter implements AutoCloseable {
             System.err.println("❌ ERRO: " + e.getMessage());
             e.printStackTrace();
             throw e;
-    }}}
\ No newline at end of file
+    }}
+
+    // uma origem com espaço é uma consulta; sem, o nome de uma tabela
+    private static void exportar(String[] argumentos, Map<String, String> opcoes) throws Exception {
+        String origem = argumentos[1];
+        String destino = argumentos[2];
+        ExportacaoCSV exportacao = new ExportacaoCSV(argumentos[3], argumentos[4], argumentos.length > 5 ? argumentos[5] : "");
+        if (opcoes.containsKey("separador")) {
+            String separador = opcoes.get("separador");
+            exportacao.definirSeparador("tab".equalsIgnoreCase(separador) || "\\t".equals(separador) ? '\t' : separador.charAt(0));
+        }
+        if (opcoes.containsKey("datas")) {
+            exportacao.definirDatasIso("iso".equalsIgnoreCase(opcoes.get("datas")));
+        }
+        if (opcoes.containsKey("partes")) {
+            exportacao.definirPartes(Integer.parseInt(opcoes.get("partes")));
+        }
+
+        if (origem.trim().contains(" ")) {
+            exportacao.exportarConsulta(origem, destino);
+        } else {
+            exportacao.exportarTabela(origem, destino);
+        }
+    }
+
+    // um diretório é uma caixa só, com a tabela em seguida; um arquivo traz as caixas, uma por linha
+    private static void vigiar(String[] argumentos, Map<String, String> opcoes) throws Exception {
+        int offset = "-add".equals(argumentos[1]) ? 2 : 1;
+        List<ImportacaoContinua.CaixaEntrada> caixas;
+        int conexao;
+        if (Files.isDirectory(Paths.get(argumentos[offset]))) {
+            if (argumentos.length < offset + 4) {
+                throw new IllegalArgumentException("Use -vigiar [-add] <diretorio> <nome_tabela> <jdbc_url> <usuario> [senha]");
+            }
+            List<String> caixa = new ArrayList<>(Arrays.asList(argumentos).subList(1, offset + 2));
+            if (argumentos.length > offset + 5) caixa.addAll(Arrays.asList(argumentos).subList(offset + 5, argumentos.length));
+            caixas = Collections.singletonList(ImportacaoContinua.caixaDeArgumentos(caixa.toArray(new String[0]), Paths.get(""), opcoes));
+            conexao = offset + 2;
+        } else {
+            caixas = ImportacaoContinua.lerMapeamentos(Paths.get(argumentos[1]), opcoes);
+            conexao = 2;
+        }
+
+        // o pool comporta a caixa que usa mais conexões por arquivo, para nenhum arquivo esperar a conexão de outro
+        int conexoesPorArquivo = caixas.stream().mapToInt(ImportacaoContinua.CaixaEntrada::conexoes).max().orElse(1);
+        ImportacaoContinua importacao = new ImportacaoContinua(argumentos[conexao], argumentos[conexao + 1],
+                argumentos.length > conexao + 2 ? argumentos[conexao + 2] : "",
+                Integer.parseInt(opcoes.getOrDefault("arquivos-paralelos", "2")), conexoesPorArquivo);
+        if (opcoes.containsKey("espera-ms")) importacao.definirEspera(Long.parseLong(opcoes.get("espera-ms")));
+        caixas.forEach(importacao::adicionar);
+        Runtime.getRuntime().addShutdownHook(new Thread(importacao::parar));
+        importacao.executar();
+    }
+
+    // com vários arquivos, cada um tem o seu arquivo de rejeitados; as colunas e os tipos vêm logo depois do CSV,
+    // ou depois da conexão quando o --dry-run foi acrescentado a uma linha de importação completa
+    private static void validarSemBanco(String[] argumentos, int offset, Map<String, String> opcoes) throws Exception {
+        String origem = argumentos[offset];
+        Set<String> colunasIgnorar = new HashSet<>();
+        Map<String, String> tiposPersonalizados = new HashMap<>();
+        boolean comConexao = argumentos.length > offset + 3 && argumentos[offset + 2].startsWith("jdbc:");
+        separarColunasETipos(argumentos, offset + (comConexao ? 5 : 1), colunasIgnorar, tiposPersonalizados);
+
+        List<String> arquivos = new ArrayList<>();
+        if (ImportacaoMultipla.ehMultipla(origem)) {
+            ImportacaoMultipla.listarArquivos(origem).forEach(arquivo -> arquivos.add(arquivo.toString()));
+        } else {
+            arquivos.add(origem);
+        }
+
+        long start = System.currentTimeMillis();
+        for (String arquivo : arquivos) {
+            try (CSVImporter importer = paraValidacao()) {
+                aplicarOpcoes(importer, opcoes);
+                if (arquivos.size() > 1 && ImportacaoMultipla.rejeitadosPorArquivo(importer) && arquivo.equals(arquivos.get(0))) {
+                    System.out.println(ImportacaoMultipla.AVISO_REJEITADOS);
+                }
+                importer.definirTiposPersonalizados(tiposPersonalizados);
+                importer.validarCSV(arquivo, colunasIgnorar);
+            }
+        }
+        System.out.println("TEMPO: " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    static void separarColunasETipos(String[] argumentos, int inicio, Set<String> colunasIgnorar,
+                                             Map<String, String> tiposPersonalizados) {
+        for (int i = inicio; i < argumentos.length; i++) {
+            String arg = argumentos[i];
+            if (arg.contains(":")) {
+                String[] partes = arg.split(":", 2);
+                if (partes.length == 2) {
+                    String coluna = partes[0].trim();
+                    String tipo = partes[1].trim().toUpperCase(Locale.ROOT);
+                    tiposPersonalizados.put(coluna, tipo);
+                    System.out.println("Tipo personalizado definido: " + coluna + " -> " + tipo);
+                }
+            } else {
+                colunasIgnorar.add(arg);
+                System.out.println("Coluna ignorada: " + arg);
+            }
+        }
+    }
+
+    // cada arquivo usa a conexão principal mais uma por escritor, todas tiradas do mesmo pool
+    private static void importarVarios(String[] argumentos, int offset, Map<String, String> opcoes, boolean modoAdicionar,
+                                       String origem, String nomeTabela, String jdbcUrl, String usuario, String senha) throws Exception {
+        Set<String> colunasIgnorar = new HashSet<>();
+        Map<String, String> tiposPersonalizados = new HashMap<>();
+        if (!modoAdicionar) separarColunasETipos(argumentos, offset + 5, colunasIgnorar, tiposPersonalizados);
+
+        ImportacaoMultipla importacao = new ImportacaoMultipla(jdbcUrl, usuario, senha,
+                Integer.parseInt(opcoes.getOrDefault("arquivos-paralelos", "2")),
+                Integer.parseInt(opcoes.getOrDefault("escritores", "1")) + 1);
+        importacao.definirConfiguracao(importer -> aplicarOpcoes(importer, opcoes));
+        if (opcoes.containsKey("coluna-origem")) importacao.definirColunaOrigem(opcoes.get("coluna-origem"));
+
+        long start = System.currentTimeMillis();
+        try {
+            importacao.importar(origem, nomeTabela, colunasIgnorar, tiposPersonalizados, modoAdicionar);
+            System.out.println(modoAdicionar ? "DADOSS ADICIONANDOS COM SUCESSO!" : "A IMPORTAÇÃO FOI CONCLUÍDA!");
+            System.out.println("TEMPO: " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("❌ ERRO: " + e.getMessage());
+            throw e;
+        }
+    }
+}
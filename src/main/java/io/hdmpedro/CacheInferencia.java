@@ -0,0 +1,49 @@
+package io.hdmpedro;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tipos inferidos por cabeçalho, compartilhados entre importações. O primeiro arquivo com um
+ * cabeçalho faz a inferência; os outros que chegarem com o mesmo cabeçalho (e a mesma configuração
+ * de inferência) esperam por ela e reaproveitam o resultado em vez de ler a sua amostra.
+ */
+final class CacheInferencia {
+
+    interface Inferencia {
+        Map<String, String> inferir() throws IOException;
+    }
+
+    private final ConcurrentMap<String, CompletableFuture<Map<String, String>>> tipos = new ConcurrentHashMap<>();
+
+    Map<String, String> obter(String chave, Inferencia inferencia) throws IOException {
+        CompletableFuture<Map<String, String>> nova = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> existente = tipos.putIfAbsent(chave, nova);
+
+        if (existente == null) {
+            try {
+                Map<String, String> inferidos = Collections.unmodifiableMap(inferencia.inferir());
+                nova.complete(inferidos);
+                return inferidos;
+            } catch (IOException | RuntimeException e) {
+                // quem estava esperando tenta por conta própria
+                tipos.remove(chave, nova);
+                nova.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            Map<String, String> inferidos = existente.join();
+            System.out.println("Tipos reaproveitados de outro arquivo com o mesmo cabeçalho");
+            return inferidos;
+        } catch (CompletionException e) {
+            return obter(chave, inferencia);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.hdmpedro;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Existência e colunas (nome e tipo, na ordem da tabela) das tabelas de destino, guardadas entre
+ * importações que dividem a mesma instância, como as da {@link ImportacaoContinua}. Cada
+ * {@code getTables}/{@code getColumns} do Connector/J é uma consulta ao {@code information_schema};
+ * com o cache, um arquivo pequeno que vai para uma tabela já vista não faz nenhuma.
+ *
+ * <p>O importador invalida a tabela a cada DDL que roda nela. Mudanças feitas por fora não são
+ * vistas: quem usa o cache invalida a tabela quando uma importação nela falha.
+ */
+final class CacheMetadados {
+
+    interface Consulta<T> {
+        T executar() throws SQLException;
+    }
+
+    private final boolean ativo;
+    private final ConcurrentMap<String, Boolean> existentes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<String, String>> colunas = new ConcurrentHashMap<>();
+
+    CacheMetadados() {
+        this(true);
+    }
+
+    private CacheMetadados(boolean ativo) {
+        this.ativo = ativo;
+    }
+
+    /** Sempre consulta o banco; é o que cada importador usa até receber um cache compartilhado. */
+    static CacheMetadados desligado() {
+        return new CacheMetadados(false);
+    }
+
+    // duas threads que chegam juntas à mesma tabela consultam as duas, e a segunda só sobrescreve o mesmo valor
+    boolean existe(String tabela, Consulta<Boolean> consulta) throws SQLException {
+        if (!ativo) return consulta.executar();
+        Boolean existe = existentes.get(tabela);
+        if (existe == null) {
+            existe = consulta.executar();
+            existentes.put(tabela, existe);
+        }
+        return existe;
+    }
+
+    /** Colunas da tabela, do nome para o {@code TYPE_NAME}, na ordem da tabela; o mapa não pode ser alterado. */
+    Map<String, String> colunas(String tabela, Consulta<Map<String, String>> consulta) throws SQLException {
+        if (!ativo) return Collections.unmodifiableMap(consulta.executar());
+        Map<String, String> tipos = colunas.get(tabela);
+        if (tipos == null) {
+            tipos = Collections.unmodifiableMap(consulta.executar());
+            colunas.put(tabela, tipos);
+        }
+        return tipos;
+    }
+
+    void invalidar(String... tabelas) {
+        for (String tabela : tabelas) {
+            existentes.remove(tabela);
+            colunas.remove(tabela);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.hdmpedro;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache limitado, por coluna, do texto cru do campo para o valor já convertido ({@code Date},
+ * {@code Timestamp}, {@code BigDecimal}, {@code String}). Colunas como vigência, versão ou alíquota
+ * repetem poucos valores em todas as linhas, e sem o cache cada célula vira um objeto novo.
+ *
+ * <p>A coluna começa observando: os primeiros {@value #AMOSTRA} valores só contam quantos são
+ * distintos. Até {@value #CARDINALIDADE_MAXIMA} o cache liga; acima disso a coluna segue sem ele,
+ * com um único teste por célula. Ligado, são {@value #CAPACIDADE} entradas em conjuntos de duas;
+ * cada acerto soma na frequência da entrada e cada falta desconta da menos usada do conjunto, que
+ * só é substituída quando chega a zero. Um valor raro não expulsa os frequentes.
+ */
+final class CacheValores implements PlanoImportacao.Vinculador {
+    static final int CAPACIDADE = 512;
+    static final int CARDINALIDADE_MAXIMA = 256;
+    private static final int AMOSTRA = 4096;
+    private static final int TAMANHO_MAXIMO_CHAVE = 64;
+    private static final int FREQUENCIA_MAXIMA = 15;
+
+    private static final int OBSERVANDO = 0;
+    private static final int LIGADO = 1;
+    private static final int DESLIGADO = 2;
+
+    /** Conversão sem efeitos colaterais; {@code null} quando o valor não tem o formato do tipo. */
+    interface Conversor {
+        Object converter(RegistroCSV registro, int campo);
+    }
+
+    interface Atribuidor {
+        void atribuir(PreparedStatement pstmt, int parametro, Object valor) throws SQLException;
+    }
+
+    private final Conversor conversor;
+    private final Atribuidor atribuidor;
+    private final PlanoImportacao.Vinculador original;
+
+    private volatile int estado = OBSERVANDO;
+    private Set<Long> distintos = new HashSet<>();
+    private int observados;
+
+    // as entradas são imutáveis, exceto a frequência, que é aproximada: corridas entre escritores só a deixam imprecisa
+    private final Entrada[] entradas = new Entrada[CAPACIDADE];
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+
+    CacheValores(Conversor conversor, Atribuidor atribuidor, PlanoImportacao.Vinculador original) {
+        this.conversor = conversor;
+        this.atribuidor = atribuidor;
+        this.original = original;
+    }
+
+    @Override
+    public boolean vincular(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        int estadoAtual = estado;
+        if (estadoAtual == DESLIGADO || registro.escapado(campo)
+                || registro.fim(campo) - registro.inicio(campo) > TAMANHO_MAXIMO_CHAVE) {
+            return original.vincular(pstmt, parametro, registro, campo);
+        }
+
+        long hash = hash(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (estadoAtual == OBSERVANDO) {
+            observar(hash);
+            return original.vincular(pstmt, parametro, registro, campo);
+        }
+
+        Object valor = buscar(hash, registro, campo);
+        if (valor == null) {
+            return original.vincular(pstmt, parametro, registro, campo);
+        }
+        atribuidor.atribuir(pstmt, parametro, valor);
+        return true;
+    }
+
+    private synchronized void observar(long hash) {
+        if (estado != OBSERVANDO) return;
+        distintos.add(hash);
+        if (distintos.size() > CARDINALIDADE_MAXIMA) {
+            distintos = null;
+            estado = DESLIGADO;
+        } else if (++observados >= AMOSTRA) {
+            distintos = null;
+            estado = LIGADO;
+        }
+    }
+
+    private Object buscar(long hash, RegistroCSV registro, int campo) {
+        byte[] bytes = registro.bytes();
+        int inicio = registro.inicio(campo);
+        int fim = registro.fim(campo);
+
+        int primeira = (int) hash & (CAPACIDADE - 2);
+        Entrada a = entradas[primeira];
+        Entrada b = entradas[primeira + 1];
+        if (a != null && a.igual(hash, bytes, inicio, fim)) return a.acerto(acertos);
+        if (b != null && b.igual(hash, bytes, inicio, fim)) return b.acerto(acertos);
+
+        faltas.increment();
+        Object valor = conversor.converter(registro, campo);
+        if (valor == null) return null;
+
+        int vitima = a == null ? primeira
+                : b == null ? primeira + 1
+                : a.frequencia <= b.frequencia ? primeira : primeira + 1;
+        Entrada atual = entradas[vitima];
+        if (atual == null || --atual.frequencia <= 0) {
+            entradas[vitima] = new Entrada(hash, Arrays.copyOfRange(bytes, inicio, fim), valor);
+        }
+        return valor;
+    }
+
+    /** Ligado depois da observação; antes disso e nas colunas de muitos valores, falso. */
+    boolean ligado() {
+        return estado == LIGADO;
+    }
+
+    long acertos() {
+        return acertos.sum();
+    }
+
+    long faltas() {
+        return faltas.sum();
+    }
+
+    private static long hash(byte[] bytes, int inicio, int fim) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = inicio; i < fim; i++) {
+            h = (h ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Entrada {
+        final long hash;
+        final byte[] chave;
+        final Object valor;
+        int frequencia = 1;
+
+        Entrada(long hash, byte[] chave, Object valor) {
+            this.hash = hash;
+            this.chave = chave;
+            this.valor = valor;
+        }
+
+        boolean igual(long outro, byte[] bytes, int inicio, int fim) {
+            return hash == outro && Arrays.equals(chave, 0, chave.length, bytes, inicio, fim);
+        }
+
+        Object acerto(LongAdder acertos) {
+            acertos.increment();
+            if (frequencia < FREQUENCIA_MAXIMA) frequencia++;
+            return valor;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package io.hdmpedro;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Carga via {@code LOAD DATA LOCAL INFILE}: os registros do CSV são convertidos sob demanda em TSV
+ * (datas BR para ISO, booleanos para 0/1, vazio para \N) e entregues ao Connector/J pelo
+ * {@link JdbcStatement#setLocalInfileInputStream}, sem arquivo temporário. Os bytes dos campos
+ * seguem no charset original do arquivo, que é informado no {@code CHARACTER SET} da instrução.
+ */
+class CarregadorLoadData {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private static final int TEXTO = 0;
+    private static final int DATA = 1;
+    private static final int BOOLEANO = 2;
+
+    private final TokenizadorCSV registros;
+    private final int[] indices;
+    private final int[] conversoes;
+    private final byte[][] constantes;
+    private boolean leituraIniciada;
+    private long linhasEnviadas;
+
+    CarregadorLoadData(TokenizadorCSV registros, PlanoImportacao plano) {
+        this.registros = registros;
+        this.indices = new int[plano.quantidadeColunas()];
+        this.conversoes = new int[plano.quantidadeColunas()];
+        this.constantes = new byte[plano.quantidadeColunas()][];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = plano.indice(i);
+            conversoes[i] = conversao(plano.tipo(i));
+            // a constante vai no mesmo charset dos campos, declarado no CHARACTER SET
+            String constante = plano.constante(i);
+            if (constante != null) constantes[i] = constante.getBytes(registros.charset());
+        }
+    }
+
+    private static int conversao(String tipoSql) {
+        switch (PlanoImportacao.tipoBase(tipoSql)) {
+            case "DATE":
+            case "DATETIME":
+            case "TIMESTAMP":
+                return DATA;
+            case "BOOLEAN":
+            case "BOOL":
+            case "BIT":
+            case "TINYINT":
+                return BOOLEANO;
+            default:
+                return TEXTO;
+        }
+    }
+
+    /**
+     * Se o servidor ou o driver recusarem o LOCAL INFILE antes de pedir os dados, nenhum registro foi
+     * consumido e o chamador pode continuar pelo caminho de lotes com o mesmo tokenizador.
+     */
+    boolean leituraIniciada() {
+        return leituraIniciada;
+    }
+
+    long carregar(Connection conexao, String nomeTabela, List<String> colunas) throws SQLException {
+        String sql = "LOAD DATA LOCAL INFILE 'csvimporter.tsv' INTO TABLE `" + nomeTabela + "` CHARACTER SET "
+                + charsetMySql(registros.charset()) + " ("
+                + colunas.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", ")) + ")";
+
+        try (Statement stmt = conexao.createStatement()) {
+            if (!stmt.isWrapperFor(JdbcStatement.class)) {
+                throw new SQLException("Driver não suporta LOAD DATA LOCAL INFILE por stream");
+            }
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(new FluxoTsv());
+            stmt.executeUpdate(sql);
+        }
+        return linhasEnviadas;
+    }
+
+    // o latin1 do MySQL é na verdade o cp1252, então cobre os dois charsets de 8 bits
+    private static String charsetMySql(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) ? "utf8mb4" : "latin1";
+    }
+
+    private class FluxoTsv extends InputStream {
+        private byte[] buffer = new byte[TAMANHO_BUFFER + 1024];
+        private int tamanho;
+        private int posicao;
+
+        @Override
+        public int read() throws IOException {
+            if (!preencher()) return -1;
+            return buffer[posicao++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int quantidade) throws IOException {
+            if (quantidade == 0) return 0;
+            if (!preencher()) return -1;
+            int n = Math.min(quantidade, tamanho - posicao);
+            System.arraycopy(buffer, posicao, destino, inicio, n);
+            posicao += n;
+            return n;
+        }
+
+        private boolean preencher() throws IOException {
+            leituraIniciada = true;
+            if (posicao < tamanho) return true;
+
+            tamanho = 0;
+            posicao = 0;
+            while (tamanho < TAMANHO_BUFFER && registros.proximo()) {
+                escreverRegistro(registros);
+                linhasEnviadas++;
+            }
+            return tamanho > 0;
+        }
+
+        private void escreverRegistro(RegistroCSV registro) {
+            byte[] origem = registro.bytes();
+            for (int i = 0; i < indices.length; i++) {
+                if (i > 0) escrever((byte) '\t');
+                int indice = indices[i];
+                if (indice < 0 && constantes[i] != null) {
+                    escapar(constantes[i], 0, constantes[i].length, false);
+                } else if (indice < 0 || registro.vazio(indice)) {
+                    escrever((byte) '\\');
+                    escrever((byte) 'N');
+                } else {
+                    escreverValor(origem, registro.inicio(indice), registro.fim(indice), registro.escapado(indice), conversoes[i]);
+                }
+            }
+            escrever((byte) '\n');
+        }
+
+        private void escreverValor(byte[] origem, int inicio, int fim, boolean escapado, int conversao) {
+            if (conversao == DATA && ConversorBytes.dataBr(origem, inicio, fim) >= 0) {
+                escrever(origem, inicio + 6, inicio + 10);
+                escrever((byte) '-');
+                escrever(origem, inicio + 3, inicio + 5);
+                escrever((byte) '-');
+                escrever(origem, inicio, inicio + 2);
+                return;
+            }
+            if (conversao == BOOLEANO) {
+                int valor = ConversorBytes.booleano(origem, inicio, fim);
+                if (valor >= 0) {
+                    escrever((byte) ('0' + valor));
+                    return;
+                }
+            }
+            escapar(origem, inicio, fim, escapado);
+        }
+
+        // escapes padrão do LOAD DATA (ESCAPED BY '\\'); "" vira uma aspa só
+        private void escapar(byte[] origem, int inicio, int fim, boolean escapado) {
+            for (int i = inicio; i < fim; i++) {
+                byte b = origem[i];
+                switch (b) {
+                    case '\\': escrever((byte) '\\'); escrever((byte) '\\'); break;
+                    case '\t': escrever((byte) '\\'); escrever((byte) 't'); break;
+                    case '\n': escrever((byte) '\\'); escrever((byte) 'n'); break;
+                    case '\r': escrever((byte) '\\'); escrever((byte) 'r'); break;
+                    case 0: escrever((byte) '\\'); escrever((byte) '0'); break;
+                    case '"':
+                        escrever(b);
+                        if (escapado && i + 1 < fim && origem[i + 1] == '"') i++;
+                        break;
+                    default: escrever(b);
+                }
+            }
+        }
+
+        private void escrever(byte b) {
+            if (tamanho == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            buffer[tamanho++] = b;
+        }
+
+        private void escrever(byte[] origem, int inicio, int fim) {
+            int n = fim - inicio;
+            if (tamanho + n > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, tamanho + n));
+            System.arraycopy(origem, inicio, buffer, tamanho, n);
+            tamanho += n;
+        }
+    }
+}
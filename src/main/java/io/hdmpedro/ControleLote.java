@@ -0,0 +1,95 @@
+package io.hdmpedro;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tamanho do lote e intervalo de commit de uma importação. No modo adaptativo o tamanho dobra
+ * enquanto o {@code executeBatch} volta rápido e cai pela metade quando fica lento ou quando o lote
+ * passa do limite de bytes, o que acomoda tanto tabelas estreitas quanto linhas com TEXT largos.
+ * O commit é independente do lote: sem intervalo definido confirma a cada lote, como antes.
+ * Compartilhado pelos escritores do pipeline, por isso os ajustes são sincronizados. Os commits
+ * feitos pela {@link Transacao} entram nas métricas como {@link MetricasImportacao.Fase#COMMIT}.
+ */
+final class ControleLote {
+
+    static final int MINIMO = 10;
+    static final int MAXIMO = 100_000;
+
+    private static final long LATENCIA_MINIMA_NS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long LATENCIA_MAXIMA_NS = TimeUnit.MILLISECONDS.toNanos(1000);
+    private static final long MAX_BYTES_LOTE = 16L * 1024 * 1024;
+
+    private final boolean adaptativo;
+    private final int commitLinhas;
+    private final long commitNanos;
+    private final MetricasImportacao metricas;
+    private volatile int tamanho;
+
+    ControleLote(int tamanhoInicial, boolean adaptativo, int commitLinhas, long commitMs, MetricasImportacao metricas) {
+        this.tamanho = Math.max(MINIMO, Math.min(MAXIMO, tamanhoInicial));
+        this.adaptativo = adaptativo;
+        this.commitLinhas = commitLinhas;
+        this.commitNanos = TimeUnit.MILLISECONDS.toNanos(commitMs);
+        this.metricas = metricas;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    /** Resultado de um {@code executeBatch}: quantas linhas, quantos bytes de dados e quanto demorou. */
+    synchronized void registrar(int linhas, long bytes, long nanos) {
+        // o último lote do arquivo costuma vir pela metade e não diz nada sobre o tamanho certo
+        if (!adaptativo || linhas < tamanho / 2) return;
+
+        int novo = tamanho;
+        if (nanos > LATENCIA_MAXIMA_NS || bytes > MAX_BYTES_LOTE) {
+            novo = tamanho / 2;
+        } else if (nanos < LATENCIA_MINIMA_NS) {
+            novo = tamanho * 2;
+        }
+
+        long bytesPorLinha = Math.max(1, bytes / linhas);
+        novo = (int) Math.min(novo, MAX_BYTES_LOTE / bytesPorLinha);
+        novo = Math.max(MINIMO, Math.min(MAXIMO, novo));
+
+        if (novo != tamanho) {
+            System.out.println("Lote ajustado de " + tamanho + " para " + novo + " registros ("
+                    + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms, " + bytes / 1024 + "KB no último lote)");
+            tamanho = novo;
+        }
+    }
+
+    Transacao transacao(Connection conexao) {
+        return new Transacao(conexao);
+    }
+
+    /** Commits de uma conexão seguindo o intervalo configurado. */
+    final class Transacao {
+        private final Connection conexao;
+        private long linhasSemCommit;
+        private long inicio = System.nanoTime();
+
+        private Transacao(Connection conexao) {
+            this.conexao = conexao;
+        }
+
+        /** Conta as linhas gravadas; true quando já é hora de confirmar. */
+        boolean gravou(long linhas) {
+            linhasSemCommit += linhas;
+            if (commitLinhas <= 0 && commitNanos <= 0) return true;
+            if (commitLinhas > 0 && linhasSemCommit >= commitLinhas) return true;
+            return commitNanos > 0 && System.nanoTime() - inicio >= commitNanos;
+        }
+
+        void confirmar() throws SQLException {
+            long inicioCommit = System.nanoTime();
+            conexao.commit();
+            metricas.fase(MetricasImportacao.Fase.COMMIT, System.nanoTime() - inicioCommit, (int) Math.min(linhasSemCommit, Integer.MAX_VALUE));
+            linhasSemCommit = 0;
+            inicio = System.nanoTime();
+        }
+    }
+}
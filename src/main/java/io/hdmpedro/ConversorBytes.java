@@ -0,0 +1,142 @@
+package io.hdmpedro;
+
+import java.math.BigDecimal;
+
+/**
+ * Reconhecimento e conversão de valores direto dos bytes do campo, sem regex e sem Strings
+ * intermediárias. Cada método devolve um valor sentinela quando o texto não tem o formato esperado,
+ * para que o chamador decida o que fazer em vez de pagar por uma exceção.
+ */
+final class ConversorBytes {
+
+    static final long INVALIDO = Long.MIN_VALUE;
+    private static final int MAX_DIGITOS_LONG = 18;
+
+    private ConversorBytes() {
+    }
+
+    /** {@code -?\d+} que cabe em um long, ou {@link #INVALIDO}. */
+    static long inteiro(byte[] b, int inicio, int fim) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fim && (b[i] == '-' || b[i] == '+')) {
+            negativo = b[i] == '-';
+            i++;
+        }
+        if (i == fim || fim - i > MAX_DIGITOS_LONG) return INVALIDO;
+
+        long valor = 0;
+        for (; i < fim; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return INVALIDO;
+            valor = valor * 10 + d;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * {@code -?\d*\.?\d*} com ao menos um dígito e até 18 dígitos significativos, montado como
+     * unscaled + scale. Devolve null para qualquer outra coisa (expoente, separador de milhar, texto).
+     */
+    static BigDecimal decimal(byte[] b, int inicio, int fim) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fim && (b[i] == '-' || b[i] == '+')) {
+            negativo = b[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int significativos = 0;
+        int escala = -1;
+        boolean algumDigito = false;
+        for (; i < fim; i++) {
+            byte c = b[i];
+            if (c == '.') {
+                if (escala >= 0) return null;
+                escala = 0;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) return null;
+            algumDigito = true;
+            if (significativos > 0 || d != 0) significativos++;
+            if (significativos > MAX_DIGITOS_LONG) return null;
+            unscaled = unscaled * 10 + d;
+            if (escala >= 0) escala++;
+        }
+        if (!algumDigito) return null;
+
+        return BigDecimal.valueOf(negativo ? -unscaled : unscaled, Math.max(escala, 0));
+    }
+
+    /** {@code dd/MM/yyyy} como {@code yyyyMMdd}, ou -1. Não valida o calendário. */
+    static int dataBr(byte[] b, int inicio, int fim) {
+        if (fim - inicio != 10 || b[inicio + 2] != '/' || b[inicio + 5] != '/') return -1;
+        int dia = digitos(b, inicio, 2);
+        int mes = digitos(b, inicio + 3, 2);
+        int ano = digitos(b, inicio + 6, 4);
+        if (dia < 0 || mes < 0 || ano < 0) return -1;
+        return ano * 10000 + mes * 100 + dia;
+    }
+
+    /** {@code yyyy-MM-dd} no início do campo como {@code yyyyMMdd}, ou -1. */
+    static int dataIso(byte[] b, int inicio, int fim) {
+        if (fim - inicio < 10 || b[inicio + 4] != '-' || b[inicio + 7] != '-') return -1;
+        int ano = digitos(b, inicio, 4);
+        int mes = digitos(b, inicio + 5, 2);
+        int dia = digitos(b, inicio + 8, 2);
+        if (dia < 0 || mes < 0 || ano < 0) return -1;
+        return ano * 10000 + mes * 100 + dia;
+    }
+
+    /** {@code HH:mm:ss} depois de uma data ISO ({@code yyyy-MM-dd HH:mm:ss}) como {@code HHmmss}, ou -1. */
+    static int horaIso(byte[] b, int inicio, int fim) {
+        if (fim - inicio != 19 || (b[inicio + 10] != ' ' && b[inicio + 10] != 'T')
+                || b[inicio + 13] != ':' || b[inicio + 16] != ':') return -1;
+        int hora = digitos(b, inicio + 11, 2);
+        int minuto = digitos(b, inicio + 14, 2);
+        int segundo = digitos(b, inicio + 17, 2);
+        if (hora < 0 || minuto < 0 || segundo < 0) return -1;
+        return hora * 10000 + minuto * 100 + segundo;
+    }
+
+    /** 1 para true/1/yes/y, 0 para false/0/no/n (sem diferenciar maiúsculas), -1 para o resto. */
+    static int booleano(byte[] b, int inicio, int fim) {
+        switch (fim - inicio) {
+            case 1:
+                int c = b[inicio] | 0x20;
+                if (c == '1' || c == 'y') return 1;
+                if (c == '0' || c == 'n') return 0;
+                return -1;
+            case 2:
+                return igual(b, inicio, "no") ? 0 : -1;
+            case 3:
+                return igual(b, inicio, "yes") ? 1 : -1;
+            case 4:
+                return igual(b, inicio, "true") ? 1 : -1;
+            case 5:
+                return igual(b, inicio, "false") ? 0 : -1;
+            default:
+                return -1;
+        }
+    }
+
+    // compara ignorando maiúsculas; a palavra precisa estar em minúsculas
+    private static boolean igual(byte[] b, int inicio, String palavra) {
+        for (int i = 0; i < palavra.length(); i++) {
+            if ((b[inicio + i] | 0x20) != palavra.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int digitos(byte[] b, int inicio, int quantidade) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,142 @@
+package io.hdmpedro;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hash de 64 bits do conteúdo de cada registro, guardado na coluna {@value #COLUNA_HASH} da tabela.
+ * Os hashes já gravados são carregados uma vez antes da importação; um registro cujo hash já está
+ * na tabela não mudou desde a última carga e é descartado antes de chegar ao servidor. O hash cobre
+ * os bytes de todos os campos importados, chave incluída, então um hash conhecido quer dizer a
+ * mesma linha inteira, e não é preciso reconstruir a chave a partir dos valores do banco.
+ */
+final class DeltaConteudo {
+    static final String COLUNA_HASH = "hash_conteudo";
+    static final String TIPO_COLUNA_HASH = "BIGINT";
+
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    private final int[] campos;
+    private final ConjuntoLongs existentes;
+    private final LongAdder inalterados = new LongAdder();
+
+    DeltaConteudo(int[] campos, ConjuntoLongs existentes) {
+        this.campos = campos;
+        this.existentes = existentes;
+    }
+
+    static DeltaConteudo carregar(Connection conexao, String nomeTabela, PlanoImportacao plano) throws SQLException {
+        int[] campos = new int[plano.quantidadeColunas()];
+        int n = 0;
+        for (int i = 0; i < plano.quantidadeColunas(); i++) {
+            if (plano.indice(i) >= 0) campos[n++] = plano.indice(i);
+        }
+
+        ConjuntoLongs existentes = new ConjuntoLongs();
+        try (Statement stmt = conexao.createStatement()) {
+            // o Connector/J só faz streaming do resultado com fetch size MIN_VALUE; sem isso a tabela toda vem de uma vez
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery("SELECT `" + COLUNA_HASH + "` FROM `" + nomeTabela + "` WHERE `"
+                    + COLUNA_HASH + "` IS NOT NULL")) {
+                while (rs.next()) {
+                    existentes.adicionar(rs.getLong(1));
+                }
+            }
+        }
+        System.out.println("Hashes de conteúdo carregados de '" + nomeTabela + "': " + existentes.tamanho());
+        return new DeltaConteudo(Arrays.copyOf(campos, n), existentes);
+    }
+
+    /** Falso quando a mesma linha já está na tabela; o registro deve ser ignorado. */
+    boolean alterado(RegistroCSV registro) {
+        if (existentes.contem(hash(registro))) {
+            inalterados.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // FNV-1a sobre os bytes crus de cada campo, com o tamanho separando um campo do seguinte
+    long hash(RegistroCSV registro) {
+        byte[] bytes = registro.bytes();
+        long h = FNV_BASE;
+        for (int campo : campos) {
+            int inicio = campo < registro.quantidadeCampos() ? registro.inicio(campo) : 0;
+            int fim = campo < registro.quantidadeCampos() ? registro.fim(campo) : 0;
+            for (int i = inicio; i < fim; i++) {
+                h = (h ^ (bytes[i] & 0xff)) * FNV_PRIMO;
+            }
+            h = (h ^ (fim - inicio)) * FNV_PRIMO;
+        }
+        // o FNV espalha mal os bits altos; o fmix64 do MurmurHash3 completa a avalanche
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    long inalterados() {
+        return inalterados.sum();
+    }
+
+    /**
+     * Conjunto de longs com endereçamento aberto, para não guardar um {@code Long} por linha da
+     * tabela. Só é escrito antes da importação; depois as threads escritoras apenas consultam.
+     */
+    static final class ConjuntoLongs {
+        private static final long VAZIO = 0;
+
+        private long[] tabela = new long[1024];
+        private int tamanho;
+        private boolean temZero;
+
+        void adicionar(long valor) {
+            if (valor == VAZIO) {
+                temZero = true;
+                return;
+            }
+            if ((tamanho + 1) * 2 > tabela.length) crescer();
+            if (inserir(tabela, valor)) tamanho++;
+        }
+
+        boolean contem(long valor) {
+            if (valor == VAZIO) return temZero;
+            int mascara = tabela.length - 1;
+            for (int i = (int) valor & mascara; ; i = (i + 1) & mascara) {
+                long atual = tabela[i];
+                if (atual == valor) return true;
+                if (atual == VAZIO) return false;
+            }
+        }
+
+        int tamanho() {
+            return tamanho + (temZero ? 1 : 0);
+        }
+
+        private static boolean inserir(long[] tabela, long valor) {
+            int mascara = tabela.length - 1;
+            for (int i = (int) valor & mascara; ; i = (i + 1) & mascara) {
+                if (tabela[i] == valor) return false;
+                if (tabela[i] == VAZIO) {
+                    tabela[i] = valor;
+                    return true;
+                }
+            }
+        }
+
+        private void crescer() {
+            long[] nova = new long[tabela.length * 2];
+            for (long valor : tabela) {
+                if (valor != VAZIO) inserir(nova, valor);
+            }
+            tabela = nova;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package io.hdmpedro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Diário de importação gravado numa tabela auxiliar do próprio banco. Cada atualização é feita na
+ * mesma transação do lote que acabou de ser inserido, então o offset registrado aponta sempre para
+ * o primeiro registro ainda não confirmado. Com a impressão digital do arquivo a retomada recusa um
+ * arquivo diferente do que foi importado pela metade.
+ */
+final class DiarioImportacao {
+
+    static final String TABELA = "csvimporter_diario";
+
+    private static final int BYTES_IMPRESSAO = 1024 * 1024;
+
+    private final Connection conexao;
+    private final String tabela;
+    private final Path arquivo;
+    private final String impressao;
+
+    private boolean existente;
+    private String impressaoGravada;
+    private long offset;
+    private long linha;
+    private long registros;
+    private boolean concluida;
+    private long registrosIniciais;
+
+    private DiarioImportacao(Connection conexao, String tabela, Path arquivo, String impressao) {
+        this.conexao = conexao;
+        this.tabela = tabela;
+        this.arquivo = arquivo;
+        this.impressao = impressao;
+    }
+
+    static DiarioImportacao abrir(Connection conexao, String tabela, Path arquivo) throws SQLException, IOException {
+        try (Statement stmt = conexao.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS `" + TABELA + "` ("
+                    + "`tabela` VARCHAR(64) PRIMARY KEY, "
+                    + "`arquivo` VARCHAR(1024), "
+                    + "`impressao` VARCHAR(96), "
+                    + "`offset_bytes` BIGINT, "
+                    + "`linha` BIGINT, "
+                    + "`registros` BIGINT, "
+                    + "`concluida` BOOLEAN, "
+                    + "`atualizado` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP"
+                    + ") ENGINE=InnoDB");
+        }
+
+        DiarioImportacao diario = new DiarioImportacao(conexao, tabela, arquivo, impressao(arquivo));
+        try (PreparedStatement pstmt = conexao.prepareStatement("SELECT `impressao`, `offset_bytes`, `linha`, `registros`, `concluida` FROM `"
+                + TABELA + "` WHERE `tabela` = ?")) {
+            pstmt.setString(1, tabela);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    diario.existente = true;
+                    diario.impressaoGravada = rs.getString(1);
+                    diario.offset = rs.getLong(2);
+                    diario.linha = rs.getLong(3);
+                    diario.registros = rs.getLong(4);
+                    diario.concluida = rs.getBoolean(5);
+                }
+            }
+        }
+        return diario;
+    }
+
+    /**
+     * Tamanho do arquivo mais o SHA-256 do primeiro e do último megabyte. Não lê o arquivo inteiro,
+     * mas pega tanto um arquivo trocado quanto um que cresceu ou foi truncado.
+     */
+    static String impressao(Path arquivo) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            ByteBuffer buffer = ByteBuffer.allocate(BYTES_IMPRESSAO);
+            resumir(canal, 0, buffer, sha);
+            if (tamanho > BYTES_IMPRESSAO) {
+                resumir(canal, Math.max(BYTES_IMPRESSAO, tamanho - BYTES_IMPRESSAO), buffer, sha);
+            }
+
+            StringBuilder hex = new StringBuilder(tamanho + ":");
+            for (byte b : sha.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+    }
+
+    private static void resumir(FileChannel canal, long posicao, ByteBuffer buffer, MessageDigest sha) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int lidos = canal.read(buffer, posicao + buffer.position());
+            if (lidos < 0) break;
+        }
+        buffer.flip();
+        sha.update(buffer);
+    }
+
+    boolean existente() {
+        return existente;
+    }
+
+    boolean concluida() {
+        return concluida;
+    }
+
+    boolean mesmoArquivo() {
+        return impressao.equals(impressaoGravada);
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    long linha() {
+        return linha;
+    }
+
+    long registros() {
+        return registros;
+    }
+
+    /** Passa a contar a partir do que já foi confirmado na execução interrompida. */
+    void retomar() {
+        registrosIniciais = registros;
+    }
+
+    /** Começa um diário novo para a tabela, apontando para o primeiro registro de dados. */
+    void iniciar(long offsetDados, long linhaDados) throws SQLException {
+        try (PreparedStatement pstmt = conexao.prepareStatement("REPLACE INTO `" + TABELA
+                + "` (`tabela`, `arquivo`, `impressao`, `offset_bytes`, `linha`, `registros`, `concluida`) VALUES (?, ?, ?, ?, ?, 0, FALSE)")) {
+            pstmt.setString(1, tabela);
+            pstmt.setString(2, arquivo.toAbsolutePath().toString());
+            pstmt.setString(3, impressao);
+            pstmt.setLong(4, offsetDados);
+            pstmt.setLong(5, linhaDados);
+            pstmt.executeUpdate();
+        }
+        existente = true;
+        impressaoGravada = impressao;
+        offset = offsetDados;
+        linha = linhaDados;
+        registros = 0;
+        concluida = false;
+        registrosIniciais = 0;
+    }
+
+    /**
+     * Grava a posição do primeiro registro não confirmado. Precisa ser chamado antes do commit do
+     * lote, na mesma conexão, para entrar na mesma transação.
+     */
+    void registrar(long offsetSeguinte, long linhaSeguinte, long inseridos) throws SQLException {
+        atualizar(offsetSeguinte, linhaSeguinte, registrosIniciais + inseridos, false);
+    }
+
+    void concluir(long offsetFinal, long linhaFinal, long inseridos) throws SQLException {
+        atualizar(offsetFinal, linhaFinal, registrosIniciais + inseridos, true);
+    }
+
+    private void atualizar(long offsetSeguinte, long linhaSeguinte, long total, boolean fim) throws SQLException {
+        try (PreparedStatement pstmt = conexao.prepareStatement("UPDATE `" + TABELA
+                + "` SET `offset_bytes` = ?, `linha` = ?, `registros` = ?, `concluida` = ? WHERE `tabela` = ?")) {
+            pstmt.setLong(1, offsetSeguinte);
+            pstmt.setLong(2, linhaSeguinte);
+            pstmt.setLong(3, total);
+            pstmt.setBoolean(4, fim);
+            pstmt.setString(5, tabela);
+            pstmt.executeUpdate();
+        }
+        offset = offsetSeguinte;
+        linha = linhaSeguinte;
+        registros = total;
+        concluida = fim;
+    }
+}
@@ -0,0 +1,292 @@
+package io.hdmpedro;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caminho inverso da importação: uma tabela ou uma consulta vira CSV. O resultado vem em streaming
+ * do Connector/J, registro a registro, e é escrito no formato que o importador lê: o mesmo
+ * separador, aspas só quando o campo precisa, NULL como campo vazio, {@code DATE} como
+ * {@code dd/MM/yyyy} (ou ISO) e {@code DATETIME} como {@code yyyy-MM-dd HH:mm:ss}. Um destino
+ * terminado em {@code .gz} sai compactado, e {@value #SAIDA_PADRAO} escreve na saída padrão.
+ *
+ * <p>Com {@code partes > 1} uma tabela com chave primária inteira é dividida em faixas da chave, cada
+ * faixa exportada em paralelo na sua conexão e no seu arquivo, com cabeçalho, prontos para voltar
+ * com a importação de vários arquivos.
+ */
+public class ExportacaoCSV {
+    public static final String SAIDA_PADRAO = "-";
+    private static final int BUFFER_SAIDA = 64 * 1024;
+
+    private final String jdbcUrl;
+    private final String usuario;
+    private final String senha;
+    private char separador = ';';
+    private boolean datasIso;
+    private int partes = 1;
+    private PrintStream avisos = System.out;
+
+    public ExportacaoCSV(String jdbcUrl, String usuario, String senha) {
+        this.jdbcUrl = jdbcUrl;
+        this.usuario = usuario;
+        this.senha = senha;
+    }
+
+    public void definirSeparador(char separador) {
+        if (separador == '"' || separador == '\n' || separador == '\r') {
+            throw new IllegalArgumentException("Separador inválido: " + separador);
+        }
+        this.separador = separador;
+    }
+
+    /** {@code DATE} como {@code yyyy-MM-dd} em vez de {@code dd/MM/yyyy}; o importador lê os dois. */
+    public void definirDatasIso(boolean datasIso) {
+        this.datasIso = datasIso;
+    }
+
+    /** Em quantas faixas da chave primária dividir uma tabela, cada uma num arquivo e numa conexão. */
+    public void definirPartes(int partes) {
+        if (partes < 1) throw new IllegalArgumentException("Partes deve ser maior que zero");
+        this.partes = partes;
+    }
+
+    public long exportarTabela(String tabela, String destino) throws Exception {
+        if (partes > 1) {
+            if (SAIDA_PADRAO.equals(destino)) {
+                throw new IllegalArgumentException("A exportação em partes precisa de um arquivo de destino");
+            }
+            try (Connection conexao = DriverManager.getConnection(jdbcUrl, usuario, senha)) {
+                String chave = chavePrimariaInteira(conexao, tabela);
+                if (chave != null) return exportarPorFaixas(conexao, tabela, chave, destino);
+                avisos.println("⚠️  '" + tabela + "' não tem chave primária inteira de uma coluna, exportando num arquivo só");
+            }
+        }
+        return exportarConsulta("SELECT * FROM `" + tabela + "`", destino);
+    }
+
+    public long exportarConsulta(String sql, String destino) throws Exception {
+        if (SAIDA_PADRAO.equals(destino)) avisos = System.err;
+        long inicio = System.currentTimeMillis();
+        long registros;
+        try (Connection conexao = DriverManager.getConnection(jdbcUrl, usuario, senha)) {
+            registros = exportar(conexao, sql, destino);
+        }
+        avisos.println("Exportados " + registros + " registros para " + destino + " em " + (System.currentTimeMillis() - inicio) + "ms");
+        return registros;
+    }
+
+    // uma faixa por arquivo; com a chave concentrada numa ponta, as partes ficam desiguais mas continuam corretas
+    private long exportarPorFaixas(Connection conexao, String tabela, String chave, String destino) throws Exception {
+        BigInteger minimo;
+        BigInteger maximo;
+        // BigDecimal porque um BIGINT UNSIGNED não cabe num long
+        try (Statement stmt = conexao.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(`" + chave + "`), MAX(`" + chave + "`) FROM `" + tabela + "`")) {
+            rs.next();
+            BigDecimal menor = rs.getBigDecimal(1);
+            BigDecimal maior = rs.getBigDecimal(2);
+            if (menor == null || maior == null) {
+                return exportarConsulta("SELECT * FROM `" + tabela + "`", destino);
+            }
+            minimo = menor.toBigIntegerExact();
+            maximo = maior.toBigIntegerExact();
+        }
+
+        BigInteger[] limites = limites(minimo, maximo, partes);
+        avisos.println("Exportando '" + tabela + "' em " + partes + " partes pela chave `" + chave + "` (" + minimo + " a " + maximo + ")");
+        long inicio = System.currentTimeMillis();
+        long total = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(partes);
+        try (PoolConexoes pool = new PoolConexoes(jdbcUrl, usuario, senha, partes)) {
+            List<Future<Long>> tarefas = new ArrayList<>();
+            for (int i = 0; i < partes; i++) {
+                String sql = "SELECT * FROM `" + tabela + "` WHERE `" + chave + "` >= " + limites[i]
+                        + (i < partes - 1 ? " AND `" + chave + "` < " + limites[i + 1] : "");
+                String arquivo = nomeParte(destino, i + 1);
+                tarefas.add(executor.submit(() -> {
+                    long inicioParte = System.currentTimeMillis();
+                    try (Connection parte = pool.obter()) {
+                        long registros = exportar(parte, sql, arquivo);
+                        avisos.println("   ✅ " + arquivo + ": " + registros + " registros em " + (System.currentTimeMillis() - inicioParte) + "ms");
+                        return registros;
+                    }
+                }));
+            }
+            for (Future<Long> tarefa : tarefas) {
+                total += tarefa.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha na exportação em partes: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        avisos.println("Exportados " + total + " registros em " + partes + " arquivos em " + (System.currentTimeMillis() - inicio) + "ms");
+        return total;
+    }
+
+    /**
+     * Início de cada uma das {@code partes} faixas de {@code [minimo, maximo]}, mais o fim da última.
+     * Em BigInteger porque, numa chave BIGINT que vai de um extremo ao outro, a largura e o passo
+     * estourariam um long e faixas erradas deixariam registros de fora.
+     */
+    static BigInteger[] limites(BigInteger minimo, BigInteger maximo, int partes) {
+        BigInteger passo = maximo.subtract(minimo).divide(BigInteger.valueOf(partes)).add(BigInteger.ONE);
+        BigInteger[] limites = new BigInteger[partes + 1];
+        for (int i = 0; i <= partes; i++) {
+            limites[i] = minimo.add(passo.multiply(BigInteger.valueOf(i)));
+        }
+        return limites;
+    }
+
+    // "vendas.csv.gz" com a parte 2 vira "vendas.parte2.csv.gz"
+    static String nomeParte(String destino, int parte) {
+        Path caminho = Paths.get(destino);
+        String nome = caminho.getFileName().toString();
+        String compactacao = nome.toLowerCase(Locale.ROOT).endsWith(".gz") ? nome.substring(nome.length() - 3) : "";
+        String semCompactacao = nome.substring(0, nome.length() - compactacao.length());
+        int ponto = semCompactacao.lastIndexOf('.');
+        String base = ponto > 0 ? semCompactacao.substring(0, ponto) : semCompactacao;
+        String extensao = ponto > 0 ? semCompactacao.substring(ponto) : "";
+        return caminho.resolveSibling(base + ".parte" + parte + extensao + compactacao).toString();
+    }
+
+    private static String chavePrimariaInteira(Connection conexao, String tabela) throws SQLException {
+        List<String> colunas = new ArrayList<>();
+        try (ResultSet rs = conexao.getMetaData().getPrimaryKeys(null, null, tabela)) {
+            while (rs.next()) {
+                colunas.add(rs.getString("COLUMN_NAME"));
+            }
+        }
+        if (colunas.size() != 1) return null;
+        try (ResultSet rs = conexao.getMetaData().getColumns(null, null, tabela, colunas.get(0))) {
+            if (!rs.next()) return null;
+            switch (rs.getInt("DATA_TYPE")) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return colunas.get(0);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private long exportar(Connection conexao, String sql, String destino) throws SQLException, IOException {
+        try (Statement stmt = conexao.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // como no DeltaConteudo: só com fetch size MIN_VALUE o Connector/J entrega registro a registro
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery(sql);
+                 Writer saida = abrirSaida(destino)) {
+                return escrever(rs, saida);
+            }
+        }
+    }
+
+    private static Writer abrirSaida(String destino) throws IOException {
+        OutputStream fluxo;
+        if (SAIDA_PADRAO.equals(destino)) {
+            // a saída padrão só é esvaziada no fim, nunca fechada
+            fluxo = new FilterOutputStream(System.out) {
+                @Override
+                public void write(byte[] b, int inicio, int quantidade) throws IOException {
+                    out.write(b, inicio, quantidade);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        } else {
+            fluxo = Files.newOutputStream(Paths.get(destino));
+        }
+        if (destino.toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            fluxo = new GZIPOutputStream(fluxo, BUFFER_SAIDA);
+        } else {
+            fluxo = new BufferedOutputStream(fluxo, BUFFER_SAIDA);
+        }
+        return new BufferedWriter(new OutputStreamWriter(fluxo, StandardCharsets.UTF_8), BUFFER_SAIDA);
+    }
+
+    private long escrever(ResultSet rs, Writer saida) throws SQLException, IOException {
+        ResultSetMetaData metadados = rs.getMetaData();
+        int colunas = metadados.getColumnCount();
+        int[] tipos = new int[colunas + 1];
+        for (int i = 1; i <= colunas; i++) {
+            tipos[i] = metadados.getColumnType(i);
+            if (i > 1) saida.write(separador);
+            escreverCampo(saida, metadados.getColumnLabel(i));
+        }
+        saida.write('\n');
+
+        long registros = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= colunas; i++) {
+                if (i > 1) saida.write(separador);
+                String valor = rs.getString(i);
+                if (valor == null) continue;
+                if (tipos[i] == Types.DATE && !datasIso && valor.length() == 10) {
+                    // yyyy-MM-dd para dd/MM/yyyy sem passar por LocalDate
+                    saida.write(valor, 8, 2);
+                    saida.write('/');
+                    saida.write(valor, 5, 2);
+                    saida.write('/');
+                    saida.write(valor, 0, 4);
+                } else {
+                    escreverCampo(saida, valor);
+                }
+            }
+            saida.write('\n');
+            registros++;
+        }
+        return registros;
+    }
+
+    // o tokenizador tira espaços e controles das pontas de um campo sem aspas, então eles também pedem aspas
+    private void escreverCampo(Writer saida, String valor) throws IOException {
+        boolean aspas = !valor.isEmpty() && (valor.charAt(0) <= ' ' || valor.charAt(valor.length() - 1) <= ' ');
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == separador || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            saida.write(valor);
+            return;
+        }
+        saida.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') saida.write('"');
+            saida.write(c);
+        }
+        saida.write('"');
+    }
+}
@@ -0,0 +1,320 @@
+package io.hdmpedro;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * De onde vêm os bytes do CSV: um arquivo comum, um {@code .gz} ou {@code .zip} descompactado em
+ * stream, ou a entrada padrão com {@value #ENTRADA_PADRAO}, compactada ou não. Nada é extraído para
+ * arquivo temporário. Só o arquivo comum pode ser mapeado em memória e posicionado direto num
+ * offset; as outras fontes chegam a um offset descompactando até ele, e a entrada padrão não pode
+ * ser lida duas vezes.
+ */
+abstract class FonteEntrada {
+    static final String ENTRADA_PADRAO = "-";
+    private static final int AMOSTRA_CHARSET_BYTES = 64 * 1024;
+    private static final int BUFFER_DESCOMPACTACAO = 64 * 1024;
+    private static final Charset[] CHARSETS = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, Charset.forName("Windows-1252")};
+
+    static FonteEntrada de(String caminho) {
+        if (ENTRADA_PADRAO.equals(caminho)) return new EntradaPadrao();
+        Path arquivo = Paths.get(caminho);
+        String nome = arquivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nome.endsWith(".gz")) return new Gzip(arquivo);
+        if (nome.endsWith(".zip")) return new Zip(arquivo);
+        return new Arquivo(arquivo);
+    }
+
+    /** Esquece o aviso de CSVs extras do zip quando a importação dele termina, para a lista não crescer no modo vigiar. */
+    static void esquecerAviso(Path arquivo) {
+        Zip.AVISADOS.remove(arquivo.toAbsolutePath());
+    }
+
+    /** Bytes do CSV desde o início, já descompactados. */
+    abstract InputStream abrir() throws IOException;
+
+    /** Nome usado nas mensagens e na coluna de origem. */
+    abstract String nome();
+
+    /** Pode ser lida mais de uma vez: passadas extras da inferência e retomada pelo diário. */
+    boolean reabrivel() {
+        return true;
+    }
+
+    /** Arquivo comum por trás da fonte, que pode ser mapeado em memória; {@code null} nas demais. */
+    Path arquivoLocal() {
+        return null;
+    }
+
+    /** Arquivo cuja impressão identifica a fonte no diário; {@code null} quando não há. */
+    Path arquivoDiario() {
+        return null;
+    }
+
+    InputStream abrirEm(long offset) throws IOException {
+        InputStream entrada = abrir();
+        try {
+            pular(entrada, offset);
+        } catch (IOException e) {
+            entrada.close();
+            throw e;
+        }
+        return entrada;
+    }
+
+    private static void pular(InputStream entrada, long bytes) throws IOException {
+        long restantes = bytes;
+        while (restantes > 0) {
+            long pulados = entrada.skip(restantes);
+            if (pulados <= 0) {
+                if (entrada.read() < 0) throw new EOFException("Fonte termina antes do offset " + bytes);
+                pulados = 1;
+            }
+            restantes -= pulados;
+        }
+    }
+
+    /**
+     * Abre a fonte decidindo o charset só pelos primeiros {@value #AMOSTRA_CHARSET_BYTES} bytes. A
+     * amostra é devolvida na frente do resto do stream, então a fonte é lida uma vez só. Um BOM de
+     * UTF-8 é consumido e fica de fora dos dados; os offsets continuam contados desde o início.
+     */
+    Amostrada abrirDetectando() throws IOException {
+        InputStream entrada = abrir();
+        try {
+            byte[] inicio = new byte[AMOSTRA_CHARSET_BYTES];
+            int lidos = 0;
+            int n;
+            while (lidos < inicio.length && (n = entrada.read(inicio, lidos, inicio.length - lidos)) > 0) {
+                lidos += n;
+            }
+
+            int bom = 0;
+            Charset charset;
+            if (lidos >= 3 && (inicio[0] & 0xff) == 0xEF && (inicio[1] & 0xff) == 0xBB && (inicio[2] & 0xff) == 0xBF) {
+                bom = 3;
+                charset = StandardCharsets.UTF_8;
+            } else if (lidos >= 2 && ((inicio[0] & 0xff) == 0xFE && (inicio[1] & 0xff) == 0xFF
+                    || (inicio[0] & 0xff) == 0xFF && (inicio[1] & 0xff) == 0xFE)) {
+                throw new IOException("CSV em UTF-16 não suportado, converta para UTF-8: " + nome());
+            } else {
+                charset = detectarCharset(inicio, lidos);
+            }
+
+            InputStream dados = new SequenceInputStream(new ByteArrayInputStream(inicio, bom, lidos - bom), entrada);
+            return new Amostrada(dados, charset, bom);
+        } catch (IOException | RuntimeException e) {
+            entrada.close();
+            throw e;
+        }
+    }
+
+    private Charset detectarCharset(byte[] inicio, int lidos) throws IOException {
+        for (Charset charset : CHARSETS) {
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            CharBuffer destino = CharBuffer.allocate(lidos);
+            // endOfInput=false: uma sequência multibyte cortada no fim da amostra não conta como erro
+            CoderResult resultado = decoder.decode(ByteBuffer.wrap(inicio, 0, lidos), destino, false);
+            if (!resultado.isError()) {
+                return charset;
+            }
+        }
+        throw new IOException("falha na leitura do CSV, charset nn suportado");
+    }
+
+    static final class Amostrada {
+        final InputStream dados;
+        final Charset charset;
+        final int bom;
+
+        Amostrada(InputStream dados, Charset charset, int bom) {
+            this.dados = dados;
+            this.charset = charset;
+            this.bom = bom;
+        }
+    }
+
+    private static final class Arquivo extends FonteEntrada {
+        private final Path arquivo;
+
+        Arquivo(Path arquivo) {
+            this.arquivo = arquivo;
+        }
+
+        @Override
+        InputStream abrir() throws IOException {
+            return Files.newInputStream(arquivo);
+        }
+
+        // posiciona direto no offset, sem ler o que vem antes
+        @Override
+        InputStream abrirEm(long offset) throws IOException {
+            FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            canal.position(offset);
+            return Channels.newInputStream(canal);
+        }
+
+        @Override
+        String nome() {
+            return arquivo.getFileName().toString();
+        }
+
+        @Override
+        Path arquivoLocal() {
+            return arquivo;
+        }
+
+        @Override
+        Path arquivoDiario() {
+            return arquivo;
+        }
+    }
+
+    private static final class Gzip extends FonteEntrada {
+        private final Path arquivo;
+
+        Gzip(Path arquivo) {
+            this.arquivo = arquivo;
+        }
+
+        @Override
+        InputStream abrir() throws IOException {
+            InputStream compactado = Files.newInputStream(arquivo);
+            try {
+                return new GZIPInputStream(compactado, BUFFER_DESCOMPACTACAO);
+            } catch (IOException e) {
+                compactado.close();
+                throw e;
+            }
+        }
+
+        @Override
+        String nome() {
+            return arquivo.getFileName().toString();
+        }
+
+        @Override
+        Path arquivoDiario() {
+            return arquivo;
+        }
+    }
+
+    /**
+     * A primeira entrada {@code .csv} do zip, ou a primeira entrada se nenhuma tiver essa extensão.
+     * A escolha usa o diretório central do zip, sem descompactar as outras entradas.
+     */
+    private static final class Zip extends FonteEntrada {
+        // cada etapa da importação cria a sua fonte com de(), então o aviso é lembrado por arquivo até esquecerAviso()
+        private static final Set<Path> AVISADOS = ConcurrentHashMap.newKeySet();
+
+        private final Path arquivo;
+
+        Zip(Path arquivo) {
+            this.arquivo = arquivo;
+        }
+
+        @Override
+        InputStream abrir() throws IOException {
+            ZipFile zip = new ZipFile(arquivo.toFile());
+            try {
+                ZipEntry escolhida = escolherEntrada(zip);
+                return new FilterInputStream(zip.getInputStream(escolhida)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            zip.close();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                zip.close();
+                throw e;
+            }
+        }
+
+        private ZipEntry escolherEntrada(ZipFile zip) throws IOException {
+            ZipEntry primeira = null;
+            ZipEntry primeiraCsv = null;
+            int csvs = 0;
+            Enumeration<? extends ZipEntry> entradas = zip.entries();
+            while (entradas.hasMoreElements()) {
+                ZipEntry entrada = entradas.nextElement();
+                if (entrada.isDirectory()) continue;
+                if (primeira == null) primeira = entrada;
+                if (entrada.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    if (primeiraCsv == null) primeiraCsv = entrada;
+                    csvs++;
+                }
+            }
+            if (primeira == null) {
+                throw new IOException("Zip sem arquivos: " + arquivo);
+            }
+            if (csvs > 1 && AVISADOS.add(arquivo.toAbsolutePath())) {
+                System.out.println("⚠️  " + arquivo.getFileName() + " tem " + csvs + " CSVs, importando só " + primeiraCsv.getName());
+            }
+            return primeiraCsv != null ? primeiraCsv : primeira;
+        }
+
+        @Override
+        String nome() {
+            return arquivo.getFileName().toString();
+        }
+
+        @Override
+        Path arquivoDiario() {
+            return arquivo;
+        }
+    }
+
+    /** A entrada padrão, descompactada quando começa com o número mágico do gzip. */
+    private static final class EntradaPadrao extends FonteEntrada {
+
+        @Override
+        InputStream abrir() throws IOException {
+            InputStream entrada = new BufferedInputStream(System.in, BUFFER_DESCOMPACTACAO);
+            entrada.mark(2);
+            boolean gzip = entrada.read() == 0x1f && entrada.read() == 0x8b;
+            entrada.reset();
+            return gzip ? new GZIPInputStream(entrada, BUFFER_DESCOMPACTACAO) : entrada;
+        }
+
+        @Override
+        String nome() {
+            return "stdin";
+        }
+
+        @Override
+        boolean reabrivel() {
+            return false;
+        }
+    }
+}
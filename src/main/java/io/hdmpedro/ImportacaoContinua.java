@@ -0,0 +1,523 @@
+package io.hdmpedro;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fica no ar vigiando uma ou mais caixas de entrada com o {@link WatchService} e importa cada CSV
+ * (também {@code .csv.gz} e {@code .zip}) que chega, com a tabela, os tipos e as opções da sua caixa.
+ * A JVM já aquecida, o pool de conexões e o cache de metadados das tabelas passam de um arquivo para
+ * o outro, então um arquivo pequeno não paga partida da JVM, JIT frio nem conexão nova. O arquivo
+ * importado vai para a pasta de concluídos da caixa; o que falha vai para a de erros, com a mensagem
+ * num {@code <arquivo>.erro.txt} ao lado. Um arquivo importado que não pode ser movido continua na
+ * caixa, mas não é importado de novo enquanto não mudar.
+ *
+ * <p>Um arquivo só é importado depois de ficar {@code esperaMs} sem mudar de tamanho nem de data,
+ * para não pegar uma cópia pela metade; quem grava com outra extensão e renomeia no fim nem espera
+ * pela cópia. Até {@code arquivosParalelos} arquivos são importados ao mesmo tempo, mas os da mesma
+ * tabela vão um de cada vez, na ordem de chegada.
+ */
+public class ImportacaoContinua {
+    public static final String PASTA_CONCLUIDOS = "concluidos";
+    public static final String PASTA_ERROS = "erros";
+    private static final String SUFIXO_ERRO = ".erro.txt";
+    private static final long ESPERA_PADRAO_MS = 2000;
+    private static final long ESPERA_RECONEXAO_MS = 10_000;
+    private static final long INTERVALO_MS = 500;
+    private static final DateTimeFormatter CARIMBO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final String jdbcUrl;
+    private final String usuario;
+    private final String senha;
+    private final int arquivosParalelos;
+    private final int conexoesPorArquivo;
+    private final List<CaixaEntrada> caixas = new ArrayList<>();
+    private final CacheMetadados metadados = new CacheMetadados();
+    private final PathMatcher padrao = FileSystems.getDefault().getPathMatcher("glob:" + ImportacaoMultipla.PADRAO_ARQUIVOS);
+    private long esperaMs = ESPERA_PADRAO_MS;
+
+    // os pendentes só são tocados pela thread que vigia; as importações devolvem os adiados pela fila
+    private final Map<Path, Pendente> pendentes = new LinkedHashMap<>();
+    private final Queue<Pendente> adiados = new ConcurrentLinkedQueue<>();
+    private final Set<Path> emAndamento = ConcurrentHashMap.newKeySet();
+    // importados que não saíram da caixa, com a data de quando foram lidos: só voltam a ser importados se mudarem
+    private final Map<Path, FileTime> naoMovidos = new ConcurrentHashMap<>();
+    private final Set<String> tabelasOcupadas = ConcurrentHashMap.newKeySet();
+    private final AtomicLong importados = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final CountDownLatch encerrada = new CountDownLatch(1);
+    private volatile boolean executando;
+    private volatile boolean parada;
+
+    /**
+     * {@code conexoesPorArquivo} é quantas conexões uma importação usa ao mesmo tempo, como na
+     * {@link ImportacaoMultipla}: a principal mais uma por escritor do pipeline.
+     */
+    public ImportacaoContinua(String jdbcUrl, String usuario, String senha, int arquivosParalelos, int conexoesPorArquivo) {
+        if (arquivosParalelos < 1 || conexoesPorArquivo < 1) {
+            throw new IllegalArgumentException("Arquivos em paralelo e conexões por arquivo devem ser maiores que zero");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.usuario = usuario;
+        this.senha = senha;
+        this.arquivosParalelos = arquivosParalelos;
+        this.conexoesPorArquivo = conexoesPorArquivo;
+    }
+
+    public void adicionar(CaixaEntrada caixa) {
+        for (CaixaEntrada outra : caixas) {
+            if (outra.diretorio.equals(caixa.diretorio)) {
+                throw new IllegalArgumentException("O diretório " + caixa.diretorio + " aparece em mais de uma caixa de entrada");
+            }
+        }
+        caixas.add(caixa);
+    }
+
+    /** Quanto tempo um arquivo precisa ficar sem mudar para ser considerado completo. */
+    public void definirEspera(long esperaMs) {
+        if (esperaMs < 0) throw new IllegalArgumentException("Espera não pode ser negativa");
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Vigia as caixas até {@link #parar()}. Os arquivos que já estão nelas entram primeiro. Ao parar,
+     * as importações em andamento terminam; os arquivos que ainda esperavam ficam na caixa para a
+     * próxima execução.
+     */
+    public void executar() throws Exception {
+        if (caixas.isEmpty()) throw new IllegalStateException("Nenhuma caixa de entrada para vigiar");
+        executando = true;
+        try (WatchService vigia = FileSystems.getDefault().newWatchService();
+             PoolConexoes pool = new PoolConexoes(jdbcUrl, usuario, senha, arquivosParalelos * conexoesPorArquivo)) {
+            Map<WatchKey, CaixaEntrada> chaves = new HashMap<>();
+            for (CaixaEntrada caixa : caixas) {
+                Files.createDirectories(caixa.diretorio);
+                Files.createDirectories(caixa.concluidos);
+                Files.createDirectories(caixa.erros);
+                chaves.put(caixa.diretorio.register(vigia, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), caixa);
+                System.out.println("Vigiando " + caixa.diretorio + " -> " + caixa.tabela + (caixa.adicionar ? " (anexando)" : ""));
+                varrer(caixa);
+            }
+            aquecer(pool);
+            System.out.println("Importação contínua no ar, " + arquivosParalelos + " arquivos por vez; Ctrl+C para parar");
+
+            ExecutorService executor = Executors.newFixedThreadPool(arquivosParalelos);
+            try {
+                while (!parada && !chaves.isEmpty()) {
+                    WatchKey chave = vigia.poll(INTERVALO_MS, TimeUnit.MILLISECONDS);
+                    while (chave != null) {
+                        processarEventos(chave, chaves);
+                        chave = vigia.poll();
+                    }
+                    Pendente adiado;
+                    while ((adiado = adiados.poll()) != null) {
+                        pendentes.putIfAbsent(adiado.arquivo, adiado);
+                    }
+                    despachar(executor, pool);
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            System.out.println("Importação contínua encerrada: " + importados.get() + " arquivos importados, "
+                    + falhas.get() + " com erro");
+            encerrada.countDown();
+        }
+    }
+
+    /** Pede o fim da vigia e espera as importações em andamento terminarem. */
+    public void parar() {
+        parada = true;
+        if (!executando) return;
+        try {
+            encerrada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // abre de uma vez as conexões de um arquivo: URL ou senha errada aparece já, e o primeiro arquivo não espera
+    private void aquecer(PoolConexoes pool) throws SQLException {
+        List<Connection> conexoes = new ArrayList<>();
+        try {
+            for (int i = 0; i < conexoesPorArquivo; i++) {
+                conexoes.add(pool.obter());
+            }
+        } finally {
+            for (Connection conexao : conexoes) {
+                conexao.close();
+            }
+        }
+    }
+
+    private void processarEventos(WatchKey chave, Map<WatchKey, CaixaEntrada> chaves) throws IOException {
+        CaixaEntrada caixa = chaves.get(chave);
+        for (WatchEvent<?> evento : chave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // eventos perdidos: a caixa é relida inteira
+                varrer(caixa);
+            } else {
+                considerar(caixa, caixa.diretorio.resolve((Path) evento.context()));
+            }
+        }
+        if (!chave.reset()) {
+            chaves.remove(chave);
+            System.out.println("⚠️  " + caixa.diretorio + " não pode mais ser vigiado, a caixa foi removida?");
+        }
+    }
+
+    private void varrer(CaixaEntrada caixa) throws IOException {
+        naoMovidos.keySet().removeIf(arquivo -> arquivo.startsWith(caixa.diretorio) && !Files.exists(arquivo));
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(caixa.diretorio)) {
+            List<Path> arquivos = new ArrayList<>();
+            conteudo.forEach(arquivos::add);
+            arquivos.sort(null);
+            arquivos.forEach(arquivo -> considerar(caixa, arquivo));
+        }
+    }
+
+    // as pastas de concluídos e erros dentro da caixa não são arquivos, e os rejeitados não são CSVs novos
+    private void considerar(CaixaEntrada caixa, Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        if (nome.startsWith(".") || nome.endsWith(CSVImporter.SUFIXO_REJEITADOS) || !padrao.matches(arquivo.getFileName())
+                || emAndamento.contains(arquivo) || !Files.isRegularFile(arquivo)) {
+            return;
+        }
+        FileTime importado = naoMovidos.get(arquivo);
+        if (importado != null) {
+            if (importado.equals(modificacao(arquivo))) return;
+            naoMovidos.remove(arquivo);
+        }
+        pendentes.putIfAbsent(arquivo, new Pendente(caixa, arquivo));
+    }
+
+    private void despachar(ExecutorService executor, PoolConexoes pool) {
+        long agora = System.currentTimeMillis();
+        Iterator<Pendente> iterador = pendentes.values().iterator();
+        while (iterador.hasNext() && emAndamento.size() < arquivosParalelos) {
+            Pendente pendente = iterador.next();
+            if (!Files.exists(pendente.arquivo)) {
+                iterador.remove();
+                continue;
+            }
+            if (emAndamento.contains(pendente.arquivo) || !pendente.pronto(agora, esperaMs)) continue;
+            String tabela = pendente.caixa.tabelaPara(pendente.arquivo);
+            if (!tabelasOcupadas.add(tabela)) continue;
+
+            iterador.remove();
+            emAndamento.add(pendente.arquivo);
+            executor.submit(() -> importar(pool, pendente, tabela));
+        }
+    }
+
+    private void importar(PoolConexoes pool, Pendente pendente, String tabela) {
+        CaixaEntrada caixa = pendente.caixa;
+        Path arquivo = pendente.arquivo;
+        try {
+            CSVImporter importer;
+            try {
+                importer = new CSVImporter(pool);
+            } catch (SQLException e) {
+                // sem banco o arquivo não tem culpa: continua na caixa e é tentado de novo mais tarde
+                System.err.println("⚠️  Sem conexão para importar " + arquivo.getFileName() + " (" + e.getMessage()
+                        + "), nova tentativa em " + ESPERA_RECONEXAO_MS / 1000 + "s");
+                pendente.adiar(System.currentTimeMillis() + ESPERA_RECONEXAO_MS);
+                adiados.add(pendente);
+                return;
+            }
+
+            long inicio = System.currentTimeMillis();
+            long registros;
+            try {
+                try (CSVImporter aberto = importer) {
+                    caixa.configuracao.accept(aberto);
+                    aberto.definirTiposPersonalizados(caixa.tipos);
+                    aberto.usarCacheMetadados(metadados);
+                    // na caixa, os rejeitados seriam vistos como um CSV novo
+                    if (aberto.arquivoRejeitados() == null || ImportacaoMultipla.rejeitadosPorArquivo(aberto)) {
+                        aberto.definirArquivoRejeitados(caixa.erros.toString());
+                    }
+                    if (caixa.adicionar) {
+                        aberto.adicionarDadosTabela(arquivo.toString(), tabela);
+                    } else {
+                        aberto.importarCSV(arquivo.toString(), tabela, caixa.colunasExcluidas);
+                    }
+                    registros = aberto.registrosImportados();
+                }
+            } catch (Exception e) {
+                // a tabela pode ter mudado por fora; o próximo arquivo relê os metadados
+                metadados.invalidar(tabela);
+                falhas.incrementAndGet();
+                String erro = e.getMessage() != null ? e.getMessage() : e.toString();
+                System.err.println("❌ " + arquivo.getFileName() + " -> " + tabela + ": " + erro);
+                registrarErro(caixa, arquivo, tabela, e);
+                return;
+            }
+
+            importados.incrementAndGet();
+            String resumo = arquivo.getFileName() + " -> " + tabela + ": " + registros + " registros em "
+                    + (System.currentTimeMillis() - inicio) + "ms";
+            FileTime modificacao = modificacao(arquivo);
+            try {
+                Path destino = mover(arquivo, caixa.concluidos);
+                System.out.println("✅ " + resumo + ", movido para " + destino);
+            } catch (IOException e) {
+                // os dados já estão na tabela; na pasta de erros o arquivo seria reprocessado e duplicaria as linhas
+                if (modificacao != null) naoMovidos.put(arquivo, modificacao);
+                System.err.println("⚠️  " + resumo + ", mas não foi possível movê-lo para " + caixa.concluidos + " ("
+                        + e.getMessage() + "); fica na caixa e não é importado de novo enquanto não mudar");
+            }
+        } finally {
+            FonteEntrada.esquecerAviso(arquivo);
+            emAndamento.remove(arquivo);
+            tabelasOcupadas.remove(tabela);
+        }
+    }
+
+    // se nem a mudança para a pasta de erros der certo, o arquivo fica na caixa até a próxima execução
+    private static void registrarErro(CaixaEntrada caixa, Path arquivo, String tabela, Exception erro) {
+        try {
+            Path destino = Files.exists(arquivo) ? mover(arquivo, caixa.erros) : caixa.erros.resolve(arquivo.getFileName());
+            StringWriter detalhe = new StringWriter();
+            try (PrintWriter saida = new PrintWriter(detalhe)) {
+                saida.println(LocalDateTime.now() + " " + arquivo + " -> " + tabela);
+                erro.printStackTrace(saida);
+            }
+            Files.write(destino.resolveSibling(destino.getFileName() + SUFIXO_ERRO), detalhe.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("❌ Não foi possível mover " + arquivo.getFileName() + " para " + caixa.erros + ": " + e.getMessage());
+        }
+    }
+
+    private static FileTime modificacao(Path arquivo) {
+        try {
+            return Files.getLastModifiedTime(arquivo);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // um nome que já existe no destino ganha a data e a hora na frente
+    private static Path mover(Path arquivo, Path pasta) throws IOException {
+        Path destino = pasta.resolve(arquivo.getFileName());
+        if (Files.exists(destino)) {
+            destino = pasta.resolve(LocalDateTime.now().format(CARIMBO) + "_" + arquivo.getFileName());
+        }
+        try {
+            return Files.move(arquivo, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(arquivo, destino);
+        }
+    }
+
+    /**
+     * Lê as caixas de um arquivo de mapeamentos, uma por linha, com a sintaxe da linha de comando sem a
+     * conexão: {@code [-add] <diretorio> <tabela> [colunas_p_ignorar...] [coluna:TIPO...] [--opcoes...]}.
+     * Linhas vazias ou começadas por {@code #} são ignoradas, aspas duplas juntam um argumento com
+     * espaços, diretórios relativos partem do diretório do arquivo e as opções da linha valem por cima
+     * de {@code opcoesGerais}.
+     */
+    static List<CaixaEntrada> lerMapeamentos(Path arquivo, Map<String, String> opcoesGerais) throws IOException {
+        if (!Files.isRegularFile(arquivo)) {
+            throw new IllegalArgumentException(arquivo + " não é um diretório nem um arquivo de mapeamentos");
+        }
+        Path base = arquivo.toAbsolutePath().getParent();
+        List<CaixaEntrada> caixas = new ArrayList<>();
+        int numero = 0;
+        for (String linha : Files.readAllLines(arquivo, StandardCharsets.UTF_8)) {
+            numero++;
+            String conteudo = linha.trim();
+            if (conteudo.isEmpty() || conteudo.startsWith("#")) continue;
+            try {
+                caixas.add(caixaDeArgumentos(dividir(conteudo), base, opcoesGerais));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(arquivo.getFileName() + ", linha " + numero + ": " + e.getMessage(), e);
+            }
+        }
+        if (caixas.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma caixa de entrada em " + arquivo);
+        }
+        return caixas;
+    }
+
+    /** Uma caixa a partir de {@code [-add] <diretorio> <tabela> [colunas_p_ignorar...] [coluna:TIPO...] [--opcoes...]}. */
+    static CaixaEntrada caixaDeArgumentos(String[] tokens, Path base, Map<String, String> opcoesGerais) {
+        Map<String, String> opcoes = new HashMap<>(opcoesGerais);
+        String[] argumentos = CSVImporter.extrairOpcoes(tokens, opcoes);
+        boolean adicionar = argumentos.length > 0 && "-add".equals(argumentos[0]);
+        int offset = adicionar ? 1 : 0;
+        if (argumentos.length < offset + 2) {
+            throw new IllegalArgumentException("Use [-add] <diretorio> <tabela> [colunas] [tipos] [--opcoes]: " + String.join(" ", tokens));
+        }
+
+        Set<String> colunasExcluidas = new HashSet<>();
+        Map<String, String> tipos = new HashMap<>();
+        CSVImporter.separarColunasETipos(argumentos, offset + 2, colunasExcluidas, tipos);
+
+        CaixaEntrada caixa = new CaixaEntrada(base.resolve(argumentos[offset]), argumentos[offset + 1]);
+        caixa.definirAdicionar(adicionar);
+        caixa.definirColunasExcluidas(colunasExcluidas);
+        caixa.definirTipos(tipos);
+        caixa.definirConfiguracao(importer -> CSVImporter.aplicarOpcoes(importer, opcoes));
+        caixa.definirPastas(
+                opcoes.containsKey("concluidos") ? caixa.diretorio.resolve(opcoes.get("concluidos")) : caixa.concluidos,
+                opcoes.containsKey("erros") ? caixa.diretorio.resolve(opcoes.get("erros")) : caixa.erros);
+        caixa.conexoes = Integer.parseInt(opcoes.getOrDefault("escritores", "1")) + 1;
+        return caixa;
+    }
+
+    // separa por espaços, com aspas duplas juntando um argumento que tem espaço
+    private static String[] dividir(String linha) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean aspas = false;
+        boolean temToken = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                aspas = !aspas;
+                temToken = true;
+            } else if (Character.isWhitespace(c) && !aspas) {
+                if (temToken) tokens.add(atual.toString());
+                atual.setLength(0);
+                temToken = false;
+            } else {
+                atual.append(c);
+                temToken = true;
+            }
+        }
+        if (aspas) throw new IllegalArgumentException("Aspas sem fechar: " + linha);
+        if (temToken) tokens.add(atual.toString());
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Um diretório vigiado e o que fazer com os arquivos que chegam nele. Por padrão a tabela é
+     * recriada a cada arquivo, como numa importação avulsa; com {@code adicionar} os registros são
+     * anexados. {@value ImportacaoMultipla#MARCADOR_ARQUIVO} na tabela dá a cada arquivo a sua.
+     */
+    public static final class CaixaEntrada {
+        private final Path diretorio;
+        private final String tabela;
+        private boolean adicionar;
+        private Set<String> colunasExcluidas = Collections.emptySet();
+        private Map<String, String> tipos = Collections.emptyMap();
+        private Consumer<CSVImporter> configuracao = importer -> { };
+        private Path concluidos;
+        private Path erros;
+        private int conexoes = 1;
+
+        public CaixaEntrada(Path diretorio, String tabela) {
+            this.diretorio = diretorio.toAbsolutePath().normalize();
+            this.tabela = Objects.requireNonNull(tabela);
+            this.concluidos = this.diretorio.resolve(PASTA_CONCLUIDOS);
+            this.erros = this.diretorio.resolve(PASTA_ERROS);
+        }
+
+        public void definirAdicionar(boolean adicionar) {
+            this.adicionar = adicionar;
+        }
+
+        public void definirColunasExcluidas(Set<String> colunasExcluidas) {
+            this.colunasExcluidas = new HashSet<>(colunasExcluidas);
+        }
+
+        public void definirTipos(Map<String, String> tipos) {
+            this.tipos = new HashMap<>(tipos);
+        }
+
+        /** Aplicada a cada {@link CSVImporter} antes de importar, com as mesmas opções de uma importação avulsa. */
+        public void definirConfiguracao(Consumer<CSVImporter> configuracao) {
+            this.configuracao = Objects.requireNonNull(configuracao);
+        }
+
+        /** Para onde vão os arquivos importados e os que falharam; por padrão, subpastas da caixa. */
+        public void definirPastas(Path concluidos, Path erros) {
+            this.concluidos = concluidos.toAbsolutePath().normalize();
+            this.erros = erros.toAbsolutePath().normalize();
+        }
+
+        /** Conexões que uma importação desta caixa usa ao mesmo tempo, pelas opções da sua linha. */
+        int conexoes() {
+            return conexoes;
+        }
+
+        String tabelaPara(Path arquivo) {
+            return tabela.contains(ImportacaoMultipla.MARCADOR_ARQUIVO) ? ImportacaoMultipla.nomeTabela(tabela, arquivo) : tabela;
+        }
+    }
+
+    // um arquivo está pronto quando o tamanho e a data ficam iguais por esperaMs
+    private static final class Pendente {
+        final CaixaEntrada caixa;
+        final Path arquivo;
+        private long tamanho = -1;
+        private long modificado;
+        private long desde;
+        private long naoAntesDe;
+
+        Pendente(CaixaEntrada caixa, Path arquivo) {
+            this.caixa = caixa;
+            this.arquivo = arquivo;
+        }
+
+        boolean pronto(long agora, long esperaMs) {
+            if (agora < naoAntesDe) return false;
+            try {
+                long tamanhoAtual = Files.size(arquivo);
+                long modificadoAtual = Files.getLastModifiedTime(arquivo).toMillis();
+                if (tamanhoAtual != tamanho || modificadoAtual != modificado) {
+                    tamanho = tamanhoAtual;
+                    modificado = modificadoAtual;
+                    desde = agora;
+                    return esperaMs == 0;
+                }
+                return agora - desde >= esperaMs;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        void adiar(long ate) {
+            naoAntesDe = ate;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package io.hdmpedro;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Importa vários CSVs (também {@code .csv.gz} e {@code .zip}) de um diretório ou de um glob numa
+ * única execução, {@code arquivosParalelos} por vez. Os arquivos dividem um pool de conexões e,
+ * quando o cabeçalho se repete, a inferência de tipos. Com {@value #MARCADOR_ARQUIVO} no nome da tabela cada arquivo vai para a sua própria
+ * tabela; sem, todos anexam numa tabela só, criada a partir do primeiro arquivo, com uma coluna
+ * dizendo de qual arquivo veio cada registro.
+ */
+public class ImportacaoMultipla {
+    public static final String COLUNA_ORIGEM_PADRAO = "arquivo_origem";
+    public static final String MARCADOR_ARQUIVO = "{arquivo}";
+    static final String AVISO_REJEITADOS = "⚠️  Com vários arquivos --rejeitados precisa ser um diretório; cada CSV grava os seus ao lado dele";
+    /** Arquivos que um diretório contribui: CSVs, compactados ou não. */
+    static final String PADRAO_ARQUIVOS = "*.{csv,CSV,csv.gz,CSV.gz,zip,ZIP}";
+    private static final int TAMANHO_MAXIMO_NOME = 64;
+
+    private final String jdbcUrl;
+    private final String usuario;
+    private final String senha;
+    private final int arquivosParalelos;
+    private final int conexoesPorArquivo;
+    private Consumer<CSVImporter> configuracao = importer -> { };
+    private String colunaOrigem = COLUNA_ORIGEM_PADRAO;
+    private volatile boolean avisouRejeitados;
+
+    /**
+     * {@code conexoesPorArquivo} é quantas conexões uma importação usa ao mesmo tempo: a principal
+     * mais uma por escritor do pipeline. O pool tem {@code arquivosParalelos * conexoesPorArquivo}
+     * conexões, para que nenhum arquivo fique esperando a conexão de outro.
+     */
+    public ImportacaoMultipla(String jdbcUrl, String usuario, String senha, int arquivosParalelos, int conexoesPorArquivo) {
+        if (arquivosParalelos < 1 || conexoesPorArquivo < 1) {
+            throw new IllegalArgumentException("Arquivos em paralelo e conexões por arquivo devem ser maiores que zero");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.usuario = usuario;
+        this.senha = senha;
+        this.arquivosParalelos = arquivosParalelos;
+        this.conexoesPorArquivo = conexoesPorArquivo;
+    }
+
+    /** Aplicada a cada {@link CSVImporter} antes de importar, com as mesmas opções de uma importação única. */
+    public void definirConfiguracao(Consumer<CSVImporter> configuracao) {
+        this.configuracao = Objects.requireNonNull(configuracao);
+    }
+
+    /** Nome da coluna com o arquivo de origem quando todos vão para a mesma tabela; {@code null} para não criar. */
+    public void definirColunaOrigem(String coluna) {
+        this.colunaOrigem = coluna;
+    }
+
+    /** Um diretório ou um caminho com curingas de glob (*, ?, [ ou {) no nome do arquivo. */
+    public static boolean ehMultipla(String origem) {
+        return Files.isDirectory(Paths.get(origem)) || nomeArquivo(origem).matches(".*[*?\\[{].*");
+    }
+
+    // o glob vale só para o nome do arquivo; o diretório é tomado como está
+    static List<Path> listarArquivos(String origem) throws IOException {
+        Path diretorio;
+        String padrao;
+        if (Files.isDirectory(Paths.get(origem))) {
+            diretorio = Paths.get(origem);
+            padrao = PADRAO_ARQUIVOS;
+        } else {
+            String nome = nomeArquivo(origem);
+            String pai = origem.substring(0, origem.length() - nome.length());
+            diretorio = Paths.get(pai.isEmpty() ? "." : pai);
+            padrao = nome;
+        }
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + padrao);
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> conteudo = Files.newDirectoryStream(diretorio)) {
+            for (Path arquivo : conteudo) {
+                if (Files.isRegularFile(arquivo) && matcher.matches(arquivo.getFileName())) {
+                    arquivos.add(arquivo);
+                }
+            }
+        }
+        if (arquivos.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum arquivo encontrado em " + origem);
+        }
+        arquivos.sort(null);
+        return arquivos;
+    }
+
+    private static String nomeArquivo(String caminho) {
+        int barra = Math.max(caminho.lastIndexOf('/'), caminho.lastIndexOf('\\'));
+        return caminho.substring(barra + 1);
+    }
+
+    // "vendas_{arquivo}" com "Março 2024.csv" (ou "Março 2024.csv.gz") vira "vendas_mar_o_2024"
+    static String nomeTabela(String destino, Path arquivo) {
+        String nome = arquivo.getFileName().toString().replaceFirst("(?i)\\.(gz|zip)$", "");
+        int ponto = nome.lastIndexOf('.');
+        String base = (ponto > 0 ? nome.substring(0, ponto) : nome)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9_]", "_");
+        String tabela = destino.replace(MARCADOR_ARQUIVO, base);
+        return tabela.length() > TAMANHO_MAXIMO_NOME ? tabela.substring(0, TAMANHO_MAXIMO_NOME) : tabela;
+    }
+
+    /**
+     * Importa todos os arquivos de {@code origem}. Com {@code adicionar} as tabelas precisam existir
+     * e só recebem os dados. Um arquivo que falha não interrompe os outros; no fim sai um resumo e,
+     * se algum falhou, uma exceção.
+     */
+    public void importar(String origem, String destino, Set<String> colunasExcluidas, Map<String, String> tipos,
+                         boolean adicionar) throws Exception {
+        List<Path> arquivos = listarArquivos(origem);
+        boolean tabelaPorArquivo = destino.contains(MARCADOR_ARQUIVO);
+        List<String> tabelas = new ArrayList<>();
+        Map<String, Path> donos = new HashMap<>();
+        for (Path arquivo : arquivos) {
+            String tabela = tabelaPorArquivo ? nomeTabela(destino, arquivo) : destino;
+            Path outro = tabelaPorArquivo ? donos.put(tabela, arquivo) : null;
+            if (outro != null) {
+                throw new IllegalArgumentException("Os arquivos " + outro.getFileName() + " e " + arquivo.getFileName()
+                        + " iriam para a mesma tabela '" + tabela + "'");
+            }
+            tabelas.add(tabela);
+        }
+
+        System.out.println("Importando " + arquivos.size() + " arquivos, " + arquivosParalelos + " por vez"
+                + (tabelaPorArquivo ? ", uma tabela por arquivo" : " na tabela '" + destino + "'"));
+
+        CacheInferencia cache = new CacheInferencia();
+        long inicio = System.currentTimeMillis();
+        List<Resultado> resultados = new ArrayList<>();
+
+        try (PoolConexoes pool = new PoolConexoes(jdbcUrl, usuario, senha, arquivosParalelos * conexoesPorArquivo)) {
+            if (!tabelaPorArquivo && !adicionar) {
+                try (CSVImporter importer = novoImportador(pool, cache, false, tipos)) {
+                    importer.prepararTabela(arquivos.stream().map(Path::toString).collect(Collectors.toList()), destino, colunasExcluidas);
+                }
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(arquivosParalelos);
+            try {
+                List<Future<Resultado>> tarefas = new ArrayList<>();
+                for (int i = 0; i < arquivos.size(); i++) {
+                    Path arquivo = arquivos.get(i);
+                    String tabela = tabelas.get(i);
+                    tarefas.add(executor.submit(() -> importarArquivo(pool, cache, arquivo, tabela, tabelaPorArquivo,
+                            colunasExcluidas, tipos, adicionar)));
+                }
+                for (Future<Resultado> tarefa : tarefas) {
+                    resultados.add(tarefa.get());
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // na tabela compartilhada os índices declarados esperam o último arquivo
+            if (!tabelaPorArquivo && resultados.stream().anyMatch(r -> r.erro == null)) {
+                try (CSVImporter importer = novoImportador(pool, cache, false, tipos)) {
+                    importer.criarIndicesDeclarados(destino);
+                }
+            }
+        }
+
+        imprimirResumo(resultados, System.currentTimeMillis() - inicio);
+        long falhas = resultados.stream().filter(r -> r.erro != null).count();
+        if (falhas > 0) {
+            throw new IllegalStateException(falhas + " de " + resultados.size() + " arquivos falharam");
+        }
+    }
+
+    private Resultado importarArquivo(PoolConexoes pool, CacheInferencia cache, Path arquivo, String tabela, boolean tabelaPorArquivo,
+                                      Set<String> colunasExcluidas, Map<String, String> tipos, boolean adicionar) {
+        Resultado resultado = new Resultado(arquivo, tabela);
+        long inicio = System.currentTimeMillis();
+        try (CSVImporter importer = novoImportador(pool, cache, tabelaPorArquivo, tipos)) {
+            if (tabelaPorArquivo && !adicionar) {
+                importer.importarCSV(arquivo.toString(), tabela, colunasExcluidas);
+            } else {
+                importer.adicionarDadosTabela(arquivo.toString(), tabela);
+            }
+            resultado.registros = importer.registrosImportados();
+        } catch (Exception e) {
+            resultado.erro = e.getMessage() != null ? e.getMessage() : e.toString();
+            System.err.println("❌ " + arquivo.getFileName() + ": " + resultado.erro);
+        }
+        resultado.ms = System.currentTimeMillis() - inicio;
+        return resultado;
+    }
+
+    // o diário é por tabela, então só acompanha arquivos que têm a sua própria
+    private CSVImporter novoImportador(PoolConexoes pool, CacheInferencia cache, boolean tabelaPorArquivo,
+                                       Map<String, String> tipos) throws Exception {
+        CSVImporter importer = new CSVImporter(pool);
+        configuracao.accept(importer);
+        if (tipos != null) importer.definirTiposPersonalizados(tipos);
+        importer.usarCacheInferencia(cache);
+        if (rejeitadosPorArquivo(importer) && !avisouRejeitados) {
+            avisouRejeitados = true;
+            System.out.println(AVISO_REJEITADOS);
+        }
+        if (!tabelaPorArquivo) {
+            importer.definirColunaOrigem(colunaOrigem);
+            importer.definirIndicesNoFim(false);
+            if (importer.gravaDiario()) {
+                System.out.println("⚠️  Vários arquivos na mesma tabela não usam o diário de importação");
+                importer.definirDiario(false, false);
+            }
+        }
+        return importer;
+    }
+
+    /**
+     * Um arquivo de rejeitados informado por nome seria sobrescrito por cada CSV, então cada um volta a
+     * gravar os seus ao lado dele. Devolve true quando o nome foi descartado.
+     */
+    static boolean rejeitadosPorArquivo(CSVImporter importer) {
+        String rejeitados = importer.arquivoRejeitados();
+        if (rejeitados == null || Files.isDirectory(Paths.get(rejeitados))) return false;
+        importer.definirArquivoRejeitados(null);
+        return true;
+    }
+
+    private static void imprimirResumo(List<Resultado> resultados, long ms) {
+        long registros = 0;
+        int sucesso = 0;
+        System.out.println("RESUMO:");
+        for (Resultado r : resultados) {
+            if (r.erro == null) {
+                sucesso++;
+                registros += r.registros;
+                System.out.println("   ✅ " + r.arquivo.getFileName() + " -> " + r.tabela + ": " + r.registros
+                        + " registros em " + r.ms + "ms");
+            } else {
+                System.out.println("   ❌ " + r.arquivo.getFileName() + " -> " + r.tabela + ": " + r.erro);
+            }
+        }
+        System.out.println("Total de " + registros + " registros de " + sucesso + "/" + resultados.size()
+                + " arquivos em " + ms + "ms");
+    }
+
+    private static final class Resultado {
+        final Path arquivo;
+        final String tabela;
+        long registros;
+        long ms;
+        String erro;
+
+        Resultado(Path arquivo, String tabela) {
+            this.arquivo = arquivo;
+            this.tabela = tabela;
+        }
+    }
+}
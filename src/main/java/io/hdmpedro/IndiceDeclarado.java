@@ -0,0 +1,72 @@
+package io.hdmpedro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Índice secundário pedido para a importação, criado só depois que os dados estão na tabela. Cada
+ * coluna pode ter um prefixo, como em {@code descricao(100)}. O nome é gerado a partir das colunas,
+ * o que permite saber se o índice já existe numa importação seguinte.
+ */
+final class IndiceDeclarado {
+    private static final int TAMANHO_MAXIMO_NOME = 64;
+
+    private final String nome;
+    private final List<String> colunas;
+    private final List<String> definicoes;
+    private final boolean unico;
+
+    private IndiceDeclarado(String nome, List<String> colunas, List<String> definicoes, boolean unico) {
+        this.nome = nome;
+        this.colunas = colunas;
+        this.definicoes = definicoes;
+        this.unico = unico;
+    }
+
+    static IndiceDeclarado de(List<String> especificacao, boolean unico) {
+        List<String> colunas = new ArrayList<>();
+        List<String> definicoes = new ArrayList<>();
+        for (String item : especificacao) {
+            String coluna = item.trim();
+            if (coluna.isEmpty()) continue;
+            int parenteses = coluna.indexOf('(');
+            if (parenteses < 0) {
+                colunas.add(coluna);
+                definicoes.add("`" + coluna + "`");
+            } else {
+                String prefixo = coluna.substring(parenteses + 1, coluna.length() - (coluna.endsWith(")") ? 1 : 0)).trim();
+                if (!prefixo.matches("\\d+")) {
+                    throw new IllegalArgumentException("Prefixo inválido no índice: " + item);
+                }
+                colunas.add(coluna.substring(0, parenteses).trim());
+                definicoes.add("`" + colunas.get(colunas.size() - 1) + "`(" + prefixo + ")");
+            }
+        }
+        if (colunas.isEmpty()) {
+            throw new IllegalArgumentException("Índice sem colunas");
+        }
+
+        String nome = (unico ? "uk_" : "idx_") + String.join("_", colunas);
+        if (nome.length() > TAMANHO_MAXIMO_NOME) nome = nome.substring(0, TAMANHO_MAXIMO_NOME);
+        return new IndiceDeclarado(nome, Collections.unmodifiableList(colunas), definicoes, unico);
+    }
+
+    String nome() {
+        return nome;
+    }
+
+    List<String> colunas() {
+        return colunas;
+    }
+
+    /** Trecho de {@code ALTER TABLE}; vários índices vão numa instrução só, numa única passada pela tabela. */
+    String clausula() {
+        return (unico ? "ADD UNIQUE KEY `" : "ADD INDEX `") + nome + "` (" + String.join(", ", definicoes) + ")";
+    }
+
+    @Override
+    public String toString() {
+        return nome + " (" + String.join(", ", colunas) + ")";
+    }
+}
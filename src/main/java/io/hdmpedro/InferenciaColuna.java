@@ -0,0 +1,170 @@
+package io.hdmpedro;
+
+/**
+ * Estado de inferência de uma coluna, atualizado valor a valor sem guardar amostras. Cada
+ * candidato (inteiro, decimal, data, booleano) só pode ser descartado, nunca reabilitado, e os
+ * limites observados (mínimo/máximo, dígitos, escala, tamanho) bastam para escolher o tipo mais
+ * estreito. Dois estados podem ser {@link #combinar(InferenciaColuna) combinados}, o que permite
+ * inferir pedaços do arquivo em paralelo.
+ */
+final class InferenciaColuna {
+
+    private static final int MAX_PRECISAO = 65;
+    private static final int MAX_ESCALA = 30;
+    private static final int MAX_VARCHAR = 1024;
+    private static final int FOLGA_DIGITOS = 4;
+    private static final int ESCALA_MINIMA_AMOSTRA = 4;
+    private static final int VARCHAR_AMOSTRA = 255;
+
+    private final boolean utf8;
+
+    private long valores;
+    private boolean inteiro = true;
+    private boolean decimal = true;
+    private boolean data = true;
+    private boolean booleano = true;
+    private boolean comHora;
+    private long minimo = Long.MAX_VALUE;
+    private long maximo = Long.MIN_VALUE;
+    private int digitosInteiros;
+    private int escala;
+    private int tamanhoMaximo;
+
+    InferenciaColuna(boolean utf8) {
+        this.utf8 = utf8;
+    }
+
+    void observar(byte[] b, int inicio, int fim) {
+        valores++;
+        int tamanho = utf8 ? caracteresUtf8(b, inicio, fim) : fim - inicio;
+        if (tamanho > tamanhoMaximo) tamanhoMaximo = tamanho;
+
+        if (inteiro || decimal) observarNumero(b, inicio, fim);
+        if (data) observarData(b, inicio, fim);
+        if (booleano && ConversorBytes.booleano(b, inicio, fim) < 0) booleano = false;
+    }
+
+    private void observarNumero(byte[] b, int inicio, int fim) {
+        int i = inicio;
+        if (i < fim && (b[i] == '-' || b[i] == '+')) i++;
+        int inicioDigitos = i;
+
+        int antesDoPonto = 0;
+        int significativos = 0;
+        int fracao = -1;
+        for (; i < fim; i++) {
+            byte c = b[i];
+            if (c == '.' && fracao < 0) {
+                fracao = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (fracao >= 0) {
+                    fracao++;
+                } else {
+                    antesDoPonto++;
+                    if (significativos > 0 || c != '0') significativos++;
+                }
+            } else {
+                descartarNumero();
+                return;
+            }
+        }
+
+        if (antesDoPonto + Math.max(fracao, 0) == 0) {
+            descartarNumero();
+            return;
+        }
+        // códigos como NCM/CEP com zero à esquerda perderiam os zeros numa coluna numérica
+        if (antesDoPonto > 1 && b[inicioDigitos] == '0') {
+            descartarNumero();
+            return;
+        }
+
+        if (fracao >= 0) {
+            inteiro = false;
+        } else if (inteiro) {
+            long valor = ConversorBytes.inteiro(b, inicio, fim);
+            if (valor == ConversorBytes.INVALIDO) {
+                inteiro = false;
+            } else {
+                if (valor < minimo) minimo = valor;
+                if (valor > maximo) maximo = valor;
+            }
+        }
+
+        if (significativos > digitosInteiros) digitosInteiros = significativos;
+        if (fracao > escala) escala = fracao;
+    }
+
+    private void descartarNumero() {
+        inteiro = false;
+        decimal = false;
+    }
+
+    private void observarData(byte[] b, int inicio, int fim) {
+        if (ConversorBytes.dataBr(b, inicio, fim) >= 0) return;
+        if (fim - inicio == 10 && ConversorBytes.dataIso(b, inicio, fim) >= 0) return;
+        if (ConversorBytes.horaIso(b, inicio, fim) >= 0 && ConversorBytes.dataIso(b, inicio, fim) >= 0) {
+            comHora = true;
+            return;
+        }
+        data = false;
+    }
+
+    private static int caracteresUtf8(byte[] b, int inicio, int fim) {
+        int caracteres = 0;
+        for (int i = inicio; i < fim; i++) {
+            if ((b[i] & 0xC0) != 0x80) caracteres++;
+        }
+        return caracteres;
+    }
+
+    void combinar(InferenciaColuna outra) {
+        valores += outra.valores;
+        inteiro &= outra.inteiro;
+        decimal &= outra.decimal;
+        data &= outra.data;
+        booleano &= outra.booleano;
+        comHora |= outra.comHora;
+        minimo = Math.min(minimo, outra.minimo);
+        maximo = Math.max(maximo, outra.maximo);
+        digitosInteiros = Math.max(digitosInteiros, outra.digitosInteiros);
+        escala = Math.max(escala, outra.escala);
+        tamanhoMaximo = Math.max(tamanhoMaximo, outra.tamanhoMaximo);
+    }
+
+    long valores() {
+        return valores;
+    }
+
+    /**
+     * Tipo SQL mais estreito para o que foi observado. Com {@code exaustivo} todos os valores da
+     * coluna passaram por aqui e os limites são exatos; numa amostra os tamanhos ganham folga (a
+     * escala decimal não fica abaixo de {@value #ESCALA_MINIMA_AMOSTRA} casas) e os inteiros não
+     * descem abaixo de INT, porque um valor maior ou mais preciso pode aparecer depois.
+     */
+    String tipoSql(boolean exaustivo) {
+        if (valores == 0) return "TEXT";
+
+        if (inteiro) {
+            if (exaustivo && minimo >= Byte.MIN_VALUE && maximo <= Byte.MAX_VALUE) return "TINYINT";
+            if (exaustivo && minimo >= Short.MIN_VALUE && maximo <= Short.MAX_VALUE) return "SMALLINT";
+            return minimo >= Integer.MIN_VALUE && maximo <= Integer.MAX_VALUE ? "INT" : "BIGINT";
+        }
+
+        if (decimal) {
+            int digitos = exaustivo ? digitosInteiros : digitosInteiros + FOLGA_DIGITOS;
+            int casas = exaustivo ? escala : Math.max(escala, ESCALA_MINIMA_AMOSTRA);
+            int precisao = Math.max(1, digitos + casas);
+            if (precisao <= MAX_PRECISAO && casas <= MAX_ESCALA) {
+                return "DECIMAL(" + precisao + "," + casas + ")";
+            }
+        }
+
+        if (data) return comHora ? "DATETIME" : "DATE";
+        if (booleano) return "BOOLEAN";
+
+        if (tamanhoMaximo > MAX_VARCHAR) return "TEXT";
+        int tamanho = exaustivo ? Math.max(1, tamanhoMaximo) : Math.min(MAX_VARCHAR, Math.max(VARCHAR_AMOSTRA, tamanhoMaximo * 2));
+        return "VARCHAR(" + tamanho + ")";
+    }
+}
@@ -0,0 +1,173 @@
+package io.hdmpedro;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Percorre os registros alimentando um {@link InferenciaColuna} por coluna. Na amostra inicial
+ * lê só os primeiros registros; no reservatório sorteia uma amostra de tamanho fixo do arquivo
+ * inteiro (algoritmo R); no modo completo corta o arquivo em blocos e infere cada bloco em uma
+ * thread, combinando os estados no final.
+ */
+final class InferenciaTipos {
+
+    private static final int REGISTROS_POR_BLOCO = 4096;
+
+    private final String[] colunas;
+    private final int[] indices;
+    private final boolean utf8;
+
+    InferenciaTipos(String[] cabecalhos, Iterable<String> colunas, Charset charset) {
+        Map<String, Integer> selecionadas = new LinkedHashMap<>();
+        for (String coluna : colunas) {
+            selecionadas.put(coluna, Arrays.asList(cabecalhos).indexOf(coluna));
+        }
+        this.colunas = selecionadas.keySet().toArray(new String[0]);
+        this.indices = selecionadas.values().stream().mapToInt(Integer::intValue).toArray();
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+    }
+
+    Map<String, String> inferir(TokenizadorCSV registros, ModoInferencia modo, int tamanhoAmostra, int threads) throws IOException {
+        return tipos(estados(registros, modo, tamanhoAmostra, threads), modo == ModoInferencia.COMPLETO);
+    }
+
+    /** Estados por coluna, na ordem das colunas, que podem ser combinados com os de outro arquivo. */
+    InferenciaColuna[] estados(TokenizadorCSV registros, ModoInferencia modo, int tamanhoAmostra, int threads) throws IOException {
+        InferenciaColuna[] estados;
+        switch (modo) {
+            case RESERVATORIO:
+                estados = inferirReservatorio(registros, tamanhoAmostra);
+                break;
+            case COMPLETO:
+                estados = inferirCompleto(registros, threads);
+                break;
+            default:
+                estados = novosEstados();
+                for (int n = 0; n < tamanhoAmostra && registros.proximo(); n++) {
+                    observar(registros, estados);
+                }
+                break;
+        }
+        return estados;
+    }
+
+    Map<String, String> tipos(InferenciaColuna[] estados, boolean exaustivo) {
+        Map<String, String> tipos = new LinkedHashMap<>();
+        for (int i = 0; i < colunas.length; i++) {
+            tipos.put(colunas[i], estados[i].tipoSql(exaustivo));
+        }
+        return tipos;
+    }
+
+    private InferenciaColuna[] novosEstados() {
+        InferenciaColuna[] estados = new InferenciaColuna[colunas.length];
+        for (int i = 0; i < estados.length; i++) {
+            estados[i] = new InferenciaColuna(utf8);
+        }
+        return estados;
+    }
+
+    private void observar(RegistroCSV registro, InferenciaColuna[] estados) {
+        byte[] bytes = registro.bytes();
+        for (int i = 0; i < indices.length; i++) {
+            int campo = indices[i];
+            if (campo >= 0 && !registro.vazio(campo)) {
+                estados[i].observar(bytes, registro.inicio(campo), registro.fim(campo));
+            }
+        }
+    }
+
+    private InferenciaColuna[] inferirReservatorio(TokenizadorCSV registros, int tamanho) throws IOException {
+        // cada posição guarda uma cópia só dos campos selecionados; null quando o campo é vazio
+        byte[][][] amostra = new byte[tamanho][][];
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long vistos = 0;
+
+        while (registros.proximo()) {
+            long posicao = vistos < tamanho ? vistos : aleatorio.nextLong(vistos + 1);
+            vistos++;
+            if (posicao < tamanho) {
+                amostra[(int) posicao] = copiarCampos(registros);
+            }
+        }
+
+        InferenciaColuna[] estados = novosEstados();
+        for (byte[][] campos : amostra) {
+            if (campos == null) break;
+            for (int i = 0; i < campos.length; i++) {
+                if (campos[i] != null) estados[i].observar(campos[i], 0, campos[i].length);
+            }
+        }
+        return estados;
+    }
+
+    private byte[][] copiarCampos(RegistroCSV registro) {
+        byte[][] campos = new byte[indices.length][];
+        for (int i = 0; i < indices.length; i++) {
+            int campo = indices[i];
+            if (campo >= 0 && !registro.vazio(campo)) {
+                campos[i] = Arrays.copyOfRange(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+            }
+        }
+        return campos;
+    }
+
+    private InferenciaColuna[] inferirCompleto(TokenizadorCSV registros, int threads) throws IOException {
+        InferenciaColuna[] estados = novosEstados();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CompletionService<InferenciaColuna[]> parciais = new ExecutorCompletionService<>(executor);
+        int pendentes = 0;
+
+        try {
+            TokenizadorCSV.Bloco bloco;
+            while ((bloco = registros.proximoBloco(REGISTROS_POR_BLOCO)) != null) {
+                TokenizadorCSV.Bloco atual = bloco;
+                parciais.submit(() -> {
+                    InferenciaColuna[] locais = novosEstados();
+                    TokenizadorCSV tokenizador = new TokenizadorCSV(atual, registros.charset(), registros.separador());
+                    while (tokenizador.proximo()) {
+                        observar(tokenizador, locais);
+                    }
+                    return locais;
+                });
+                pendentes++;
+
+                // no máximo dois blocos por thread em memória
+                if (pendentes >= threads * 2) {
+                    combinar(estados, parciais.take());
+                    pendentes--;
+                }
+            }
+            for (; pendentes > 0; pendentes--) {
+                combinar(estados, parciais.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Inferência interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Falha na inferência de tipos: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return estados;
+    }
+
+    private static void combinar(InferenciaColuna[] estados, Future<InferenciaColuna[]> parcial)
+            throws InterruptedException, ExecutionException {
+        InferenciaColuna[] locais = parcial.get();
+        for (int i = 0; i < estados.length; i++) {
+            estados[i].combinar(locais[i]);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.hdmpedro;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Gera {@code INSERT ... VALUES (...),(...),...} com o número de linhas por instrução limitado pelo
+ * {@code max_allowed_packet} do servidor e pelo limite de 65535 placeholders. Os PreparedStatements
+ * de cada formato (quantidade de linhas) ficam em cache e são reutilizados. Um {@code sufixoSql}
+ * não vazio, como um {@code ON DUPLICATE KEY UPDATE}, vai depois da última tupla.
+ */
+class InsercaoMultiLinhas implements AutoCloseable {
+
+    interface VinculadorLinha {
+        void vincular(PreparedStatement pstmt, int deslocamento, RegistroCSV registro) throws SQLException;
+    }
+
+    private static final int MAX_PLACEHOLDERS = 65535;
+    private static final int MAX_FORMATOS_CACHE = 8;
+    private static final long PACOTE_PADRAO = 4L * 1024 * 1024;
+
+    private final Connection conexao;
+    private final String prefixoSql;
+    private final String sufixoSql;
+    private final String tuplaPlaceholders;
+    private final int quantidadeColunas;
+    private final int limiteLinhas;
+    private final long orcamentoBytes;
+    private final VinculadorLinha vinculador;
+    private MetricasImportacao metricas;
+    private final Map<Integer, PreparedStatement> instrucoes = new LinkedHashMap<Integer, PreparedStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, PreparedStatement> maisAntiga) {
+            if (size() <= MAX_FORMATOS_CACHE) return false;
+            fecharSilenciosamente(maisAntiga.getValue());
+            return true;
+        }
+    };
+
+    private LoteRegistros pendentes;
+    private int linhasPorInstrucao;
+    private long bytesPendentes;
+
+    InsercaoMultiLinhas(Connection conexao, String nomeTabela, List<String> colunas, String sufixoSql, int limiteLinhas,
+                        VinculadorLinha vinculador) throws SQLException {
+        this.conexao = conexao;
+        this.quantidadeColunas = colunas.size();
+        this.limiteLinhas = Math.max(1, Math.min(limiteLinhas, MAX_PLACEHOLDERS / quantidadeColunas));
+        this.vinculador = vinculador;
+        this.prefixoSql = "INSERT INTO `" + nomeTabela + "` ("
+                + colunas.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", ")) + ") VALUES ";
+        this.sufixoSql = sufixoSql;
+        this.tuplaPlaceholders = "(" + String.join(", ", Collections.nCopies(quantidadeColunas, "?")) + ")";
+        // metade do pacote fica de folga para escapes e para a conversão de charset feita pelo driver
+        this.orcamentoBytes = obterMaxAllowedPacket(conexao) / 2 - prefixoSql.length() - sufixoSql.length();
+    }
+
+    /** Registra a vinculação e o {@code executeUpdate} de cada instrução gerada. */
+    void medir(MetricasImportacao metricas) {
+        this.metricas = metricas;
+    }
+
+    int linhasPorInstrucao() {
+        return linhasPorInstrucao;
+    }
+
+    /** Linhas recebidas por {@link #adicionar} que ainda não foram gravadas. */
+    int pendentes() {
+        return pendentes == null ? 0 : pendentes.tamanho();
+    }
+
+    /** @return quantidade de linhas gravadas por esta chamada (0 se a linha só ficou pendente) */
+    int adicionar(RegistroCSV registro) throws SQLException {
+        long bytesLinha = estimarBytes(registro);
+        if (pendentes == null) {
+            pendentes = new LoteRegistros(registro.charset());
+            linhasPorInstrucao = (int) Math.max(1, Math.min(limiteLinhas, orcamentoBytes / bytesLinha));
+        }
+        int gravadas = 0;
+        if (pendentes.tamanho() > 0 && bytesPendentes + bytesLinha > orcamentoBytes) {
+            gravadas += descarregar();
+        }
+
+        pendentes.adicionar(registro);
+        bytesPendentes += bytesLinha;
+        if (pendentes.tamanho() == linhasPorInstrucao) {
+            gravadas += descarregar();
+        }
+        return gravadas;
+    }
+
+    int descarregar() throws SQLException {
+        if (pendentes == null || pendentes.tamanho() == 0) return 0;
+
+        int gravadas = pendentes.tamanho();
+        PreparedStatement pstmt = instrucao(gravadas);
+        long inicio = System.nanoTime();
+        for (int r = 0; r < gravadas; r++) {
+            pendentes.posicionar(r);
+            vinculador.vincular(pstmt, r * quantidadeColunas, pendentes);
+        }
+        long vinculado = System.nanoTime();
+        pstmt.executeUpdate();
+        if (metricas != null) {
+            metricas.fase(MetricasImportacao.Fase.VINCULACAO, vinculado - inicio, gravadas);
+            metricas.fase(MetricasImportacao.Fase.EXECUCAO, System.nanoTime() - vinculado, gravadas);
+        }
+
+        pendentes.limpar();
+        bytesPendentes = 0;
+        return gravadas;
+    }
+
+    private PreparedStatement instrucao(int linhas) throws SQLException {
+        PreparedStatement pstmt = instrucoes.get(linhas);
+        if (pstmt == null) {
+            StringBuilder sql = new StringBuilder(prefixoSql.length() + linhas * (tuplaPlaceholders.length() + 1) + sufixoSql.length());
+            sql.append(prefixoSql);
+            for (int i = 0; i < linhas; i++) {
+                if (i > 0) sql.append(',');
+                sql.append(tuplaPlaceholders);
+            }
+            sql.append(sufixoSql);
+            pstmt = conexao.prepareStatement(sql.toString());
+            instrucoes.put(linhas, pstmt);
+        }
+        return pstmt;
+    }
+
+    // pior caso por valor: cada caractere vira até 4 bytes com escape, mais aspas e vírgula
+    private long estimarBytes(RegistroCSV registro) {
+        long bytes = tuplaPlaceholders.length() + 1;
+        for (int c = 0; c < registro.quantidadeCampos(); c++) {
+            bytes += (registro.fim(c) - registro.inicio(c)) * 4L + 4;
+        }
+        return bytes;
+    }
+
+    private static long obterMaxAllowedPacket(Connection conexao) {
+        try (Statement stmt = conexao.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+            if (rs.next()) {
+                return Long.parseLong(rs.getString(1));
+            }
+        } catch (SQLException | NumberFormatException e) {
+            System.out.println("⚠️  max_allowed_packet indisponível (" + e.getMessage() + "), usando " + PACOTE_PADRAO);
+        }
+        return PACOTE_PADRAO;
+    }
+
+    private static void fecharSilenciosamente(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        Iterator<PreparedStatement> it = instrucoes.values().iterator();
+        while (it.hasNext()) {
+            fecharSilenciosamente(it.next());
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package io.hdmpedro;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Parse paralelo de um arquivo inteiro mapeado em memória. O trecho de dados é dividido em faixas
+ * de bytes e, num pool fork/join, cada faixa é percorrida a partir de cada estado de aspas possível
+ * do {@link TokenizadorCSV#avancar tokenizador}, guardando o estado final e o primeiro fim de
+ * registro. Encadeando os estados finais, cada faixa passa a começar no primeiro registro que de fato
+ * começa nela, com a mesma regra de aspas do parse: aspas no meio de um campo não contam. Cada faixa
+ * alinhada é então cortada em blocos de registros inteiros e separada em campos por uma thread do
+ * pool, sem uma thread única lendo o arquivo.
+ *
+ * <p>Vale o mesmo que para o {@link TokenizadorCSV}: o charset detectado precisa ser compatível com
+ * ASCII, para que aspas, separador e quebra de linha nunca apareçam dentro de um caractere.
+ */
+final class LeituraMapeada {
+
+    /**
+     * Recebe os lotes já separados em campos; pode bloquear quando a etapa seguinte está cheia.
+     * Devolve false para interromper a leitura.
+     */
+    interface Destino {
+        boolean entregar(LoteRegistros lote) throws InterruptedException;
+    }
+
+    /** Faixa do arquivo que começa no início de um registro, na linha física {@code linha}. */
+    static final class Trecho {
+        final long inicio;
+        final long fim;
+        final long linha;
+
+        Trecho(long inicio, long fim, long linha) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.linha = linha;
+        }
+    }
+
+    // uma faixa precisa caber num único MappedByteBuffer
+    private static final long MAXIMO_FAIXA = 1L << 30;
+    private static final int FAIXAS_POR_THREAD = 4;
+    private static final int TAMANHO_JANELA = 64 * 1024;
+    private static final byte LF = '\n';
+    private static final LoteRegistros FIM_TRECHO = new LoteRegistros(null);
+
+    private final Path arquivo;
+    private final Charset charset;
+    private final char separador;
+    private final int paralelismo;
+    private final boolean ordenada;
+    private final int profundidadeFila;
+    private final MetricasImportacao metricas;
+    private volatile boolean cancelada;
+
+    LeituraMapeada(Path arquivo, Charset charset, char separador, int paralelismo, boolean ordenada,
+                   int profundidadeFila, MetricasImportacao metricas) {
+        this.arquivo = arquivo;
+        this.charset = charset;
+        this.separador = separador;
+        this.paralelismo = paralelismo;
+        this.ordenada = ordenada;
+        this.profundidadeFila = profundidadeFila;
+        this.metricas = metricas;
+    }
+
+    /**
+     * Lê do byte {@code inicio} (primeiro registro de dados, na linha {@code linhaInicial}) até o fim
+     * do arquivo e entrega os lotes ao destino. Com {@code ordenada} os lotes chegam na ordem do
+     * arquivo; sem, na ordem em que cada faixa termina o parse.
+     */
+    void executar(long inicio, long linhaInicial, IntSupplier tamanhoLote, Destino destino)
+            throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            List<Trecho> trechos = dividir(canal, pool, inicio, linhaInicial);
+            if (ordenada) {
+                analisarEmOrdem(canal, pool, trechos, tamanhoLote, destino);
+            } else {
+                List<Callable<Void>> tarefas = new ArrayList<>();
+                for (Trecho trecho : trechos) {
+                    tarefas.add(() -> {
+                        analisar(canal, trecho, tamanhoLote, destino);
+                        return null;
+                    });
+                }
+                aguardar(pool.invokeAll(tarefas));
+            }
+        } finally {
+            cancelada = true;
+            pool.shutdownNow();
+        }
+    }
+
+    /** Faixas alinhadas a registros cobrindo {@code [inicio, tamanho do arquivo)}. */
+    List<Trecho> dividir(FileChannel canal, ForkJoinPool pool, long inicio, long linhaInicial)
+            throws IOException, InterruptedException {
+        long tamanho = canal.size();
+        if (inicio >= tamanho) return new ArrayList<>();
+
+        long dados = tamanho - inicio;
+        int faixas = (int) Math.max(Math.min(paralelismo * FAIXAS_POR_THREAD, Math.max(1, dados / TAMANHO_JANELA)),
+                (dados + MAXIMO_FAIXA - 1) / MAXIMO_FAIXA);
+        long[] brutos = new long[faixas + 1];
+        for (int i = 0; i <= faixas; i++) {
+            brutos[i] = inicio + dados * i / faixas;
+        }
+
+        // cada faixa é percorrida a partir de todos os estados de aspas possíveis, em paralelo
+        byte sep = (byte) separador;
+        List<Callable<Contagem>> contagens = new ArrayList<>();
+        for (int i = 0; i < faixas; i++) {
+            long de = brutos[i];
+            long ate = brutos[i + 1];
+            contagens.add(() -> contar(canal, de, ate, sep));
+        }
+        List<Contagem> porFaixa = aguardar(pool.invokeAll(contagens));
+
+        // o estado real no início de cada faixa sai do fim da anterior; com ele, o primeiro registro dela
+        List<long[]> inicios = new ArrayList<>();
+        int estado = TokenizadorCSV.INICIO_CAMPO;
+        long linhas = linhaInicial;
+        for (int i = 0; i < faixas; i++) {
+            Contagem contagem = porFaixa.get(i);
+            if (i == 0) {
+                inicios.add(new long[]{inicio, linhaInicial});
+            } else if (contagem.corte[estado] >= 0) {
+                inicios.add(new long[]{contagem.corte[estado], linhas + contagem.linhasAteCorte[estado]});
+            }
+            linhas += contagem.linhas;
+            estado = contagem.estadoFinal[estado];
+        }
+
+        List<Trecho> trechos = new ArrayList<>();
+        for (int i = 0; i < inicios.size(); i++) {
+            long de = inicios.get(i)[0];
+            long ate = i + 1 < inicios.size() ? inicios.get(i + 1)[0] : tamanho;
+            if (ate > de) {
+                if (ate - de > Integer.MAX_VALUE) {
+                    throw new IOException("Registro com mais de 2 GB a partir do byte " + de + ", impossível mapear");
+                }
+                trechos.add(new Trecho(de, ate, inicios.get(i)[1]));
+            }
+        }
+        return trechos;
+    }
+
+    /**
+     * Resultado de {@link #contar} para uma faixa bruta, indexado pelo estado de aspas
+     * ({@link TokenizadorCSV#avancar}) em que a faixa começa.
+     */
+    private static final class Contagem {
+        final int[] estadoFinal = new int[TokenizadorCSV.ESTADOS];
+        // offset logo depois do primeiro \n fora de aspas, ou -1
+        final long[] corte = new long[TokenizadorCSV.ESTADOS];
+        final long[] linhasAteCorte = new long[TokenizadorCSV.ESTADOS];
+        long linhas;
+    }
+
+    private static Contagem contar(FileChannel canal, long de, long ate, byte separador) throws IOException {
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, de, ate - de);
+        byte[] janela = new byte[TAMANHO_JANELA];
+        Contagem contagem = new Contagem();
+        int[] estados = contagem.estadoFinal;
+        for (int e = 0; e < estados.length; e++) {
+            estados[e] = e;
+        }
+        Arrays.fill(contagem.corte, -1);
+        int semCorte = estados.length;
+        long posicao = de;
+        long linhas = 0;
+
+        while (mapa.hasRemaining()) {
+            int quantidade = Math.min(janela.length, mapa.remaining());
+            mapa.get(janela, 0, quantidade);
+            // depois que todos acharam o corte e convergiram para o mesmo estado, basta seguir um só
+            if (semCorte == 0 && convergiu(estados)) {
+                int estado = estados[0];
+                for (int i = 0; i < quantidade; i++) {
+                    byte b = janela[i];
+                    if (b == LF) linhas++;
+                    estado = TokenizadorCSV.avancar(estado, b, separador);
+                }
+                Arrays.fill(estados, estado);
+            } else {
+                for (int i = 0; i < quantidade; i++) {
+                    byte b = janela[i];
+                    if (b == LF) linhas++;
+                    for (int e = 0; e < estados.length; e++) {
+                        if (b == LF && estados[e] != TokenizadorCSV.ENTRE_ASPAS && contagem.corte[e] < 0) {
+                            contagem.corte[e] = posicao + i + 1;
+                            contagem.linhasAteCorte[e] = linhas;
+                            semCorte--;
+                        }
+                        estados[e] = TokenizadorCSV.avancar(estados[e], b, separador);
+                    }
+                }
+            }
+            posicao += quantidade;
+        }
+        contagem.linhas = linhas;
+        return contagem;
+    }
+
+    private static boolean convergiu(int[] estados) {
+        for (int e = 1; e < estados.length; e++) {
+            if (estados[e] != estados[0]) return false;
+        }
+        return true;
+    }
+
+    // cada faixa tem a sua fila; a thread chamadora esvazia uma de cada vez, na ordem do arquivo
+    private void analisarEmOrdem(FileChannel canal, ForkJoinPool pool, List<Trecho> trechos, IntSupplier tamanhoLote,
+                                 Destino destino) throws IOException, InterruptedException {
+        List<BlockingQueue<LoteRegistros>> filas = new ArrayList<>();
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int i = 0; i < trechos.size(); i++) {
+            filas.add(new ArrayBlockingQueue<>(profundidadeFila + 1));
+        }
+
+        try {
+            // só há 'paralelismo' faixas em andamento: uma nova começa quando a mais antiga é esvaziada
+            for (int i = 0; i < trechos.size(); i++) {
+                if (i == 0) {
+                    for (int j = 0; j < Math.min(paralelismo, trechos.size()); j++) {
+                        tarefas.add(submeter(canal, pool, trechos.get(j), tamanhoLote, filas.get(j)));
+                    }
+                } else if (i + paralelismo - 1 < trechos.size()) {
+                    int proxima = i + paralelismo - 1;
+                    tarefas.add(submeter(canal, pool, trechos.get(proxima), tamanhoLote, filas.get(proxima)));
+                }
+
+                BlockingQueue<LoteRegistros> fila = filas.get(i);
+                Future<?> tarefa = tarefas.get(i);
+                while (true) {
+                    LoteRegistros lote = fila.poll(100, TimeUnit.MILLISECONDS);
+                    if (lote == null) {
+                        if (tarefa.isDone() && fila.isEmpty()) aguardar(List.of(tarefa));
+                        continue;
+                    }
+                    if (lote == FIM_TRECHO) break;
+                    if (!destino.entregar(lote)) return;
+                }
+            }
+        } finally {
+            for (Future<?> tarefa : tarefas) {
+                tarefa.cancel(true);
+            }
+        }
+    }
+
+    private Future<?> submeter(FileChannel canal, ForkJoinPool pool, Trecho trecho, IntSupplier tamanhoLote,
+                               BlockingQueue<LoteRegistros> fila) {
+        return pool.submit(() -> {
+            analisar(canal, trecho, tamanhoLote, lote -> colocar(fila, lote));
+            colocar(fila, FIM_TRECHO);
+            return null;
+        });
+    }
+
+    // espera curta para que uma faixa não fique presa na fila depois que a leitura foi interrompida
+    private boolean colocar(BlockingQueue<LoteRegistros> fila, LoteRegistros lote) throws InterruptedException {
+        while (!cancelada) {
+            if (fila.offer(lote, 100, TimeUnit.MILLISECONDS)) return true;
+        }
+        return false;
+    }
+
+    /** Corta a faixa em blocos de até {@code tamanhoLote} registros e separa os campos de cada um. */
+    private void analisar(FileChannel canal, Trecho trecho, IntSupplier tamanhoLote, Destino destino)
+            throws IOException, InterruptedException {
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, trecho.inicio, trecho.fim - trecho.inicio);
+        // o corte em blocos é o mesmo do leitor sequencial, só que lendo do mapeamento desta faixa
+        TokenizadorCSV faixa = new TokenizadorCSV(new EntradaMapeada(mapa), charset, trecho.inicio, trecho.linha);
+        faixa.definirSeparador(separador);
+        faixa.medir(metricas);
+
+        TokenizadorCSV.Bloco bloco;
+        while ((bloco = faixa.proximoBloco(tamanhoLote.getAsInt())) != null) {
+            long inicio = System.nanoTime();
+            LoteRegistros lote = new LoteRegistros(bloco, charset);
+            TokenizadorCSV tokenizador = new TokenizadorCSV(bloco, charset, separador);
+            while (tokenizador.proximo()) {
+                lote.adicionar(tokenizador);
+            }
+            metricas.fase(MetricasImportacao.Fase.PARSE, System.nanoTime() - inicio, lote.tamanho());
+            if (lote.tamanho() > 0 && !destino.entregar(lote)) return;
+        }
+    }
+
+    private static <T> List<T> aguardar(List<? extends Future<T>> tarefas) throws IOException, InterruptedException {
+        List<T> resultados = new ArrayList<>(tarefas.size());
+        for (Future<T> tarefa : tarefas) {
+            try {
+                resultados.add(tarefa.get());
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof IOException) throw (IOException) causa;
+                if (causa instanceof InterruptedException) throw (InterruptedException) causa;
+                if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+                if (causa instanceof Error) throw (Error) causa;
+                throw new IOException(causa);
+            }
+        }
+        return resultados;
+    }
+
+    /** Entrada sobre um trecho mapeado; a leitura copia direto das páginas do arquivo. */
+    private static final class EntradaMapeada extends InputStream {
+        private final ByteBuffer mapa;
+
+        EntradaMapeada(ByteBuffer mapa) {
+            this.mapa = mapa;
+        }
+
+        @Override
+        public int read() {
+            return mapa.hasRemaining() ? mapa.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int tamanho) {
+            if (tamanho == 0) return 0;
+            if (!mapa.hasRemaining()) return -1;
+            int quantidade = Math.min(tamanho, mapa.remaining());
+            mapa.get(destino, inicio, quantidade);
+            return quantidade;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.hdmpedro;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Lote de registros guardado como offsets de campos sobre um único array de bytes. Quando o
+ * registro adicionado já aponta para esse array (tokenizador de um {@link TokenizadorCSV.Bloco})
+ * só os offsets são copiados; caso contrário os bytes dos campos vão para a área própria do lote.
+ * Para ler, {@link #posicionar(int)} escolhe o registro exposto pela visão {@link RegistroCSV}.
+ */
+final class LoteRegistros implements RegistroCSV {
+
+    private final Charset charset;
+    private byte[] dados;
+    private int usados;
+    private final long bytesOrigem;
+
+    private int registros;
+    private int[] primeiroCampo = new int[65];
+    private long[] linhas = new long[64];
+    private int totalCampos;
+    private int[] inicios = new int[512];
+    private int[] fins = new int[512];
+    private boolean[] escapados = new boolean[512];
+
+    private int atual;
+    private int deslocamentoAtual;
+    private int camposAtual;
+
+    LoteRegistros(Charset charset) {
+        this.charset = charset;
+        this.dados = new byte[16 * 1024];
+        this.bytesOrigem = 0;
+    }
+
+    LoteRegistros(TokenizadorCSV.Bloco bloco, Charset charset) {
+        this.charset = charset;
+        this.dados = bloco.dados;
+        this.usados = bloco.dados.length;
+        this.bytesOrigem = bloco.dados.length;
+    }
+
+    void adicionar(RegistroCSV registro) {
+        int quantidade = registro.quantidadeCampos();
+        garantirRegistros(registros + 1);
+        garantirCampos(totalCampos + quantidade);
+
+        byte[] origem = registro.bytes();
+        boolean copiar = origem != dados;
+        for (int c = 0; c < quantidade; c++) {
+            int inicio = registro.inicio(c);
+            int fim = registro.fim(c);
+            if (copiar) {
+                int tamanho = fim - inicio;
+                if (usados + tamanho > dados.length) {
+                    dados = Arrays.copyOf(dados, Math.max(dados.length * 2, usados + tamanho));
+                }
+                System.arraycopy(origem, inicio, dados, usados, tamanho);
+                inicio = usados;
+                fim = usados + tamanho;
+                usados = fim;
+            }
+            inicios[totalCampos] = inicio;
+            fins[totalCampos] = fim;
+            escapados[totalCampos] = registro.escapado(c);
+            totalCampos++;
+        }
+
+        linhas[registros] = registro.linha();
+        registros++;
+        primeiroCampo[registros] = totalCampos;
+    }
+
+    int tamanho() {
+        return registros;
+    }
+
+    /** Tamanho no CSV do bloco de onde vieram os registros; 0 quando o lote copiou os campos. */
+    long bytesOrigem() {
+        return bytesOrigem;
+    }
+
+    /** Quantidade de bytes de campos guardados (aproximação do tamanho do lote). */
+    long bytesCampos() {
+        long total = 0;
+        for (int i = 0; i < totalCampos; i++) {
+            total += fins[i] - inicios[i];
+        }
+        return total;
+    }
+
+    void posicionar(int registro) {
+        atual = registro;
+        deslocamentoAtual = primeiroCampo[registro];
+        camposAtual = primeiroCampo[registro + 1] - deslocamentoAtual;
+    }
+
+    void limpar() {
+        registros = 0;
+        totalCampos = 0;
+        usados = 0;
+    }
+
+    private void garantirRegistros(int quantidade) {
+        if (quantidade + 1 > primeiroCampo.length) {
+            primeiroCampo = Arrays.copyOf(primeiroCampo, primeiroCampo.length * 2);
+            linhas = Arrays.copyOf(linhas, primeiroCampo.length);
+        }
+    }
+
+    private void garantirCampos(int quantidade) {
+        if (quantidade > inicios.length) {
+            int novo = Math.max(inicios.length * 2, quantidade);
+            inicios = Arrays.copyOf(inicios, novo);
+            fins = Arrays.copyOf(fins, novo);
+            escapados = Arrays.copyOf(escapados, novo);
+        }
+    }
+
+    @Override
+    public int quantidadeCampos() {
+        return camposAtual;
+    }
+
+    @Override
+    public byte[] bytes() {
+        return dados;
+    }
+
+    @Override
+    public int inicio(int campo) {
+        return inicios[deslocamentoAtual + campo];
+    }
+
+    @Override
+    public int fim(int campo) {
+        return fins[deslocamentoAtual + campo];
+    }
+
+    @Override
+    public boolean escapado(int campo) {
+        return escapados[deslocamentoAtual + campo];
+    }
+
+    @Override
+    public Charset charset() {
+        return charset;
+    }
+
+    @Override
+    public long linha() {
+        return linhas[atual];
+    }
+}
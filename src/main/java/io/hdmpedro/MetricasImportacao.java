@@ -0,0 +1,391 @@
+package io.hdmpedro;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores e histogramas de latência de uma importação. Quem mede acumula localmente e registra
+ * uma vez por lote (ou por leitura do arquivo), então o custo no laço de inserção é de dois
+ * {@code nanoTime} por registro. Tudo é seguro para as threads do pipeline sem locks: contadores em
+ * {@link LongAdder} e histogramas com faixas atômicas. Enquanto a importação roda as métricas ficam
+ * no JMX, e cada medição vira também um evento JFR da categoria {@code CSVImporter}.
+ */
+final class MetricasImportacao implements MetricasImportacaoMXBean, AutoCloseable {
+
+    enum Fase {
+        LEITURA, PARSE, VINCULACAO, EXECUCAO, COMMIT
+    }
+
+    private static final long INTERVALO_AVISO_NS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String tabela;
+    private final PlanoImportacao plano;
+    private final long inicio = System.nanoTime();
+    private final LongAdder registros = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Histograma[] histogramas = new Histograma[Fase.values().length];
+    private final AtomicLong ultimoAviso = new AtomicLong(inicio);
+
+    private ObjectName nome;
+    private ScheduledExecutorService agendador;
+    private volatile long fim;
+
+    MetricasImportacao(String tabela, PlanoImportacao plano) {
+        this.tabela = tabela;
+        this.plano = plano;
+        for (int i = 0; i < histogramas.length; i++) {
+            histogramas[i] = new Histograma();
+        }
+    }
+
+    /**
+     * Publica no JMX e, com {@code intervaloSegundos > 0}, imprime uma linha {@code PROGRESSO} a cada intervalo.
+     * Com {@code arquivo}, o nome JMX ganha a chave {@code arquivo}, para que vários arquivos carregados na
+     * mesma tabela ao mesmo tempo não disputem o mesmo nome.
+     */
+    void iniciar(int intervaloSegundos, String arquivo) {
+        try {
+            String chaves = "io.hdmpedro:type=CSVImporter,tabela=" + ObjectName.quote(tabela);
+            if (arquivo != null) chaves += ",arquivo=" + ObjectName.quote(arquivo);
+            ObjectName candidato = new ObjectName(chaves);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidato);
+            nome = candidato;
+        } catch (JMException e) {
+            System.out.println("⚠️  Métricas de '" + tabela + "' não publicadas no JMX (" + e.getMessage() + ")");
+        }
+
+        if (intervaloSegundos > 0) {
+            agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "csvimporter-progresso");
+                thread.setDaemon(true);
+                return thread;
+            });
+            agendador.scheduleAtFixedRate(() -> System.out.println(linhaProgresso()),
+                    intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+        }
+    }
+
+    void fase(Fase fase, long nanos) {
+        fase(fase, nanos, 0);
+    }
+
+    /** Uma medição da fase, cobrindo {@code quantidade} registros (0 quando não se aplica). */
+    void fase(Fase fase, long nanos, int quantidade) {
+        histogramas[fase.ordinal()].registrar(nanos);
+
+        EventoFase evento = new EventoFase();
+        if (evento.isEnabled()) {
+            evento.tabela = tabela;
+            evento.fase = fase.name();
+            evento.registros = quantidade;
+            evento.duracao = nanos;
+            evento.commit();
+        }
+    }
+
+    /** Registros gravados e quantos bytes do CSV eles ocupavam. */
+    void gravados(long quantidade, long bytesCsv) {
+        registros.add(quantidade);
+        bytes.add(bytesCsv);
+    }
+
+    /** O aviso de progresso de sempre, mas no máximo uma vez por segundo em vez de a cada lote. */
+    void avisarProgresso(long total) {
+        long agora = System.nanoTime();
+        long anterior = ultimoAviso.get();
+        if (agora - anterior >= INTERVALO_AVISO_NS && ultimoAviso.compareAndSet(anterior, agora)) {
+            System.out.println("Inserindos " + total + " registross...");
+        }
+    }
+
+    // uma linha JSON por intervalo, para ser lida por outro programa
+    String linhaProgresso() {
+        return String.format(Locale.ROOT,
+                "PROGRESSO {\"tabela\":\"%s\",\"registros\":%d,\"bytes\":%d,\"decorrido_ms\":%d,"
+                        + "\"registros_s\":%.1f,\"bytes_s\":%.1f,\"falhas_conversao\":%d}",
+                tabela.replace("\\", "\\\\").replace("\"", "\\\""), getRegistros(), getBytes(), getDecorridoMs(),
+                getRegistrosPorSegundo(), getBytesPorSegundo(), getFalhasConversao());
+    }
+
+    @Override
+    public String getTabela() {
+        return tabela;
+    }
+
+    @Override
+    public long getRegistros() {
+        return registros.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getDecorridoMs() {
+        return TimeUnit.NANOSECONDS.toMillis(decorridoNs());
+    }
+
+    @Override
+    public double getRegistrosPorSegundo() {
+        return porSegundo(getRegistros());
+    }
+
+    @Override
+    public double getBytesPorSegundo() {
+        return porSegundo(getBytes());
+    }
+
+    @Override
+    public long getFalhasConversao() {
+        long total = 0;
+        for (int i = 0; i < plano.quantidadeColunas(); i++) {
+            total += plano.falhasConversao(i);
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getFalhasConversaoPorColuna() {
+        Map<String, Long> falhas = new LinkedHashMap<>();
+        for (int i = 0; i < plano.quantidadeColunas(); i++) {
+            long quantidade = plano.falhasConversao(i);
+            if (quantidade > 0) falhas.put(plano.coluna(i), quantidade);
+        }
+        return falhas;
+    }
+
+    @Override
+    public Map<String, Long> getOcorrencias() {
+        Map<String, Long> ocorrencias = new LinkedHashMap<>();
+        for (Fase fase : Fase.values()) {
+            ocorrencias.put(fase.name(), histogramas[fase.ordinal()].quantidade());
+        }
+        return ocorrencias;
+    }
+
+    @Override
+    public Map<String, Double> getLatenciaMediaMs() {
+        Map<String, Double> latencias = new LinkedHashMap<>();
+        for (Fase fase : Fase.values()) {
+            Histograma h = histogramas[fase.ordinal()];
+            latencias.put(fase.name(), h.quantidade() == 0 ? 0 : ms(h.soma() / h.quantidade()));
+        }
+        return latencias;
+    }
+
+    @Override
+    public Map<String, Double> getLatenciaP50Ms() {
+        return percentis(0.50);
+    }
+
+    @Override
+    public Map<String, Double> getLatenciaP99Ms() {
+        return percentis(0.99);
+    }
+
+    @Override
+    public Map<String, Double> getLatenciaMaximaMs() {
+        Map<String, Double> latencias = new LinkedHashMap<>();
+        for (Fase fase : Fase.values()) {
+            latencias.put(fase.name(), ms(histogramas[fase.ordinal()].maximo()));
+        }
+        return latencias;
+    }
+
+    private Map<String, Double> percentis(double percentil) {
+        Map<String, Double> latencias = new LinkedHashMap<>();
+        for (Fase fase : Fase.values()) {
+            latencias.put(fase.name(), ms(histogramas[fase.ordinal()].percentil(percentil)));
+        }
+        return latencias;
+    }
+
+    private long decorridoNs() {
+        long termino = fim;
+        return (termino != 0 ? termino : System.nanoTime()) - inicio;
+    }
+
+    private double porSegundo(long quantidade) {
+        long nanos = decorridoNs();
+        return nanos == 0 ? 0 : quantidade * 1e9 / nanos;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** Para o aviso periódico, imprime o resumo, grava o evento JFR da importação e sai do JMX. */
+    @Override
+    public void close() {
+        if (agendador != null) agendador.shutdownNow();
+        fim = System.nanoTime();
+
+        System.out.println(String.format(Locale.ROOT, "Métricas de '%s': %d registros em %d ms (%.0f registros/s, %.2f MB/s)",
+                tabela, getRegistros(), getDecorridoMs(), getRegistrosPorSegundo(), getBytesPorSegundo() / (1024 * 1024)));
+        for (Fase fase : Fase.values()) {
+            Histograma h = histogramas[fase.ordinal()];
+            if (h.quantidade() == 0) continue;
+            System.out.println(String.format(Locale.ROOT, "   - %-10s %8d medições, total %9.1f ms, média %8.3f ms, p50 <= %8.3f ms, p99 <= %8.3f ms, máx %8.3f ms",
+                    fase.name(), h.quantidade(), ms(h.soma()), ms(h.soma() / h.quantidade()),
+                    ms(h.percentil(0.50)), ms(h.percentil(0.99)), ms(h.maximo())));
+        }
+        Map<String, Long> falhas = getFalhasConversaoPorColuna();
+        if (!falhas.isEmpty()) {
+            System.out.println("⚠️  Valores que não converteram para o tipo da coluna: " + falhas);
+        }
+        List<String> caches = new ArrayList<>();
+        for (int i = 0; i < plano.quantidadeColunas(); i++) {
+            CacheValores cache = plano.cacheValores(i);
+            if (cache == null || !cache.ligado()) continue;
+            long consultas = cache.acertos() + cache.faltas();
+            caches.add(String.format(Locale.ROOT, "%s %.1f%%", plano.coluna(i), consultas == 0 ? 0.0 : 100.0 * cache.acertos() / consultas));
+        }
+        if (!caches.isEmpty()) {
+            System.out.println("   Cache de valores (acertos): " + String.join(", ", caches));
+        }
+
+        EventoImportacao evento = new EventoImportacao();
+        if (evento.isEnabled()) {
+            evento.tabela = tabela;
+            evento.registros = getRegistros();
+            evento.bytes = getBytes();
+            evento.falhasConversao = getFalhasConversao();
+            evento.duracao = decorridoNs();
+            evento.commit();
+        }
+
+        if (nome != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(nome);
+            } catch (JMException ignored) {
+            }
+            nome = null;
+        }
+    }
+
+    /**
+     * Histograma logarítmico: uma faixa por potência de 2, dividida em 4, o que dá erro de no máximo
+     * 25% nos percentis com 256 contadores fixos.
+     */
+    static final class Histograma {
+        private static final int SUBFAIXAS = 4;
+
+        private final AtomicLongArray faixas = new AtomicLongArray(64 * SUBFAIXAS);
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder soma = new LongAdder();
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+        void registrar(long nanos) {
+            long valor = Math.max(0, nanos);
+            faixas.incrementAndGet(faixa(valor));
+            quantidade.increment();
+            soma.add(valor);
+            maximo.accumulate(valor);
+        }
+
+        long quantidade() {
+            return quantidade.sum();
+        }
+
+        long soma() {
+            return soma.sum();
+        }
+
+        long maximo() {
+            return maximo.get();
+        }
+
+        /** Limite superior da faixa onde cai o percentil, nunca acima do máximo observado. */
+        long percentil(double percentil) {
+            long total = 0;
+            long[] contagens = new long[faixas.length()];
+            for (int i = 0; i < contagens.length; i++) {
+                contagens[i] = faixas.get(i);
+                total += contagens[i];
+            }
+            if (total == 0) return 0;
+
+            long alvo = (long) Math.ceil(percentil * total);
+            long acumulado = 0;
+            for (int i = 0; i < contagens.length; i++) {
+                acumulado += contagens[i];
+                if (acumulado >= alvo) return Math.min(limiteSuperior(i), maximo());
+            }
+            return maximo();
+        }
+
+        static int faixa(long valor) {
+            if (valor < SUBFAIXAS) return (int) valor;
+            int expoente = 63 - Long.numberOfLeadingZeros(valor);
+            int subfaixa = (int) (valor >>> (expoente - 2)) & (SUBFAIXAS - 1);
+            return (expoente - 1) * SUBFAIXAS + subfaixa;
+        }
+
+        static long limiteSuperior(int faixa) {
+            if (faixa < SUBFAIXAS) return faixa;
+            int expoente = faixa / SUBFAIXAS + 1;
+            long largura = 1L << (expoente - 2);
+            return (SUBFAIXAS + faixa % SUBFAIXAS) * largura + largura - 1;
+        }
+    }
+
+    @Name("io.hdmpedro.Fase")
+    @Label("Fase da importação")
+    @Category("CSVImporter")
+    static final class EventoFase extends Event {
+        @Label("Tabela")
+        String tabela;
+
+        @Label("Fase")
+        String fase;
+
+        @Label("Registros")
+        int registros;
+
+        @Label("Duração")
+        @Timespan
+        long duracao;
+    }
+
+    @Name("io.hdmpedro.Importacao")
+    @Label("Importação")
+    @Category("CSVImporter")
+    static final class EventoImportacao extends Event {
+        @Label("Tabela")
+        String tabela;
+
+        @Label("Registros")
+        long registros;
+
+        @Label("Bytes")
+        long bytes;
+
+        @Label("Falhas de conversão")
+        long falhasConversao;
+
+        @Label("Duração")
+        @Timespan
+        long duracao;
+    }
+}
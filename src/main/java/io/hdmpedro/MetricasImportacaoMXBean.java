@@ -0,0 +1,38 @@
+package io.hdmpedro;
+
+import java.util.Map;
+
+/**
+ * Métricas de uma importação em andamento, publicadas no JMX como
+ * {@code io.hdmpedro:type=CSVImporter,tabela=<nome>} enquanto ela roda. As latências são em
+ * milissegundos por fase ({@code LEITURA}, {@code PARSE}, {@code VINCULACAO}, {@code EXECUCAO},
+ * {@code COMMIT}); os percentis são o limite superior da faixa do histograma.
+ */
+public interface MetricasImportacaoMXBean {
+
+    String getTabela();
+
+    long getRegistros();
+
+    long getBytes();
+
+    long getDecorridoMs();
+
+    double getRegistrosPorSegundo();
+
+    double getBytesPorSegundo();
+
+    long getFalhasConversao();
+
+    Map<String, Long> getFalhasConversaoPorColuna();
+
+    Map<String, Long> getOcorrencias();
+
+    Map<String, Double> getLatenciaMediaMs();
+
+    Map<String, Double> getLatenciaP50Ms();
+
+    Map<String, Double> getLatenciaP99Ms();
+
+    Map<String, Double> getLatenciaMaximaMs();
+}
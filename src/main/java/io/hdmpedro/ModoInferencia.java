@@ -0,0 +1,16 @@
+package io.hdmpedro;
+
+import java.util.Locale;
+
+public enum ModoInferencia {
+    /** Só os primeiros registros do arquivo (padrão). */
+    AMOSTRA,
+    /** Amostra aleatória de tamanho fixo sorteada ao longo do arquivo inteiro. */
+    RESERVATORIO,
+    /** Todos os registros; os tipos saem com os limites exatos. */
+    COMPLETO;
+
+    static ModoInferencia deOpcao(String valor) {
+        return valueOf(valor.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
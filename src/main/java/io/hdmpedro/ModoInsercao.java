@@ -0,0 +1,13 @@
+package io.hdmpedro;
+
+import java.util.Locale;
+
+public enum ModoInsercao {
+    LOTE,
+    MULTI_LINHAS,
+    LOAD_DATA;
+
+    static ModoInsercao deOpcao(String valor) {
+        return valueOf(valor.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
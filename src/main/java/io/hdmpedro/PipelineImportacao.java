@@ -0,0 +1,219 @@
+package io.hdmpedro;
+
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Produtor/consumidor para a inserção: a thread chamadora corta a entrada em blocos de registros
+ * inteiros, {@code analisadores} threads separam os campos e {@code escritores} threads gravam,
+ * cada uma com a sua conexão e o seu PreparedStatement. As filas entre as etapas são limitadas,
+ * então a memória fica em {@code profundidadeFila} lotes por etapa. Com uma {@link LeituraMapeada}
+ * o leitor e os analisadores dão lugar ao parse paralelo do arquivo mapeado.
+ */
+class PipelineImportacao {
+
+    interface EscritorLote extends AutoCloseable {
+        /** Devolve quantos registros do lote foram enviados; os recusados pelo plano não contam. */
+        int escrever(LoteRegistros lote) throws SQLException;
+
+        /** Confirma o que ainda não foi confirmado; chamado só quando a entrada acabou sem erro. */
+        void concluir() throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    interface FabricaEscritor {
+        EscritorLote criar() throws SQLException;
+    }
+
+    private static final TokenizadorCSV.Bloco FIM_BLOCOS = new TokenizadorCSV.Bloco(new byte[0], 0, 0);
+    private static final LoteRegistros FIM_REGISTROS = new LoteRegistros(null);
+    private static final long ESPERA_MS = 100;
+
+    private final int analisadores;
+    private final int escritores;
+    private final ControleLote controle;
+    private final MetricasImportacao metricas;
+    private final BlockingQueue<TokenizadorCSV.Bloco> filaBlocos;
+    private final BlockingQueue<LoteRegistros> filaRegistros;
+    private final AtomicReference<Throwable> erro = new AtomicReference<>();
+    private final AtomicLong totalInseridos = new AtomicLong();
+    private final AtomicInteger analisadoresAtivos;
+
+    PipelineImportacao(int analisadores, int escritores, int profundidadeFila, ControleLote controle,
+                       MetricasImportacao metricas) {
+        this.analisadores = analisadores;
+        this.escritores = escritores;
+        this.controle = controle;
+        this.metricas = metricas;
+        this.filaBlocos = new ArrayBlockingQueue<>(profundidadeFila);
+        this.filaRegistros = new ArrayBlockingQueue<>(profundidadeFila);
+        this.analisadoresAtivos = new AtomicInteger(analisadores);
+    }
+
+    long executar(TokenizadorCSV tokenizador, char separador, FabricaEscritor fabrica) throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(analisadores + escritores);
+        List<Future<?>> tarefas = new ArrayList<>();
+        try {
+            for (int i = 0; i < escritores; i++) {
+                tarefas.add(executor.submit(() -> escrever(fabrica)));
+            }
+            for (int i = 0; i < analisadores; i++) {
+                tarefas.add(executor.submit(() -> analisar(tokenizador.charset(), separador)));
+            }
+
+            ler(tokenizador);
+            aguardar(tarefas);
+        } finally {
+            executor.shutdownNow();
+        }
+        return resultado();
+    }
+
+    long executar(LeituraMapeada leitura, long offsetDados, long linhaDados, FabricaEscritor fabrica) throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(escritores);
+        List<Future<?>> tarefas = new ArrayList<>();
+        try {
+            for (int i = 0; i < escritores; i++) {
+                tarefas.add(executor.submit(() -> escrever(fabrica)));
+            }
+
+            try {
+                leitura.executar(offsetDados, linhaDados, controle::tamanho, lote -> {
+                    colocar(filaRegistros, lote);
+                    return erro.get() == null;
+                });
+            } catch (Throwable t) {
+                registrarErro(t);
+            } finally {
+                for (int i = 0; i < escritores; i++) {
+                    colocarSemFalha(filaRegistros, FIM_REGISTROS);
+                }
+            }
+            aguardar(tarefas);
+        } finally {
+            executor.shutdownNow();
+        }
+        return resultado();
+    }
+
+    private void aguardar(List<Future<?>> tarefas) {
+        for (Future<?> tarefa : tarefas) {
+            try {
+                tarefa.get();
+            } catch (Exception e) {
+                registrarErro(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+    }
+
+    private long resultado() throws SQLException {
+        Throwable falha = erro.get();
+        if (falha instanceof SQLException) throw (SQLException) falha;
+        if (falha instanceof RuntimeException) throw (RuntimeException) falha;
+        if (falha != null) throw new SQLException("Falha na importação paralela: " + falha.getMessage(), falha);
+
+        return totalInseridos.get();
+    }
+
+    private void ler(TokenizadorCSV tokenizador) {
+        try {
+            TokenizadorCSV.Bloco bloco;
+            while (erro.get() == null && (bloco = tokenizador.proximoBloco(controle.tamanho())) != null) {
+                colocar(filaBlocos, bloco);
+            }
+        } catch (Throwable t) {
+            registrarErro(t);
+        } finally {
+            for (int i = 0; i < analisadores; i++) {
+                colocarSemFalha(filaBlocos, FIM_BLOCOS);
+            }
+        }
+    }
+
+    private void analisar(Charset charset, char separador) {
+        try {
+            while (erro.get() == null) {
+                TokenizadorCSV.Bloco bloco = retirar(filaBlocos);
+                if (bloco == null) continue;
+                if (bloco == FIM_BLOCOS) break;
+
+                long inicio = System.nanoTime();
+                LoteRegistros lote = new LoteRegistros(bloco, charset);
+                TokenizadorCSV tokenizador = new TokenizadorCSV(bloco, charset, separador);
+                while (tokenizador.proximo()) {
+                    lote.adicionar(tokenizador);
+                }
+                metricas.fase(MetricasImportacao.Fase.PARSE, System.nanoTime() - inicio, lote.tamanho());
+                if (lote.tamanho() > 0) colocar(filaRegistros, lote);
+            }
+        } catch (Throwable t) {
+            registrarErro(t);
+        } finally {
+            if (analisadoresAtivos.decrementAndGet() == 0) {
+                for (int i = 0; i < escritores; i++) {
+                    colocarSemFalha(filaRegistros, FIM_REGISTROS);
+                }
+            }
+        }
+    }
+
+    private void escrever(FabricaEscritor fabrica) {
+        try (EscritorLote escritor = fabrica.criar()) {
+            while (erro.get() == null) {
+                LoteRegistros lote = retirar(filaRegistros);
+                if (lote == null) continue;
+                if (lote == FIM_REGISTROS) {
+                    escritor.concluir();
+                    break;
+                }
+
+                int enviados = escritor.escrever(lote);
+                long total = totalInseridos.addAndGet(enviados);
+                metricas.gravados(enviados, lote.bytesOrigem());
+                metricas.avisarProgresso(total);
+            }
+        } catch (Throwable t) {
+            registrarErro(t);
+        }
+    }
+
+    private void registrarErro(Throwable t) {
+        if (!erro.compareAndSet(null, t) && erro.get() != t) {
+            erro.get().addSuppressed(t);
+        }
+    }
+
+    // as esperas são curtas para que uma falha em outra etapa nunca deixe uma thread presa na fila
+    private <T> void colocar(BlockingQueue<T> fila, T item) throws InterruptedException {
+        while (erro.get() == null) {
+            if (fila.offer(item, ESPERA_MS, TimeUnit.MILLISECONDS)) return;
+        }
+    }
+
+    private <T> void colocarSemFalha(BlockingQueue<T> fila, T item) {
+        try {
+            while (!fila.offer(item, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                if (erro.get() != null) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T retirar(BlockingQueue<T> fila) throws InterruptedException {
+        return fila.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+    }
+}
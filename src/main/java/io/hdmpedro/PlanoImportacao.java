@@ -0,0 +1,538 @@
+package io.hdmpedro;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Plano de inserção compilado uma vez por importação: para cada coluna de destino guarda o índice
+ * do campo no CSV e o vinculador resolvido a partir do tipo SQL da tabela. No laço de inserção só
+ * há acesso por índice a esses arrays; nenhum mapa, regex ou {@code toUpperCase} por célula.
+ */
+final class PlanoImportacao {
+
+    /** Devolve false quando o valor não tinha o formato do tipo e foi gravado como texto. */
+    interface Vinculador {
+        boolean vincular(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException;
+    }
+
+    /** Confere, sem vincular, se o campo tem o formato do tipo; o vinculador falharia exatamente nos mesmos valores. */
+    interface Validador {
+        boolean valido(RegistroCSV registro, int campo);
+    }
+
+    private final String[] colunas;
+    private final String[] tipos;
+    private final int[] indices;
+    private final Vinculador[] vinculadores;
+    private final Validador[] validadores;
+    private final String[] constantes;
+    private final boolean[] vazioComoTexto;
+    private final AtomicLongArray falhas;
+    private final CacheValores[] caches;
+    private final PoliticaFalha[] politicas;
+    private final long[] limites;
+    private int[] validadas = new int[0];
+    private RegistroFalhas registroFalhas;
+    private int colunaCalculada = -1;
+    private ToLongFunction<RegistroCSV> calculo;
+    private Predicate<RegistroCSV> filtro;
+
+    private PlanoImportacao(String[] colunas, String[] tipos, int[] indices, Vinculador[] vinculadores,
+                            Validador[] validadores) {
+        this.colunas = colunas;
+        this.tipos = tipos;
+        this.indices = indices;
+        this.vinculadores = vinculadores;
+        this.validadores = validadores;
+        this.constantes = new String[colunas.length];
+        this.vazioComoTexto = new boolean[colunas.length];
+        this.falhas = new AtomicLongArray(colunas.length);
+        this.caches = new CacheValores[colunas.length];
+        this.politicas = new PoliticaFalha[colunas.length];
+        this.limites = new long[colunas.length];
+        Arrays.fill(politicas, PoliticaFalha.TEXTO);
+    }
+
+    static PlanoImportacao compilar(String[] cabecalhosOriginais, List<String> colunas, Map<String, String> tiposColunas) {
+        List<String> originais = Arrays.asList(cabecalhosOriginais);
+        int quantidade = colunas.size();
+        String[] nomes = colunas.toArray(new String[0]);
+        String[] tipos = new String[quantidade];
+        int[] indices = new int[quantidade];
+        Vinculador[] vinculadores = new Vinculador[quantidade];
+        Validador[] validadores = new Validador[quantidade];
+
+        for (int i = 0; i < quantidade; i++) {
+            tipos[i] = tiposColunas.get(nomes[i]);
+            indices[i] = originais.indexOf(nomes[i]);
+            vinculadores[i] = vinculadorPara(tipos[i]);
+            validadores[i] = validadorPara(tipos[i]);
+        }
+        return new PlanoImportacao(nomes, tipos, indices, vinculadores, validadores);
+    }
+
+    int quantidadeColunas() {
+        return colunas.length;
+    }
+
+    String coluna(int i) {
+        return colunas[i];
+    }
+
+    String tipo(int i) {
+        return tipos[i];
+    }
+
+    int indice(int i) {
+        return indices[i];
+    }
+
+    /** Valor fixo para uma coluna que não vem do CSV, como o nome do arquivo de origem. */
+    void definirConstante(String coluna, String valor) {
+        int i = Arrays.asList(colunas).indexOf(coluna);
+        if (i < 0 || indices[i] >= 0) {
+            throw new IllegalArgumentException("Coluna '" + coluna + "' não existe ou já vem do CSV");
+        }
+        constantes[i] = valor;
+    }
+
+    String constante(int i) {
+        return constantes[i];
+    }
+
+    /** Valor calculado a partir do registro inteiro para uma coluna que não vem do CSV, como o hash de conteúdo. */
+    void definirCalculada(String coluna, ToLongFunction<RegistroCSV> calculo) {
+        int i = Arrays.asList(colunas).indexOf(coluna);
+        if (i < 0 || indices[i] >= 0) {
+            throw new IllegalArgumentException("Coluna '" + coluna + "' não existe ou já vem do CSV");
+        }
+        this.colunaCalculada = i;
+        this.calculo = calculo;
+    }
+
+    /**
+     * Campo vazio vira {@code ''} em vez de NULL. Usado nas colunas de chave de texto: o índice único
+     * aceita vários NULL, então uma chave com NULL nunca cairia no {@code ON DUPLICATE KEY}.
+     */
+    void definirVazioComoTexto(String coluna) {
+        vazioComoTexto[Arrays.asList(colunas).indexOf(coluna)] = true;
+    }
+
+    /**
+     * Põe um {@link CacheValores} na frente das colunas cujo tipo cria um objeto por célula (data,
+     * data e hora, decimal e texto). Cada cache decide sozinho, pelos primeiros valores, se a coluna
+     * repete o bastante para valer a pena.
+     */
+    void definirCacheValores() {
+        for (int i = 0; i < colunas.length; i++) {
+            if (indices[i] < 0 || caches[i] != null) continue;
+            caches[i] = cachePara(tipos[i], vinculadores[i]);
+            if (caches[i] != null) vinculadores[i] = caches[i];
+        }
+    }
+
+    /** Cache da coluna, ou {@code null} se ela não tem um. */
+    CacheValores cacheValores(int i) {
+        return caches[i];
+    }
+
+    /** Registros recusados pelo filtro não são vinculados nem enviados. */
+    void definirFiltro(Predicate<RegistroCSV> filtro) {
+        this.filtro = filtro;
+    }
+
+    /**
+     * Política para os valores da coluna que não convertem. Com {@link PoliticaFalha#ABORTAR}, a
+     * importação para quando a coluna passa de {@code limite} falhas; até lá os registros são rejeitados.
+     * As colunas que rejeitam são conferidas em {@link #aceita(RegistroCSV)}, antes de qualquer vinculação.
+     */
+    void definirPolitica(String coluna, PoliticaFalha politica, long limite) {
+        int i = Arrays.asList(colunas).indexOf(coluna);
+        if (i < 0 || indices[i] < 0) {
+            throw new IllegalArgumentException("Coluna '" + coluna + "' da política de falhas não vem do CSV");
+        }
+        politicas[i] = politica;
+        limites[i] = limite;
+        if (politica.rejeita()) validar(i);
+    }
+
+    /** Confere todas as colunas do CSV em {@link #aceita(RegistroCSV)}; usado na validação sem banco. */
+    void definirValidacaoCompleta() {
+        for (int i = 0; i < colunas.length; i++) {
+            if (indices[i] >= 0) validar(i);
+        }
+    }
+
+    private void validar(int coluna) {
+        for (int i : validadas) {
+            if (i == coluna) return;
+        }
+        validadas = Arrays.copyOf(validadas, validadas.length + 1);
+        validadas[validadas.length - 1] = coluna;
+    }
+
+    void definirRegistroFalhas(RegistroFalhas registroFalhas) {
+        this.registroFalhas = registroFalhas;
+    }
+
+    /** Alguma coluna trata as falhas no cliente, o que o {@code LOAD DATA} não permite. */
+    boolean trataFalhasNoCliente() {
+        for (PoliticaFalha politica : politicas) {
+            if (politica != PoliticaFalha.TEXTO) return true;
+        }
+        return false;
+    }
+
+    boolean aceita(RegistroCSV registro) {
+        if (filtro != null && !filtro.test(registro)) return false;
+        return validadas.length == 0 || conferir(registro);
+    }
+
+    // todas as colunas conferidas contam as suas falhas, mesmo depois da primeira que rejeita o registro
+    private boolean conferir(RegistroCSV registro) {
+        String motivo = null;
+        for (int i : validadas) {
+            int campo = indices[i];
+            if (registro.vazio(campo) || validadores[i].valido(registro, campo)) continue;
+
+            long total = falhas.incrementAndGet(i);
+            if (registroFalhas != null) registroFalhas.falha(i, registro, campo);
+            if (!politicas[i].rejeita()) continue;
+            if (politicas[i] == PoliticaFalha.ABORTAR && total > limites[i]) {
+                throw new IllegalStateException("Importação abortada: a coluna '" + colunas[i] + "' passou de "
+                        + limites[i] + " falhas de conversão (linha " + registro.linha() + ")");
+            }
+            if (motivo == null) motivo = registroFalhas != null ? registroFalhas.motivo(i, registro, campo) : colunas[i];
+        }
+        if (motivo == null) return true;
+        if (registroFalhas != null) registroFalhas.rejeitar(registro, motivo);
+        return false;
+    }
+
+    void vincular(PreparedStatement pstmt, int deslocamento, RegistroCSV registro) throws SQLException {
+        for (int i = 0; i < vinculadores.length; i++) {
+            int campo = indices[i];
+            if (campo < 0 && constantes[i] != null) {
+                pstmt.setString(deslocamento + i + 1, constantes[i]);
+            } else if (i == colunaCalculada) {
+                pstmt.setLong(deslocamento + i + 1, calculo.applyAsLong(registro));
+            } else if (vazioComoTexto[i] && (campo < 0 || registro.vazio(campo))) {
+                pstmt.setString(deslocamento + i + 1, "");
+            } else if (campo < 0 || registro.vazio(campo)) {
+                pstmt.setNull(deslocamento + i + 1, Types.NULL);
+            } else if (!vinculadores[i].vincular(pstmt, deslocamento + i + 1, registro, campo)) {
+                falhas.incrementAndGet(i);
+                if (registroFalhas != null) registroFalhas.falha(i, registro, campo);
+                if (politicas[i] == PoliticaFalha.NULO) pstmt.setNull(deslocamento + i + 1, Types.NULL);
+            }
+        }
+    }
+
+    /** Valores da coluna que não puderam ser convertidos, seja qual for a política. */
+    long falhasConversao(int i) {
+        return falhas.get(i);
+    }
+
+    /** Nome do tipo sem tamanho nem modificadores: {@code DECIMAL(15,4)} vira {@code DECIMAL}. */
+    static String tipoBase(String tipoSql) {
+        if (tipoSql == null) return "";
+        String tipo = tipoSql.trim().toUpperCase(Locale.ROOT);
+        int fim = tipo.length();
+        for (int i = 0; i < tipo.length(); i++) {
+            char c = tipo.charAt(i);
+            if (c == '(' || c == ' ') {
+                fim = i;
+                break;
+            }
+        }
+        return tipo.substring(0, fim);
+    }
+
+    static Vinculador vinculadorPara(String tipoSql) {
+        switch (tipoBase(tipoSql)) {
+            case "DATE":
+                return PlanoImportacao::vincularData;
+            case "DATETIME":
+            case "TIMESTAMP":
+                return PlanoImportacao::vincularDataHora;
+            case "INT":
+            case "INTEGER":
+            case "SMALLINT":
+            case "MEDIUMINT":
+                return PlanoImportacao::vincularInt;
+            case "BIGINT":
+                return PlanoImportacao::vincularBigint;
+            case "DECIMAL":
+            case "NUMERIC":
+            case "DOUBLE":
+            case "FLOAT":
+                return PlanoImportacao::vincularDecimal;
+            case "BOOLEAN":
+            case "BOOL":
+            case "BIT":
+                return PlanoImportacao::vincularBooleano;
+            case "TINYINT":
+                return PlanoImportacao::vincularTinyint;
+            default:
+                return PlanoImportacao::vincularTexto;
+        }
+    }
+
+    static Validador validadorPara(String tipoSql) {
+        switch (tipoBase(tipoSql)) {
+            case "DATE":
+                return (r, c) -> converterData(r, c) != null;
+            case "DATETIME":
+            case "TIMESTAMP":
+                return (r, c) -> converterDataHora(r, c) != null;
+            case "INT":
+            case "INTEGER":
+            case "SMALLINT":
+            case "MEDIUMINT":
+                return (r, c) -> {
+                    long valor = ConversorBytes.inteiro(r.bytes(), r.inicio(c), r.fim(c));
+                    return valor != ConversorBytes.INVALIDO && valor >= Integer.MIN_VALUE && valor <= Integer.MAX_VALUE;
+                };
+            case "BIGINT":
+                return PlanoImportacao::bigintValido;
+            case "DECIMAL":
+            case "NUMERIC":
+            case "DOUBLE":
+            case "FLOAT":
+                return PlanoImportacao::decimalValido;
+            case "BOOLEAN":
+            case "BOOL":
+            case "BIT":
+                return (r, c) -> ConversorBytes.booleano(r.bytes(), r.inicio(c), r.fim(c)) >= 0;
+            case "TINYINT":
+                return (r, c) -> {
+                    if (ConversorBytes.booleano(r.bytes(), r.inicio(c), r.fim(c)) >= 0) return true;
+                    long valor = ConversorBytes.inteiro(r.bytes(), r.inicio(c), r.fim(c));
+                    return valor != ConversorBytes.INVALIDO && valor >= Byte.MIN_VALUE && valor <= Byte.MAX_VALUE;
+                };
+            default:
+                return (r, c) -> true;
+        }
+    }
+
+    private static boolean bigintValido(RegistroCSV registro, int campo) {
+        if (ConversorBytes.inteiro(registro.bytes(), registro.inicio(campo), registro.fim(campo)) != ConversorBytes.INVALIDO) {
+            return true;
+        }
+        try {
+            Long.parseLong(registro.texto(campo));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean decimalValido(RegistroCSV registro, int campo) {
+        if (ConversorBytes.decimal(registro.bytes(), registro.inicio(campo), registro.fim(campo)) != null) {
+            return true;
+        }
+        try {
+            new BigDecimal(registro.texto(campo));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static CacheValores cachePara(String tipoSql, Vinculador original) {
+        switch (tipoBase(tipoSql)) {
+            case "DATE":
+                return new CacheValores(PlanoImportacao::converterData, (p, i, v) -> p.setDate(i, (Date) v), original);
+            case "DATETIME":
+            case "TIMESTAMP":
+                return new CacheValores(PlanoImportacao::converterDataHora, (p, i, v) -> p.setTimestamp(i, (Timestamp) v), original);
+            case "DECIMAL":
+            case "NUMERIC":
+            case "DOUBLE":
+            case "FLOAT":
+                return new CacheValores((r, c) -> ConversorBytes.decimal(r.bytes(), r.inicio(c), r.fim(c)),
+                        (p, i, v) -> p.setBigDecimal(i, (BigDecimal) v), original);
+            case "CHAR":
+            case "VARCHAR":
+            case "TEXT":
+            case "MEDIUMTEXT":
+            case "LONGTEXT":
+                return new CacheValores(RegistroCSV::texto, (p, i, v) -> p.setString(i, (String) v), original);
+            default:
+                return null;
+        }
+    }
+
+    private static boolean vincularTexto(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        pstmt.setString(parametro, registro.texto(campo));
+        return true;
+    }
+
+    private static boolean vincularData(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        int data = data(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (data < 0) {
+            vincularTexto(pstmt, parametro, registro, campo);
+            return false;
+        }
+
+        try {
+            pstmt.setDate(parametro, paraDate(data));
+        } catch (DateTimeException e) {
+            return falhaConversao(pstmt, parametro, registro, campo);
+        }
+        return true;
+    }
+
+    private static boolean vincularDataHora(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        long dataHora = dataHora(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (dataHora < 0) {
+            vincularTexto(pstmt, parametro, registro, campo);
+            return false;
+        }
+
+        try {
+            pstmt.setTimestamp(parametro, paraTimestamp(dataHora));
+        } catch (DateTimeException e) {
+            return falhaConversao(pstmt, parametro, registro, campo);
+        }
+        return true;
+    }
+
+    // valores inválidos voltam null e ficam com o vinculador, que avisa e grava como texto
+    private static Object converterData(RegistroCSV registro, int campo) {
+        int data = data(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        try {
+            return data < 0 ? null : paraDate(data);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static Object converterDataHora(RegistroCSV registro, int campo) {
+        long dataHora = dataHora(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        try {
+            return dataHora < 0 ? null : paraTimestamp(dataHora);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /** {@code aaaammdd}, ou -1 quando o campo não tem formato de data. */
+    private static int data(byte[] b, int inicio, int fim) {
+        int data = ConversorBytes.dataBr(b, inicio, fim);
+        if (data < 0 && (fim - inicio == 10 || ConversorBytes.horaIso(b, inicio, fim) >= 0)) {
+            data = ConversorBytes.dataIso(b, inicio, fim);
+        }
+        return data;
+    }
+
+    /** {@code aaaammddhhmmss}, ou -1 quando o campo não tem formato de data e hora. */
+    private static long dataHora(byte[] b, int inicio, int fim) {
+        int hora = 0;
+        int data = ConversorBytes.dataBr(b, inicio, fim);
+        if (data < 0) {
+            hora = fim - inicio == 10 ? 0 : ConversorBytes.horaIso(b, inicio, fim);
+            data = hora < 0 ? -1 : ConversorBytes.dataIso(b, inicio, fim);
+        }
+        return data < 0 ? -1 : data * 1000000L + hora;
+    }
+
+    private static Date paraDate(int data) {
+        return Date.valueOf(LocalDate.of(data / 10000, data / 100 % 100, data % 100));
+    }
+
+    private static Timestamp paraTimestamp(long dataHora) {
+        int data = (int) (dataHora / 1000000);
+        int hora = (int) (dataHora % 1000000);
+        return Timestamp.valueOf(LocalDateTime.of(data / 10000, data / 100 % 100, data % 100,
+                hora / 10000, hora / 100 % 100, hora % 100));
+    }
+
+    private static boolean vincularInt(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        long valor = ConversorBytes.inteiro(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (valor == ConversorBytes.INVALIDO || valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            return falhaConversao(pstmt, parametro, registro, campo);
+        }
+        pstmt.setInt(parametro, (int) valor);
+        return true;
+    }
+
+    private static boolean vincularBigint(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        long valor = ConversorBytes.inteiro(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (valor != ConversorBytes.INVALIDO) {
+            pstmt.setLong(parametro, valor);
+            return true;
+        }
+        // mais de 18 dígitos ainda pode caber em um long
+        try {
+            pstmt.setLong(parametro, Long.parseLong(registro.texto(campo)));
+        } catch (NumberFormatException e) {
+            return falhaConversao(pstmt, parametro, registro, campo);
+        }
+        return true;
+    }
+
+    private static boolean vincularDecimal(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        BigDecimal valor = ConversorBytes.decimal(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (valor != null) {
+            pstmt.setBigDecimal(parametro, valor);
+            return true;
+        }
+        // expoente ou precisão acima de 18 dígitos: deixa o BigDecimal resolver
+        try {
+            pstmt.setBigDecimal(parametro, new BigDecimal(registro.texto(campo)));
+        } catch (NumberFormatException e) {
+            return falhaConversao(pstmt, parametro, registro, campo);
+        }
+        return true;
+    }
+
+    private static boolean vincularBooleano(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        int valor = ConversorBytes.booleano(registro.bytes(), registro.inicio(campo), registro.fim(campo));
+        if (valor < 0) {
+            vincularTexto(pstmt, parametro, registro, campo);
+            return false;
+        }
+        pstmt.setBoolean(parametro, valor == 1);
+        return true;
+    }
+
+    private static boolean vincularTinyint(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        byte[] b = registro.bytes();
+        int inicio = registro.inicio(campo);
+        int fim = registro.fim(campo);
+
+        int booleano = ConversorBytes.booleano(b, inicio, fim);
+        if (booleano >= 0) {
+            pstmt.setInt(parametro, booleano);
+            return true;
+        }
+        long valor = ConversorBytes.inteiro(b, inicio, fim);
+        if (valor == ConversorBytes.INVALIDO || valor < Byte.MIN_VALUE || valor > Byte.MAX_VALUE) {
+            vincularTexto(pstmt, parametro, registro, campo);
+            return false;
+        }
+        pstmt.setInt(parametro, (int) valor);
+        return true;
+    }
+
+    // o aviso fica com quem chamou, que conta a falha e aplica a política da coluna
+    private static boolean falhaConversao(PreparedStatement pstmt, int parametro, RegistroCSV registro, int campo) throws SQLException {
+        pstmt.setString(parametro, registro.texto(campo));
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package io.hdmpedro;
+
+import java.util.Locale;
+
+/** O que fazer com um valor que não pôde ser convertido para o tipo da coluna. */
+public enum PoliticaFalha {
+    /** Grava o texto como veio e deixa o servidor converter (padrão). */
+    TEXTO,
+    /** Grava NULL no lugar do valor. */
+    NULO,
+    /** Descarta o registro inteiro e o escreve no arquivo de rejeitados. */
+    REJEITAR,
+    /** Rejeita como {@link #REJEITAR} e interrompe a importação quando a coluna passa do limite de falhas. */
+    ABORTAR;
+
+    static PoliticaFalha deOpcao(String valor) {
+        return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /** O registro precisa ser conferido antes de vinculado, porque a falha o tira da carga. */
+    boolean rejeita() {
+        return this == REJEITAR || this == ABORTAR;
+    }
+}
@@ -0,0 +1,175 @@
+package io.hdmpedro;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool de conexões limitado, compartilhado pelas importações que rodam ao mesmo tempo. Quem pede
+ * recebe uma conexão embrulhada: o {@code close()} devolve a conexão ao pool em vez de fechar,
+ * desfazendo uma transação pendente e voltando ao autocommit. Quando todas as {@code maximo}
+ * conexões estão emprestadas, {@link #obter()} espera uma ser devolvida.
+ *
+ * <p>Num processo que fica no ar, como a {@link ImportacaoContinua}, uma conexão pode passar horas
+ * parada e ser derrubada pelo {@code wait_timeout} do servidor sem que o cliente saiba. Por isso uma
+ * conexão parada há mais de {@value #OCIOSA_MS}ms é testada com {@code isValid} antes de ser
+ * emprestada, e trocada por uma nova se não responder.
+ */
+final class PoolConexoes implements AutoCloseable {
+    private static final long OCIOSA_MS = 30_000;
+    private static final int TEMPO_VALIDACAO_S = 2;
+
+    private final String jdbcUrl;
+    private final String usuario;
+    private final String senha;
+    private final int maximo;
+    private final Deque<Livre> livres = new ArrayDeque<>();
+    private int abertas;
+    private boolean fechado;
+
+    PoolConexoes(String jdbcUrl, String usuario, String senha, int maximo) {
+        if (maximo < 1) {
+            throw new IllegalArgumentException("O pool precisa de pelo menos uma conexão");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.usuario = usuario;
+        this.senha = senha;
+        this.maximo = maximo;
+    }
+
+    String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    String usuario() {
+        return usuario;
+    }
+
+    String senha() {
+        return senha;
+    }
+
+    Connection obter() throws SQLException {
+        Livre livre;
+        synchronized (this) {
+            while (true) {
+                if (fechado) throw new SQLException("Pool de conexões fechado");
+                livre = livres.pollFirst();
+                if (livre != null || abertas < maximo) break;
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrompido esperando uma conexão do pool", e);
+                }
+            }
+            if (livre == null) abertas++;
+        }
+
+        Connection conexao = livre != null ? livre.conexao : null;
+        if (conexao != null && System.currentTimeMillis() - livre.devolvidaEm > OCIOSA_MS && !valida(conexao)) {
+            fecharSilenciosamente(conexao);
+            conexao = null;
+        }
+        try {
+            if (conexao == null || conexao.isClosed()) {
+                conexao = DriverManager.getConnection(jdbcUrl, usuario, senha);
+            }
+        } catch (SQLException e) {
+            synchronized (this) {
+                abertas--;
+                notifyAll();
+            }
+            throw e;
+        }
+        return emprestar(conexao);
+    }
+
+    private static boolean valida(Connection conexao) {
+        try {
+            return conexao.isValid(TEMPO_VALIDACAO_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection emprestar(Connection conexao) {
+        boolean[] devolvida = {false};
+        return (Connection) Proxy.newProxyInstance(PoolConexoes.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "close":
+                            if (!devolvida[0]) {
+                                devolvida[0] = true;
+                                devolver(conexao);
+                            }
+                            return null;
+                        case "isClosed":
+                            return devolvida[0] || conexao.isClosed();
+                        default:
+                            if (devolvida[0]) throw new SQLException("Conexão já devolvida ao pool");
+                            try {
+                                return metodo.invoke(conexao, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    // uma conexão que falhou ao ser limpa é descartada; a próxima chamada abre outra no lugar
+    private void devolver(Connection conexao) {
+        boolean reaproveitar;
+        try {
+            if (!conexao.getAutoCommit()) {
+                conexao.rollback();
+                conexao.setAutoCommit(true);
+            }
+            reaproveitar = !conexao.isClosed();
+        } catch (SQLException e) {
+            reaproveitar = false;
+        }
+
+        synchronized (this) {
+            if (reaproveitar && !fechado) {
+                livres.addFirst(new Livre(conexao, System.currentTimeMillis()));
+            } else {
+                abertas--;
+                fecharSilenciosamente(conexao);
+            }
+            notifyAll();
+        }
+    }
+
+    private static void fecharSilenciosamente(Connection conexao) {
+        try {
+            conexao.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        fechado = true;
+        for (Livre livre : livres) {
+            fecharSilenciosamente(livre.conexao);
+        }
+        abertas -= livres.size();
+        livres.clear();
+        notifyAll();
+    }
+
+    private static final class Livre {
+        final Connection conexao;
+        final long devolvidaEm;
+
+        Livre(Connection conexao, long devolvidaEm) {
+            this.conexao = conexao;
+            this.devolvidaEm = devolvidaEm;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.hdmpedro;
+
+import java.nio.charset.Charset;
+
+/**
+ * Visão de um registro já separado em campos. Os campos são intervalos {@code [inicio, fim)} sobre
+ * {@link #bytes()}, sem aspas externas e sem espaços nas pontas; nenhum String é criado até que
+ * {@link #texto(int)} seja chamado. A visão é reaproveitada a cada registro, então não deve ser
+ * guardada depois de avançar.
+ */
+interface RegistroCSV {
+
+    int quantidadeCampos();
+
+    byte[] bytes();
+
+    int inicio(int campo);
+
+    int fim(int campo);
+
+    /** Indica que o campo contém aspas duplicadas ({@code ""}) que ainda precisam ser reduzidas. */
+    boolean escapado(int campo);
+
+    Charset charset();
+
+    /** Linha física do arquivo onde o registro começa (a partir de 1). */
+    long linha();
+
+    default boolean vazio(int campo) {
+        return campo >= quantidadeCampos() || inicio(campo) == fim(campo);
+    }
+
+    default String texto(int campo) {
+        if (campo >= quantidadeCampos()) return "";
+        byte[] bytes = bytes();
+        int inicio = inicio(campo);
+        int fim = fim(campo);
+        if (!escapado(campo)) {
+            return new String(bytes, inicio, fim - inicio, charset());
+        }
+
+        byte[] semEscape = new byte[fim - inicio];
+        int n = 0;
+        for (int i = inicio; i < fim; i++) {
+            semEscape[n++] = bytes[i];
+            if (bytes[i] == '"' && i + 1 < fim && bytes[i + 1] == '"') i++;
+        }
+        return new String(semEscape, 0, n, charset());
+    }
+}
@@ -0,0 +1,123 @@
+package io.hdmpedro;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Para onde vão as falhas de conversão de uma importação. Os primeiros {@value #EXEMPLOS_POR_COLUNA}
+ * de cada coluna saem no stderr com linha e valor; as seguintes só são contadas, e um aviso agregado
+ * sai no máximo a cada {@value #INTERVALO_AVISO_S} segundos, em vez de uma linha por célula. Os
+ * registros rejeitados vão para um CSV com a linha de origem e o motivo na frente dos campos
+ * originais, criado só na primeira rejeição.
+ */
+final class RegistroFalhas implements Closeable {
+    private static final int EXEMPLOS_POR_COLUNA = 5;
+    private static final int INTERVALO_AVISO_S = 5;
+
+    private final PlanoImportacao plano;
+    private final String[] cabecalhos;
+    private final char separador;
+    private final Charset charset;
+    private final Path arquivoRejeitados;
+    private final AtomicIntegerArray exemplos;
+    private final LongAdder omitidas = new LongAdder();
+    private final AtomicLong proximoAviso = new AtomicLong(System.nanoTime() + TimeUnit.SECONDS.toNanos(INTERVALO_AVISO_S));
+    private final LongAdder rejeitados = new LongAdder();
+    private Writer saida;
+
+    RegistroFalhas(PlanoImportacao plano, String[] cabecalhos, char separador, Charset charset, Path arquivoRejeitados) {
+        this.plano = plano;
+        this.cabecalhos = cabecalhos;
+        this.separador = separador;
+        this.charset = charset;
+        this.arquivoRejeitados = arquivoRejeitados;
+        this.exemplos = new AtomicIntegerArray(plano.quantidadeColunas());
+    }
+
+    void falha(int coluna, RegistroCSV registro, int campo) {
+        if (exemplos.get(coluna) < EXEMPLOS_POR_COLUNA && exemplos.getAndIncrement(coluna) < EXEMPLOS_POR_COLUNA) {
+            System.err.println("⚠️  " + motivo(coluna, registro, campo) + " (linha " + registro.linha() + ")");
+            return;
+        }
+        omitidas.increment();
+
+        long agora = System.nanoTime();
+        long previsto = proximoAviso.get();
+        if (agora - previsto >= 0 && proximoAviso.compareAndSet(previsto, agora + TimeUnit.SECONDS.toNanos(INTERVALO_AVISO_S))) {
+            avisarOmitidas();
+        }
+    }
+
+    String motivo(int coluna, RegistroCSV registro, int campo) {
+        return "Coluna '" + plano.coluna(coluna) + "': valor '" + registro.texto(campo) + "' não é " + plano.tipo(coluna);
+    }
+
+    synchronized void rejeitar(RegistroCSV registro, String motivo) {
+        rejeitados.increment();
+        try {
+            if (saida == null) {
+                saida = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(arquivoRejeitados), charset));
+                saida.write("linha" + separador + "motivo");
+                for (String cabecalho : cabecalhos) {
+                    saida.write(separador);
+                    escreverCampo(cabecalho);
+                }
+                saida.write('\n');
+            }
+            saida.write(Long.toString(registro.linha()));
+            saida.write(separador);
+            escreverCampo(motivo);
+            for (int i = 0; i < registro.quantidadeCampos(); i++) {
+                saida.write(separador);
+                escreverCampo(registro.texto(i));
+            }
+            saida.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar rejeitados em " + arquivoRejeitados, e);
+        }
+    }
+
+    private void escreverCampo(String valor) throws IOException {
+        if (valor.indexOf(separador) < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            saida.write(valor);
+            return;
+        }
+        saida.write('"');
+        saida.write(valor.replace("\"", "\"\""));
+        saida.write('"');
+    }
+
+    private void avisarOmitidas() {
+        long quantidade = omitidas.sumThenReset();
+        if (quantidade > 0) {
+            System.err.println("⚠️  Mais " + quantidade + " falhas de conversão sem detalhe; o total por coluna sai no resumo");
+        }
+    }
+
+    long rejeitados() {
+        return rejeitados.sum();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        avisarOmitidas();
+        if (saida != null) {
+            saida.close();
+            saida = null;
+        }
+        if (rejeitados.sum() > 0) {
+            System.out.println("⚠️  " + rejeitados.sum() + " registros rejeitados gravados em " + arquivoRejeitados);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.hdmpedro;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Ajustes de sessão para carga em massa numa conexão: {@code foreign_key_checks=0} e, quando não há
+ * mesclagem, {@code unique_checks=0}. O autocommit continua com quem grava, que já confirma por
+ * intervalo. O {@link #close()} devolve os valores que a sessão tinha antes, o que importa quando a
+ * conexão volta para um pool.
+ */
+final class SessaoCarga implements AutoCloseable {
+
+    private final Connection conexao;
+    private final String uniqueChecks;
+    private final String foreignKeyChecks;
+
+    private SessaoCarga(Connection conexao, String uniqueChecks, String foreignKeyChecks) {
+        this.conexao = conexao;
+        this.uniqueChecks = uniqueChecks;
+        this.foreignKeyChecks = foreignKeyChecks;
+    }
+
+    /**
+     * Com {@code manterUnicidade} o {@code unique_checks} fica ligado: sem ele o InnoDB pode deixar de
+     * conferir índices únicos secundários, e o {@code ON DUPLICATE KEY} da mesclagem depende deles.
+     */
+    static SessaoCarga preparar(Connection conexao, boolean manterUnicidade) throws SQLException {
+        String uniqueChecks;
+        String foreignKeyChecks;
+        try (Statement stmt = conexao.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@SESSION.unique_checks, @@SESSION.foreign_key_checks")) {
+            rs.next();
+            uniqueChecks = rs.getString(1);
+            foreignKeyChecks = rs.getString(2);
+        }
+
+        try (Statement stmt = conexao.createStatement()) {
+            stmt.execute("SET SESSION foreign_key_checks = 0" + (manterUnicidade ? "" : ", unique_checks = 0"));
+        }
+        return new SessaoCarga(conexao, uniqueChecks, foreignKeyChecks);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (conexao.isClosed()) return;
+        try (Statement stmt = conexao.createStatement()) {
+            stmt.execute("SET SESSION unique_checks = " + uniqueChecks + ", foreign_key_checks = " + foreignKeyChecks);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package io.hdmpedro;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Tokenizador RFC 4180 sobre um buffer de bytes reaproveitado. Entende campos entre aspas com
+ * separador, quebra de linha e aspas duplicadas ({@code ""}) dentro, inclusive registros que
+ * atravessam várias linhas. O buffer nunca é alterado: os campos são só intervalos sobre ele,
+ * o que permite voltar a uma {@link #marcar() marca} e ler de novo os mesmos registros.
+ *
+ * <p>Funciona para charsets compatíveis com ASCII (UTF-8, ISO-8859-1, Windows-1252), em que
+ * separador, aspas e quebra de linha nunca aparecem dentro de um caractere multibyte.
+ */
+final class TokenizadorCSV implements RegistroCSV, Closeable {
+
+    /** Trecho bruto com registros inteiros, cortado sem separar os campos. */
+    static final class Bloco {
+        final byte[] dados;
+        final long linhaInicial;
+        final long offsetInicial;
+
+        Bloco(byte[] dados, long linhaInicial, long offsetInicial) {
+            this.dados = dados;
+            this.linhaInicial = linhaInicial;
+            this.offsetInicial = offsetInicial;
+        }
+    }
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final byte ASPAS = '"';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    /** Estados de {@link #avancar}: início de campo, só espaços lidos até aqui. */
+    static final int INICIO_CAMPO = 0;
+    /** Campo sem aspas de abertura; aspas no meio dele são literais. */
+    static final int MEIO_CAMPO = 1;
+    static final int ENTRE_ASPAS = 2;
+    /** Aspas acabaram de fechar: outra aspa em seguida é um {@code ""} escapado. */
+    static final int FECHOU_ASPAS = 3;
+    /** Campo entre aspas já fechado; o que vier até o separador é literal. */
+    static final int DEPOIS_ASPAS = 4;
+    static final int ESTADOS = 5;
+
+    private final InputStream entrada;
+    private final Charset charset;
+    private byte separador = ',';
+
+    private byte[] buffer;
+    private int limite;
+    private int posicao;
+    private boolean fimEntrada;
+    private int deslocamento;
+    private long base;
+    private long linhaAtual;
+
+    private MetricasImportacao metricas;
+
+    private int marca = -1;
+    private long linhaMarca;
+
+    private int campos;
+    private int[] inicios = new int[32];
+    private int[] fins = new int[32];
+    private boolean[] escapados = new boolean[32];
+    private long linhaRegistro;
+    private long offsetRegistro;
+
+    TokenizadorCSV(InputStream entrada, Charset charset) {
+        this(entrada, charset, 0, 1);
+    }
+
+    /** Entrada que já começa em {@code offsetInicial} do arquivo, na linha física {@code linhaInicial}. */
+    TokenizadorCSV(InputStream entrada, Charset charset, long offsetInicial, long linhaInicial) {
+        this.entrada = entrada;
+        this.charset = charset;
+        this.buffer = new byte[TAMANHO_BUFFER];
+        this.base = offsetInicial;
+        this.linhaAtual = linhaInicial;
+    }
+
+    TokenizadorCSV(Bloco bloco, Charset charset, char separador) {
+        this.entrada = null;
+        this.charset = charset;
+        this.buffer = bloco.dados;
+        this.limite = bloco.dados.length;
+        this.fimEntrada = true;
+        this.base = bloco.offsetInicial;
+        this.linhaAtual = bloco.linhaInicial;
+        definirSeparador(separador);
+    }
+
+    void definirSeparador(char separador) {
+        if (separador > 0x7F) {
+            throw new IllegalArgumentException("Separador precisa ser ASCII: " + separador);
+        }
+        this.separador = (byte) separador;
+    }
+
+    char separador() {
+        return (char) separador;
+    }
+
+    /** Passa a registrar o tempo de cada leitura da entrada como {@link MetricasImportacao.Fase#LEITURA}. */
+    void medir(MetricasImportacao metricas) {
+        this.metricas = metricas;
+    }
+
+    /** Primeira linha física ainda não consumida, sem avançar a leitura. */
+    String espiarLinha() throws IOException {
+        int i = posicao;
+        while (true) {
+            while (i < limite && buffer[i] != LF) i++;
+            if (i < limite) break;
+            int lidos = i - posicao;
+            if (!recarregar(posicao)) break;
+            i = posicao + lidos;
+        }
+        int fim = i;
+        if (fim > posicao && buffer[fim - 1] == CR) fim--;
+        return new String(buffer, posicao, fim - posicao, charset);
+    }
+
+    /** Guarda a posição atual; os bytes a partir dela ficam no buffer até {@link #voltarMarca()}. */
+    void marcar() {
+        marca = posicao;
+        linhaMarca = linhaAtual;
+    }
+
+    void voltarMarca() {
+        if (marca < 0) throw new IllegalStateException("Nenhuma marca definida");
+        posicao = marca;
+        linhaAtual = linhaMarca;
+        marca = -1;
+    }
+
+    boolean proximo() throws IOException {
+        campos = 0;
+        while (true) {
+            if (posicao == limite && !recarregar(posicao)) return false;
+            byte b = buffer[posicao];
+            if (b == LF) {
+                linhaAtual++;
+            } else if (b != CR) {
+                break;
+            }
+            posicao++;
+        }
+
+        int inicioRegistro = posicao;
+        linhaRegistro = linhaAtual;
+        offsetRegistro = base + posicao;
+
+        int inicioCampo = posicao;
+        int inicioConteudo = -1;
+        int fimAspas = -1;
+        boolean entreAspas = false;
+        boolean escapado = false;
+
+        while (true) {
+            if (posicao == limite) {
+                boolean temDados = recarregar(inicioRegistro);
+                int d = deslocamento;
+                if (d > 0) {
+                    inicioRegistro -= d;
+                    inicioCampo -= d;
+                    if (inicioConteudo >= 0) inicioConteudo -= d;
+                    if (fimAspas >= 0) fimAspas -= d;
+                    for (int c = 0; c < campos; c++) {
+                        inicios[c] -= d;
+                        fins[c] -= d;
+                    }
+                }
+                if (!temDados) {
+                    fecharCampo(inicioCampo, posicao, inicioConteudo, fimAspas, escapado);
+                    return true;
+                }
+            }
+
+            byte b = buffer[posicao++];
+            if (entreAspas) {
+                if (b == ASPAS) {
+                    entreAspas = false;
+                    fimAspas = posicao - 1;
+                } else if (b == LF) {
+                    linhaAtual++;
+                }
+            } else if (b == separador) {
+                fecharCampo(inicioCampo, posicao - 1, inicioConteudo, fimAspas, escapado);
+                inicioCampo = posicao;
+                inicioConteudo = -1;
+                fimAspas = -1;
+                escapado = false;
+            } else if (b == LF) {
+                linhaAtual++;
+                fecharCampo(inicioCampo, posicao - 1, inicioConteudo, fimAspas, escapado);
+                return true;
+            } else if (b == ASPAS) {
+                if (inicioConteudo >= 0 && fimAspas == posicao - 2) {
+                    // "" dentro de um campo entre aspas: continua no mesmo campo
+                    entreAspas = true;
+                    escapado = true;
+                    fimAspas = -1;
+                } else if (inicioConteudo < 0 && soEspacos(inicioCampo, posicao - 1)) {
+                    entreAspas = true;
+                    inicioConteudo = posicao;
+                }
+            }
+        }
+    }
+
+    /**
+     * Corta até {@code maxRegistros} registros inteiros a partir da posição atual, sem separar os
+     * campos. Usado para distribuir o parse entre threads. As aspas seguem a mesma regra de
+     * {@link #proximo()}, via {@link #avancar}: só abrem no início de um campo.
+     */
+    Bloco proximoBloco(int maxRegistros) throws IOException {
+        int inicio = posicao;
+        long linhaInicio = linhaAtual;
+        long offsetInicio = base + posicao;
+        int registros = 0;
+        int estado = INICIO_CAMPO;
+
+        while (registros < maxRegistros) {
+            if (posicao == limite) {
+                boolean temDados = recarregar(inicio);
+                inicio -= deslocamento;
+                if (!temDados) break;
+            }
+            byte b = buffer[posicao++];
+            if (b == LF) {
+                linhaAtual++;
+                if (estado != ENTRE_ASPAS) registros++;
+            }
+            estado = avancar(estado, b, separador);
+        }
+
+        if (posicao == inicio) return null;
+        return new Bloco(Arrays.copyOfRange(buffer, inicio, posicao), linhaInicio, offsetInicio);
+    }
+
+    /**
+     * Estado das aspas depois de {@code b}, partindo de {@code estado}. Reproduz {@link #proximo()}
+     * sem guardar os campos: aspas abrem só quando o campo até ali tem apenas espaços, {@code ""}
+     * logo depois de fechar reabre o campo e qualquer outra aspa é um caractere comum. Um
+     * {@code \n} fora de {@link #ENTRE_ASPAS} termina o registro.
+     */
+    static int avancar(int estado, byte b, byte separador) {
+        if (estado == ENTRE_ASPAS) {
+            return b == ASPAS ? FECHOU_ASPAS : ENTRE_ASPAS;
+        }
+        if (b == separador || b == LF) return INICIO_CAMPO;
+        switch (estado) {
+            case INICIO_CAMPO:
+                if (b == ASPAS) return ENTRE_ASPAS;
+                return (b & 0xFF) > ' ' ? MEIO_CAMPO : INICIO_CAMPO;
+            case FECHOU_ASPAS:
+                return b == ASPAS ? ENTRE_ASPAS : DEPOIS_ASPAS;
+            default:
+                return estado;
+        }
+    }
+
+    private boolean soEspacos(int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if ((buffer[i] & 0xFF) > ' ') return false;
+        }
+        return true;
+    }
+
+    private void fecharCampo(int inicioCampo, int fimCampo, int inicioConteudo, int fimAspas, boolean escapado) {
+        int inicio;
+        int fim;
+        if (inicioConteudo >= 0) {
+            inicio = inicioConteudo;
+            fim = fimAspas >= 0 ? fimAspas : fimCampo;
+        } else {
+            inicio = inicioCampo;
+            fim = fimCampo;
+            while (inicio < fim && (buffer[inicio] & 0xFF) <= ' ') inicio++;
+            while (fim > inicio && (buffer[fim - 1] & 0xFF) <= ' ') fim--;
+        }
+
+        if (campos == inicios.length) {
+            int novo = campos * 2;
+            inicios = Arrays.copyOf(inicios, novo);
+            fins = Arrays.copyOf(fins, novo);
+            escapados = Arrays.copyOf(escapados, novo);
+        }
+        inicios[campos] = inicio;
+        fins[campos] = fim;
+        escapados[campos] = escapado;
+        campos++;
+    }
+
+    /**
+     * Descarta o que vem antes de {@code manterDesde} (ou da marca), cresce o buffer se preciso e lê
+     * mais dados. O quanto os bytes andaram para trás fica em {@link #deslocamento}.
+     */
+    private boolean recarregar(int manterDesde) throws IOException {
+        deslocamento = 0;
+        if (fimEntrada) return false;
+
+        int manter = marca >= 0 ? Math.min(manterDesde, marca) : manterDesde;
+        if (manter > 0) {
+            System.arraycopy(buffer, manter, buffer, 0, limite - manter);
+            limite -= manter;
+            posicao -= manter;
+            base += manter;
+            if (marca >= 0) marca -= manter;
+            deslocamento = manter;
+        }
+        if (limite == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        long inicioLeitura = metricas != null ? System.nanoTime() : 0;
+        int lidos;
+        do {
+            lidos = entrada.read(buffer, limite, buffer.length - limite);
+        } while (lidos == 0);
+        if (metricas != null) metricas.fase(MetricasImportacao.Fase.LEITURA, System.nanoTime() - inicioLeitura);
+
+        if (lidos < 0) {
+            fimEntrada = true;
+            return false;
+        }
+        limite += lidos;
+        return true;
+    }
+
+    /** Offset em bytes, na entrada, do início do registro atual. */
+    long offsetRegistro() {
+        return offsetRegistro;
+    }
+
+    /** Offset em bytes, na entrada, logo depois do que já foi consumido. */
+    long offsetAtual() {
+        return base + posicao;
+    }
+
+    /** Linha física onde começa o que ainda não foi consumido. */
+    long linhaAtual() {
+        return linhaAtual;
+    }
+
+    @Override
+    public int quantidadeCampos() {
+        return campos;
+    }
+
+    @Override
+    public byte[] bytes() {
+        return buffer;
+    }
+
+    @Override
+    public int inicio(int campo) {
+        return inicios[campo];
+    }
+
+    @Override
+    public int fim(int campo) {
+        return fins[campo];
+    }
+
+    @Override
+    public boolean escapado(int campo) {
+        return escapados[campo];
+    }
+
+    @Override
+    public Charset charset() {
+        return charset;
+    }
+
+    @Override
+    public long linha() {
+        return linhaRegistro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (entrada != null) entrada.close();
+    }
+}
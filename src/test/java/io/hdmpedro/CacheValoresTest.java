@@ -0,0 +1,182 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheValoresTest {
+
+    private static final int AMOSTRA = 4096;
+
+    /** Registro de um campo só. */
+    private static final class Campo implements RegistroCSV {
+        private final byte[] bytes;
+        private final boolean escapado;
+
+        Campo(String texto, boolean escapado) {
+            this.bytes = texto.getBytes(StandardCharsets.UTF_8);
+            this.escapado = escapado;
+        }
+
+        @Override
+        public int quantidadeCampos() {
+            return 1;
+        }
+
+        @Override
+        public byte[] bytes() {
+            return bytes;
+        }
+
+        @Override
+        public int inicio(int campo) {
+            return 0;
+        }
+
+        @Override
+        public int fim(int campo) {
+            return bytes.length;
+        }
+
+        @Override
+        public boolean escapado(int campo) {
+            return escapado;
+        }
+
+        @Override
+        public Charset charset() {
+            return StandardCharsets.UTF_8;
+        }
+
+        @Override
+        public long linha() {
+            return 1;
+        }
+    }
+
+    private int originais;
+    private int conversoes;
+    private final List<Object> atribuidos = new ArrayList<>();
+    private CacheValores cache;
+
+    @BeforeEach
+    void criar() {
+        cache = new CacheValores(
+                (registro, campo) -> {
+                    conversoes++;
+                    String texto = registro.texto(campo);
+                    return texto.startsWith("?") ? null : new StringBuilder(texto);
+                },
+                (pstmt, parametro, valor) -> atribuidos.add(valor),
+                (pstmt, parametro, registro, campo) -> {
+                    originais++;
+                    return true;
+                });
+    }
+
+    private void vincular(String texto) throws SQLException {
+        cache.vincular(null, 1, new Campo(texto, false), 0);
+    }
+
+    private void ligarCom(String... valores) throws SQLException {
+        for (int i = 0; i < AMOSTRA; i++) {
+            vincular(valores[i % valores.length]);
+        }
+    }
+
+    @Test
+    void observaAntesDeLigar() throws SQLException {
+        for (int i = 0; i < AMOSTRA - 1; i++) {
+            vincular("v" + (i % 10));
+        }
+        assertFalse(cache.ligado());
+        assertEquals(AMOSTRA - 1, originais);
+        assertEquals(0, conversoes);
+
+        vincular("v0");
+        assertTrue(cache.ligado());
+    }
+
+    @Test
+    void ligadoConverteUmaVezEReaproveita() throws SQLException {
+        ligarCom("a", "b");
+        originais = 0;
+
+        vincular("a");
+        vincular("a");
+        vincular("b");
+        vincular("a");
+
+        assertEquals(0, originais);
+        assertEquals(2, conversoes);
+        assertEquals(2, cache.faltas());
+        assertEquals(2, cache.acertos());
+        assertSame(atribuidos.get(0), atribuidos.get(1));
+        assertSame(atribuidos.get(0), atribuidos.get(3));
+        assertEquals("b", atribuidos.get(2).toString());
+    }
+
+    @Test
+    void muitosValoresDistintosDesligam() throws SQLException {
+        for (int i = 0; i <= CacheValores.CARDINALIDADE_MAXIMA; i++) {
+            vincular("v" + i);
+        }
+        assertFalse(cache.ligado());
+        originais = 0;
+
+        vincular("v1");
+        vincular("v1");
+        assertEquals(2, originais);
+        assertEquals(0, cache.acertos() + cache.faltas());
+    }
+
+    @Test
+    void camposEscapadosLongosOuInvalidosVaoParaOOriginal() throws SQLException {
+        ligarCom("a");
+        originais = 0;
+
+        cache.vincular(null, 1, new Campo("a", true), 0);
+        vincular("x12345678901234567890123456789012345678901234567890123456789012345");
+        vincular("?invalido");
+        assertEquals(3, originais);
+        assertTrue(atribuidos.isEmpty());
+    }
+
+    @Test
+    void valoresRarosNaoExpulsamOsFrequentes() throws SQLException {
+        ligarCom("frequente");
+        for (int i = 0; i < 20; i++) {
+            vincular("frequente");
+        }
+        long acertos = cache.acertos();
+
+        for (int i = 0; i < 4 * CacheValores.CAPACIDADE; i++) {
+            vincular("raro" + i);
+        }
+        vincular("frequente");
+        assertEquals(acertos + 1, cache.acertos());
+    }
+
+    @Test
+    void valorNovoEntraNoLugarDoMenosUsado() throws SQLException {
+        ligarCom("a");
+        for (int i = 0; i < 4 * CacheValores.CAPACIDADE; i++) {
+            vincular("raro" + i);
+        }
+        long acertos = cache.acertos();
+
+        vincular("novo");
+        vincular("novo");
+        assertEquals(acertos + 1, cache.acertos());
+    }
+}
@@ -0,0 +1,111 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class ConversorBytesTest {
+
+    // o campo fica no meio do array, como acontece com os intervalos do tokenizador
+    private static byte[] campo(String texto) {
+        return ("##" + texto + "##").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long inteiro(String texto) {
+        return ConversorBytes.inteiro(campo(texto), 2, 2 + texto.length());
+    }
+
+    private static BigDecimal decimal(String texto) {
+        return ConversorBytes.decimal(campo(texto), 2, 2 + texto.length());
+    }
+
+    private static int dataBr(String texto) {
+        return ConversorBytes.dataBr(campo(texto), 2, 2 + texto.length());
+    }
+
+    private static int dataIso(String texto) {
+        return ConversorBytes.dataIso(campo(texto), 2, 2 + texto.length());
+    }
+
+    private static int horaIso(String texto) {
+        return ConversorBytes.horaIso(campo(texto), 2, 2 + texto.length());
+    }
+
+    private static int booleano(String texto) {
+        return ConversorBytes.booleano(campo(texto), 2, 2 + texto.length());
+    }
+
+    @Test
+    void inteiros() {
+        assertEquals(42, inteiro("42"));
+        assertEquals(-7, inteiro("-7"));
+        assertEquals(7, inteiro("+7"));
+        assertEquals(999_999_999_999_999_999L, inteiro("999999999999999999"));
+        assertEquals(ConversorBytes.INVALIDO, inteiro("1000000000000000000"));
+        assertEquals(ConversorBytes.INVALIDO, inteiro(""));
+        assertEquals(ConversorBytes.INVALIDO, inteiro("-"));
+        assertEquals(ConversorBytes.INVALIDO, inteiro("1.0"));
+        assertEquals(ConversorBytes.INVALIDO, inteiro("1a"));
+    }
+
+    @Test
+    void decimaisGuardamAEscalaDoTexto() {
+        assertEquals(new BigDecimal("12.50"), decimal("12.50"));
+        assertEquals(new BigDecimal("-0.001"), decimal("-0.001"));
+        assertEquals(new BigDecimal("0.5"), decimal(".5"));
+        assertEquals(new BigDecimal("3"), decimal("3."));
+        assertEquals(new BigDecimal("17"), decimal("+17"));
+        assertEquals(new BigDecimal("0.000000000000000000123456789012345678"),
+                decimal("0.000000000000000000123456789012345678"));
+    }
+
+    @Test
+    void decimaisRecusamOQueNaoEhNumeroSimples() {
+        assertNull(decimal(""));
+        assertNull(decimal("."));
+        assertNull(decimal("-"));
+        assertNull(decimal("1.2.3"));
+        assertNull(decimal("1e5"));
+        assertNull(decimal("1,5"));
+        assertNull(decimal("1234567890123456789"));
+    }
+
+    @Test
+    void datasBrasileiras() {
+        assertEquals(20250131, dataBr("31/01/2025"));
+        assertEquals(-1, dataBr("1/01/2025"));
+        assertEquals(-1, dataBr("31-01-2025"));
+        assertEquals(-1, dataBr("3a/01/2025"));
+    }
+
+    @Test
+    void datasEHorasIso() {
+        assertEquals(20250131, dataIso("2025-01-31"));
+        assertEquals(20250131, dataIso("2025-01-31 10:20:30"));
+        assertEquals(-1, dataIso("2025/01/31"));
+        assertEquals(-1, dataIso("2025-1-31"));
+
+        assertEquals(102030, horaIso("2025-01-31 10:20:30"));
+        assertEquals(102030, horaIso("2025-01-31T10:20:30"));
+        assertEquals(-1, horaIso("2025-01-31"));
+        assertEquals(-1, horaIso("2025-01-31 10-20-30"));
+        assertEquals(-1, horaIso("2025-01-31 1x:20:30"));
+    }
+
+    @Test
+    void booleanosSemDiferenciarMaiusculas() {
+        for (String verdadeiro : new String[]{"1", "y", "Y", "yes", "YES", "true", "True"}) {
+            assertEquals(1, booleano(verdadeiro), verdadeiro);
+        }
+        for (String falso : new String[]{"0", "n", "N", "no", "No", "false", "FALSE"}) {
+            assertEquals(0, booleano(falso), falso);
+        }
+        for (String outro : new String[]{"", "2", "x", "si", "yep", "truth", "falsy", "verdadeiro"}) {
+            assertEquals(-1, booleano(outro), outro);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class DeltaConteudoTest {
+
+    private static TokenizadorCSV registro(String linha) throws IOException {
+        TokenizadorCSV tokenizador = new TokenizadorCSV(
+                new ByteArrayInputStream(linha.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        tokenizador.definirSeparador(';');
+        assertTrue(tokenizador.proximo());
+        return tokenizador;
+    }
+
+    @Test
+    void conjuntoGuardaCadaValorUmaVez() {
+        DeltaConteudo.ConjuntoLongs conjunto = new DeltaConteudo.ConjuntoLongs();
+        conjunto.adicionar(42);
+        conjunto.adicionar(42);
+        conjunto.adicionar(-1);
+        conjunto.adicionar(Long.MIN_VALUE);
+
+        assertEquals(3, conjunto.tamanho());
+        assertTrue(conjunto.contem(42));
+        assertTrue(conjunto.contem(-1));
+        assertTrue(conjunto.contem(Long.MIN_VALUE));
+        assertFalse(conjunto.contem(43));
+    }
+
+    @Test
+    void conjuntoDistingueZeroDoSlotVazio() {
+        DeltaConteudo.ConjuntoLongs conjunto = new DeltaConteudo.ConjuntoLongs();
+        assertFalse(conjunto.contem(0));
+        conjunto.adicionar(0);
+        conjunto.adicionar(0);
+        assertTrue(conjunto.contem(0));
+        assertEquals(1, conjunto.tamanho());
+    }
+
+    @Test
+    void conjuntoCresceSemPerderValores() {
+        DeltaConteudo.ConjuntoLongs conjunto = new DeltaConteudo.ConjuntoLongs();
+        // múltiplos de 1024 caem todos no mesmo slot inicial antes de crescer
+        for (long i = 1; i <= 100_000; i++) {
+            conjunto.adicionar(i * 1024);
+        }
+        assertEquals(100_000, conjunto.tamanho());
+        for (long i = 1; i <= 100_000; i++) {
+            assertTrue(conjunto.contem(i * 1024));
+        }
+        assertFalse(conjunto.contem(1023));
+        assertFalse(conjunto.contem(100_001L * 1024));
+    }
+
+    @Test
+    void hashCobreSoOsCamposImportados() throws IOException {
+        DeltaConteudo delta = new DeltaConteudo(new int[]{0, 2}, new DeltaConteudo.ConjuntoLongs());
+        assertEquals(delta.hash(registro("1;x;a\n")), delta.hash(registro("1;y;a\n")));
+        assertEquals(delta.hash(registro("1;x;a\n")), delta.hash(registro(" \"1\" ;x;a\n")));
+        assertNotEquals(delta.hash(registro("1;x;a\n")), delta.hash(registro("1;x;b\n")));
+    }
+
+    @Test
+    void hashSeparaOsCampos() throws IOException {
+        DeltaConteudo delta = new DeltaConteudo(new int[]{0, 1}, new DeltaConteudo.ConjuntoLongs());
+        assertNotEquals(delta.hash(registro("ab;c\n")), delta.hash(registro("a;bc\n")));
+        assertNotEquals(delta.hash(registro("a;\n")), delta.hash(registro(";a\n")));
+        // campo ausente conta como vazio
+        assertEquals(delta.hash(registro("a;\n")), delta.hash(registro("a\n")));
+    }
+
+    @Test
+    void registroComHashConhecidoNaoEhAlterado() throws IOException {
+        DeltaConteudo.ConjuntoLongs existentes = new DeltaConteudo.ConjuntoLongs();
+        DeltaConteudo referencia = new DeltaConteudo(new int[]{0, 1}, existentes);
+        existentes.adicionar(referencia.hash(registro("1;igual\n")));
+
+        DeltaConteudo delta = new DeltaConteudo(new int[]{0, 1}, existentes);
+        assertFalse(delta.alterado(registro("1;igual\n")));
+        assertTrue(delta.alterado(registro("1;mudou\n")));
+        assertTrue(delta.alterado(registro("2;igual\n")));
+        assertEquals(1, delta.inalterados());
+    }
+}
@@ -0,0 +1,47 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ExportacaoCSVTest {
+
+    private static void conferir(BigInteger minimo, BigInteger maximo, int partes) {
+        BigInteger[] limites = ExportacaoCSV.limites(minimo, maximo, partes);
+        assertEquals(partes + 1, limites.length);
+        assertEquals(minimo, limites[0]);
+        for (int i = 0; i < partes; i++) {
+            assertTrue(limites[i].compareTo(limites[i + 1]) < 0, "faixa " + i + " vazia ou invertida");
+        }
+        assertTrue(limites[partes].compareTo(maximo) > 0, "o máximo ficou fora da última faixa");
+    }
+
+    @Test
+    void faixasCobremChavesPequenas() {
+        conferir(BigInteger.ONE, BigInteger.valueOf(1000), 4);
+        conferir(BigInteger.valueOf(7), BigInteger.valueOf(7), 3);
+        assertEquals(BigInteger.valueOf(251), ExportacaoCSV.limites(BigInteger.ONE, BigInteger.valueOf(1000), 4)[1]);
+    }
+
+    @Test
+    void faixasNaoEstouramNosExtremosDoBigint() {
+        conferir(BigInteger.valueOf(Long.MIN_VALUE), BigInteger.valueOf(Long.MAX_VALUE), 4);
+        conferir(BigInteger.valueOf(Long.MIN_VALUE), BigInteger.valueOf(Long.MAX_VALUE), 1);
+        conferir(BigInteger.valueOf(-5), BigInteger.valueOf(Long.MAX_VALUE), 7);
+    }
+
+    @Test
+    void faixasAceitamBigintUnsigned() {
+        conferir(BigInteger.ZERO, BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE), 8);
+    }
+
+    @Test
+    void nomeDasPartes() {
+        assertEquals("vendas.parte2.csv.gz", ExportacaoCSV.nomeParte("vendas.csv.gz", 2));
+        assertEquals("vendas.parte1.csv", ExportacaoCSV.nomeParte("vendas.csv", 1));
+        assertEquals("vendas.parte3", ExportacaoCSV.nomeParte("vendas", 3));
+    }
+}
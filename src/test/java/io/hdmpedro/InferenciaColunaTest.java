@@ -0,0 +1,128 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class InferenciaColunaTest {
+
+    private static InferenciaColuna observar(String... valores) {
+        InferenciaColuna coluna = new InferenciaColuna(true);
+        for (String valor : valores) {
+            byte[] b = valor.getBytes(StandardCharsets.UTF_8);
+            coluna.observar(b, 0, b.length);
+        }
+        return coluna;
+    }
+
+    private static String exaustivo(String... valores) {
+        return observar(valores).tipoSql(true);
+    }
+
+    private static String amostra(String... valores) {
+        return observar(valores).tipoSql(false);
+    }
+
+    @Test
+    void semValoresViraText() {
+        assertEquals("TEXT", exaustivo());
+    }
+
+    @Test
+    void inteirosUsamOMenorTipoQuandoTodosOsValoresForamVistos() {
+        assertEquals("TINYINT", exaustivo("1", "-128", "127"));
+        assertEquals("SMALLINT", exaustivo("1", "128"));
+        assertEquals("INT", exaustivo("40000"));
+        assertEquals("BIGINT", exaustivo("3000000000"));
+        assertEquals("BIGINT", exaustivo("-3000000000"));
+    }
+
+    @Test
+    void amostraNaoDesceAbaixoDeInt() {
+        assertEquals("INT", amostra("1", "2"));
+        assertEquals("BIGINT", amostra("3000000000"));
+    }
+
+    @Test
+    void decimaisTemPrecisaoEEscalaExatas() {
+        assertEquals("DECIMAL(5,2)", exaustivo("12.5", "-123.45", "7"));
+        assertEquals("DECIMAL(1,1)", exaustivo("0.5"));
+    }
+
+    @Test
+    void amostraDaFolgaNaEscala() {
+        assertEquals("DECIMAL(11,4)", amostra("12.5", "-123.45"));
+        assertEquals("DECIMAL(8,4)", amostra("0.5"));
+        assertEquals("DECIMAL(10,6)", amostra("0.123456"));
+        assertEquals("DECIMAL(34,30)", amostra("0.000000000000000000000000000001"));
+    }
+
+    @Test
+    void zeroAEsquerdaMantemTexto() {
+        assertEquals("VARCHAR(5)", exaustivo("01310", "12345"));
+        assertEquals("DECIMAL(3,1)", exaustivo("0.5", "1.5", "10"));
+    }
+
+    @Test
+    void datasEBooleanos() {
+        assertEquals("DATE", exaustivo("31/01/2025", "2025-02-01"));
+        assertEquals("DATETIME", exaustivo("2025-02-01", "2025-02-01 10:20:30"));
+        assertEquals("BOOLEAN", exaustivo("yes", "No", "true"));
+        assertEquals("TINYINT", exaustivo("1", "0"));
+    }
+
+    @Test
+    void varcharContaCaracteresUtf8() {
+        assertEquals("VARCHAR(4)", exaustivo("ação", "ab"));
+        assertEquals("VARCHAR(255)", amostra("ação"));
+        assertEquals("VARCHAR(600)", amostra(repetir('x', 300)));
+        assertEquals("VARCHAR(1024)", amostra(repetir('x', 1000)));
+        assertEquals("TEXT", exaustivo(repetir('x', 1025)));
+        assertEquals("VARCHAR(1024)", exaustivo(repetir('x', 1024)));
+    }
+
+    @Test
+    void semUtf8ContaBytes() {
+        InferenciaColuna coluna = new InferenciaColuna(false);
+        byte[] b = "ação".getBytes(StandardCharsets.UTF_8);
+        coluna.observar(b, 0, b.length);
+        assertEquals("VARCHAR(6)", coluna.tipoSql(true));
+    }
+
+    @Test
+    void combinarDaOMesmoTipoQueUmaPassadaUnica() {
+        String[][] casos = {
+                {"1", "2", "300", "-5"},
+                {"1", "2", "3.25", "40"},
+                {"1", "abc", "2"},
+                {"31/01/2025", "2025-01-31 08:00:00"},
+                {"yes", "1", "no"},
+                {"ação", "texto maior", "x"},
+        };
+        for (String[] valores : casos) {
+            int meio = valores.length / 2;
+            InferenciaColuna parte = observar(Arrays.copyOfRange(valores, 0, meio));
+            parte.combinar(observar(Arrays.copyOfRange(valores, meio, valores.length)));
+            InferenciaColuna inteira = observar(valores);
+            assertEquals(inteira.valores(), parte.valores());
+            assertEquals(inteira.tipoSql(true), parte.tipoSql(true), Arrays.toString(valores));
+            assertEquals(inteira.tipoSql(false), parte.tipoSql(false), Arrays.toString(valores));
+        }
+    }
+
+    @Test
+    void combinarComEstadoVazioNaoMudaNada() {
+        InferenciaColuna coluna = observar("12.5");
+        coluna.combinar(new InferenciaColuna(true));
+        assertEquals("DECIMAL(3,1)", coluna.tipoSql(true));
+    }
+
+    private static String repetir(char c, int vezes) {
+        char[] texto = new char[vezes];
+        Arrays.fill(texto, c);
+        return new String(texto);
+    }
+}
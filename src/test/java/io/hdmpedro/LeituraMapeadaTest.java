@@ -0,0 +1,153 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LeituraMapeadaTest {
+
+    private static final String CABECALHO = "id;descricao;valor\n";
+
+    @TempDir
+    Path pasta;
+
+    private Path escrever(String dados) throws IOException {
+        Path arquivo = pasta.resolve("dados.csv");
+        Files.write(arquivo, (CABECALHO + dados).getBytes(StandardCharsets.UTF_8));
+        return arquivo;
+    }
+
+    private static LeituraMapeada leitura(Path arquivo, int paralelismo, boolean ordenada) {
+        return new LeituraMapeada(arquivo, StandardCharsets.UTF_8, ';', paralelismo, ordenada, 4,
+                new MetricasImportacao("teste", null));
+    }
+
+    /** Registros lidos pelo mapeamento, cada um com a linha física na frente. */
+    private static List<List<String>> mapeados(Path arquivo, int paralelismo, boolean ordenada) throws Exception {
+        List<List<String>> registros = Collections.synchronizedList(new ArrayList<>());
+        leitura(arquivo, paralelismo, ordenada).executar(CABECALHO.length(), 2, () -> 1000, lote -> {
+            for (int i = 0; i < lote.tamanho(); i++) {
+                lote.posicionar(i);
+                List<String> campos = new ArrayList<>();
+                campos.add(String.valueOf(lote.linha()));
+                campos.addAll(TokenizadorCSVTest.campos(lote));
+                registros.add(campos);
+            }
+            return true;
+        });
+        return registros;
+    }
+
+    private static List<List<String>> seriais(String dados) throws IOException {
+        List<List<String>> registros = new ArrayList<>();
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(
+                new ByteArrayInputStream(dados.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8,
+                CABECALHO.length(), 2)) {
+            tokenizador.definirSeparador(';');
+            while (tokenizador.proximo()) {
+                List<String> campos = new ArrayList<>();
+                campos.add(String.valueOf(tokenizador.linha()));
+                campos.addAll(TokenizadorCSVTest.campos(tokenizador));
+                registros.add(campos);
+            }
+        }
+        return registros;
+    }
+
+    @Test
+    void dividirComecaCadaFaixaNoInicioDeUmRegistro() throws Exception {
+        String dados = TokenizadorCSVTest.gerar(50_000);
+        Path arquivo = escrever(dados);
+
+        Map<Long, Long> inicios = new HashMap<>();
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(
+                new ByteArrayInputStream(dados.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8,
+                CABECALHO.length(), 2)) {
+            tokenizador.definirSeparador(';');
+            while (tokenizador.proximo()) {
+                inicios.put(tokenizador.offsetRegistro(), tokenizador.linha());
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            List<LeituraMapeada.Trecho> trechos = leitura(arquivo, 4, true).dividir(canal, pool, CABECALHO.length(), 2);
+            assertTrue(trechos.size() > 1, "o arquivo deveria ser dividido");
+            long esperado = CABECALHO.length();
+            for (LeituraMapeada.Trecho trecho : trechos) {
+                assertEquals(esperado, trecho.inicio);
+                assertEquals(inicios.get(trecho.inicio), Long.valueOf(trecho.linha), "faixa em " + trecho.inicio);
+                esperado = trecho.fim;
+            }
+            assertEquals(canal.size(), esperado);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void dividirArquivoSemDadosNaoTemFaixas() throws Exception {
+        Path arquivo = escrever("");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            assertTrue(leitura(arquivo, 2, true).dividir(canal, pool, CABECALHO.length(), 2).isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void serialBlocosEMapeadoConcordamComAspasSoltas() throws Exception {
+        StringBuilder dados = new StringBuilder("0;TUBO 1/2\";x\n");
+        for (int i = 1; i <= 200_000; i++) {
+            if (i % 1000 == 0) {
+                dados.append(i).append(";\"multi\nlinha\";").append(i).append('\n');
+            } else {
+                dados.append(i).append(";item ").append(i).append(';').append(i).append('\n');
+            }
+        }
+        comparar(dados.toString());
+    }
+
+    @Test
+    void serialBlocosEMapeadoConcordamEmEntradaVariada() throws Exception {
+        comparar(TokenizadorCSVTest.gerar(60_000));
+    }
+
+    private void comparar(String dados) throws Exception {
+        Path arquivo = escrever(dados);
+        List<List<String>> esperado = seriais(dados);
+
+        List<List<String>> blocos = new ArrayList<>();
+        for (List<String> registro : TokenizadorCSVTest.porBlocos(
+                new ByteArrayInputStream(dados.getBytes(StandardCharsets.UTF_8)), ';', 1000)) {
+            blocos.add(registro);
+        }
+        assertEquals(esperado.size(), blocos.size());
+        for (int i = 0; i < blocos.size(); i++) {
+            assertEquals(esperado.get(i).subList(1, esperado.get(i).size()), blocos.get(i));
+        }
+
+        assertEquals(esperado, mapeados(arquivo, 4, true));
+
+        List<List<String>> desordenados = new ArrayList<>(mapeados(arquivo, 4, false));
+        desordenados.sort((a, b) -> Long.compare(Long.parseLong(a.get(0)), Long.parseLong(b.get(0))));
+        assertEquals(esperado, desordenados);
+    }
+}
@@ -0,0 +1,199 @@
+package io.hdmpedro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TokenizadorCSVTest {
+
+    static List<List<String>> serial(InputStream entrada, char separador) throws IOException {
+        List<List<String>> registros = new ArrayList<>();
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(entrada, StandardCharsets.UTF_8)) {
+            tokenizador.definirSeparador(separador);
+            while (tokenizador.proximo()) {
+                registros.add(campos(tokenizador));
+            }
+        }
+        return registros;
+    }
+
+    static List<List<String>> porBlocos(InputStream entrada, char separador, int registrosPorBloco) throws IOException {
+        List<List<String>> registros = new ArrayList<>();
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(entrada, StandardCharsets.UTF_8)) {
+            tokenizador.definirSeparador(separador);
+            TokenizadorCSV.Bloco bloco;
+            while ((bloco = tokenizador.proximoBloco(registrosPorBloco)) != null) {
+                TokenizadorCSV parte = new TokenizadorCSV(bloco, StandardCharsets.UTF_8, separador);
+                while (parte.proximo()) {
+                    registros.add(campos(parte));
+                }
+            }
+        }
+        return registros;
+    }
+
+    static List<String> campos(RegistroCSV registro) {
+        List<String> campos = new ArrayList<>();
+        for (int i = 0; i < registro.quantidadeCampos(); i++) {
+            campos.add(registro.texto(i));
+        }
+        return campos;
+    }
+
+    private static InputStream texto(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Entrega no máximo {@code passo} bytes por leitura, para forçar recargas no meio dos campos. */
+    private static InputStream gotejando(String csv, int passo) {
+        return new FilterInputStream(texto(csv)) {
+            @Override
+            public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+                return super.read(destino, inicio, Math.min(tamanho, passo));
+            }
+        };
+    }
+
+    @Test
+    void separaCamposSimplesEApara() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("1", "", "3")),
+                serial(texto("a; b ;c\n1;;3\n"), ';'));
+    }
+
+    @Test
+    void reduzAspasDuplicadas() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("diz \"oi\"", "x"), Arrays.asList("\"", "")),
+                serial(texto("\"diz \"\"oi\"\"\";x\n\"\"\"\";\"\"\n"), ';'));
+    }
+
+    @Test
+    void aceitaCrlfEUltimaLinhaSemQuebra() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")),
+                serial(texto("a,b\r\nc,d"), ','));
+    }
+
+    @Test
+    void registroEmVariasLinhasGuardaALinhaInicial() throws IOException {
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(texto("a;\"x\ny\r\nz\";1\nb;2\n"), StandardCharsets.UTF_8)) {
+            tokenizador.definirSeparador(';');
+            assertTrue(tokenizador.proximo());
+            assertEquals(Arrays.asList("a", "x\ny\r\nz", "1"), campos(tokenizador));
+            assertEquals(1, tokenizador.linha());
+            assertTrue(tokenizador.proximo());
+            assertEquals(Arrays.asList("b", "2"), campos(tokenizador));
+            assertEquals(4, tokenizador.linha());
+        }
+    }
+
+    @Test
+    void aspasNoMeioDoCampoSaoLiterais() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("TUBO 1/2\"", "1"), Arrays.asList("ab\"c\"d", "2")),
+                serial(texto("TUBO 1/2\";1\nab\"c\"d;2\n"), ';'));
+    }
+
+    @Test
+    void recargaDoBufferNoMeioDeCampos() throws IOException {
+        String csv = gerar(5000);
+        List<List<String>> esperado = serial(texto(csv), ';');
+        assertEquals(5000, esperado.size());
+        for (int passo : new int[]{1, 3, 7, 4096}) {
+            assertEquals(esperado, serial(gotejando(csv, passo), ';'), "passo " + passo);
+        }
+    }
+
+    @Test
+    void registroMaiorQueOBufferFazOBufferCrescer() throws IOException {
+        char[] longo = new char[200_000];
+        Arrays.fill(longo, 'x');
+        String campo = new String(longo);
+        List<List<String>> registros = serial(gotejando("1;\"" + campo + "\n" + campo + "\";2\n3;4\n", 10_000), ';');
+        assertEquals(Arrays.asList(
+                Arrays.asList("1", campo + "\n" + campo, "2"),
+                Arrays.asList("3", "4")), registros);
+    }
+
+    @Test
+    void blocosConcordamComOSerialComAspasSoltas() throws IOException {
+        String csv = "a;TUBO 1/2\";1\nb;\"multi\nline\";2\nc;x;3\n";
+        List<List<String>> esperado = serial(texto(csv), ';');
+        assertEquals(3, esperado.size());
+        assertEquals(Arrays.asList("b", "multi\nline", "2"), esperado.get(1));
+        for (int n = 1; n <= 4; n++) {
+            assertEquals(esperado, porBlocos(texto(csv), ';', n), "blocos de " + n);
+        }
+    }
+
+    @Test
+    void aspaSoltaNaoImpedeOCorteDoBloco() throws IOException {
+        StringBuilder csv = new StringBuilder("0;TUBO 1/2\";x\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i).append(";y;z\n");
+        }
+        try (TokenizadorCSV tokenizador = new TokenizadorCSV(texto(csv.toString()), StandardCharsets.UTF_8)) {
+            tokenizador.definirSeparador(';');
+            TokenizadorCSV.Bloco bloco = tokenizador.proximoBloco(10);
+            TokenizadorCSV parte = new TokenizadorCSV(bloco, StandardCharsets.UTF_8, ';');
+            int registros = 0;
+            while (parte.proximo()) registros++;
+            assertEquals(10, registros);
+            assertEquals(11, tokenizador.linhaAtual());
+        }
+    }
+
+    @Test
+    void blocosConcordamComOSerialEmEntradaVariada() throws IOException {
+        String csv = gerar(3000);
+        List<List<String>> esperado = serial(texto(csv), ';');
+        for (int n : new int[]{1, 7, 100, 5000}) {
+            assertEquals(esperado, porBlocos(gotejando(csv, 97), ';', n), "blocos de " + n);
+        }
+    }
+
+    @Test
+    void estadosDeAvancarSeguemOProximo() {
+        byte sep = ';';
+        int estado = TokenizadorCSV.INICIO_CAMPO;
+        estado = TokenizadorCSV.avancar(estado, (byte) ' ', sep);
+        assertEquals(TokenizadorCSV.INICIO_CAMPO, estado);
+        estado = TokenizadorCSV.avancar(estado, (byte) '"', sep);
+        assertEquals(TokenizadorCSV.ENTRE_ASPAS, estado);
+        assertEquals(TokenizadorCSV.ENTRE_ASPAS, TokenizadorCSV.avancar(estado, (byte) '\n', sep));
+        estado = TokenizadorCSV.avancar(estado, (byte) '"', sep);
+        assertEquals(TokenizadorCSV.FECHOU_ASPAS, estado);
+        assertEquals(TokenizadorCSV.ENTRE_ASPAS, TokenizadorCSV.avancar(estado, (byte) '"', sep));
+        estado = TokenizadorCSV.avancar(estado, (byte) 'x', sep);
+        assertEquals(TokenizadorCSV.DEPOIS_ASPAS, estado);
+        assertEquals(TokenizadorCSV.DEPOIS_ASPAS, TokenizadorCSV.avancar(estado, (byte) '"', sep));
+        assertEquals(TokenizadorCSV.INICIO_CAMPO, TokenizadorCSV.avancar(estado, sep, sep));
+        assertEquals(TokenizadorCSV.MEIO_CAMPO,
+                TokenizadorCSV.avancar(TokenizadorCSV.MEIO_CAMPO, (byte) '"', sep));
+    }
+
+    /** Mistura campos simples, aspas soltas, aspas escapadas, CRLF e quebras dentro de aspas. */
+    static String gerar(int registros) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < registros; i++) {
+            csv.append(i).append(';');
+            switch (i % 6) {
+                case 0: csv.append("simples"); break;
+                case 1: csv.append("TUBO ").append(i).append("/2\""); break;
+                case 2: csv.append("\"linha\num ").append(i).append(";dois\""); break;
+                case 3: csv.append(" \"diz \"\"").append(i).append("\"\"\" "); break;
+                case 4: csv.append("a\"b\"c"); break;
+                default: csv.append("\"\""); break;
+            }
+            csv.append(';').append(i * 7).append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        return csv.toString();
+    }
+}